@@ -0,0 +1,56 @@
+package se.stegroo.backend.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspelade AF-annonser för benchmarks. Fixturen innehåller ett fåtal annonser som
+ * upprepas med nya id:n så att varje benchmark kan välja storlek utan nätverk.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String AF_STREAM_ADS = "/fixtures/af-stream-ads.json";
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Samma ObjectMapper-konfiguration som applikationen använder för AF:s JSON
+     */
+    public static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Bygger en JSON-array med {@code count} annonser från fixturen
+     *
+     * @return JSON som UTF-8, i samma form som en snapshot-chunk från AF
+     */
+    public static byte[] afStreamChunk(ObjectMapper objectMapper, int count) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream(AF_STREAM_ADS)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixturen saknas: " + AF_STREAM_ADS);
+            }
+            List<Map<String, Object>> recorded = objectMapper.readValue(in, new TypeReference<>() {});
+            ArrayNode chunk = objectMapper.createArrayNode();
+            for (int i = 0; i < count; i++) {
+                ObjectNode ad = objectMapper.valueToTree(recorded.get(i % recorded.size()));
+                ad.put("id", String.valueOf(30_000_000 + i));
+                chunk.add(ad);
+            }
+            return objectMapper.writeValueAsBytes(chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
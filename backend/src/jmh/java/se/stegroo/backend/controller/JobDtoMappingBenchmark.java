@@ -0,0 +1,97 @@
+package se.stegroo.backend.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import se.stegroo.backend.benchmark.BenchmarkFixtures;
+import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.model.JobCategory;
+import se.stegroo.backend.model.JobListing;
+import se.stegroo.backend.model.Skill;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter konverteringen från JobListing till JobListingDTO för en sida med jobb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class JobDtoMappingBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private JobController jobController;
+    private List<JobListing> jobs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jobController = new JobController(null, null, null, null, null);
+
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        List<AfJobStreamJob> ads = objectMapper.readValue(
+                BenchmarkFixtures.afStreamChunk(objectMapper, pageSize), new TypeReference<>() {});
+
+        JobCategory category = new JobCategory();
+        category.setId(1L);
+        category.setName("Data/IT");
+
+        jobs = new ArrayList<>(ads.size());
+        long id = 1;
+        for (AfJobStreamJob ad : ads) {
+            JobListing job = new JobListing();
+            job.setId(id++);
+            job.setExternalId(ad.getId());
+            job.setTitle(ad.getHeadline());
+            job.setDescription(ad.getDescription().getText());
+            job.setCompanyName(ad.getEmployer().getName());
+            job.setLocation(ad.getWorkplaceAddress().getMunicipality());
+            job.setExternalUrl(ad.getWebpageUrl());
+            job.setSource("arbetsformedlingen");
+            job.setEmploymentType(ad.getEmploymentType().getLabel());
+            job.setPublishedAt(ad.getPublicationDate());
+            job.setDeadline(ad.getApplicationDeadline());
+            job.setCategory(category);
+            job.setSkills(skills(ad));
+            jobs.add(job);
+        }
+    }
+
+    @Benchmark
+    public void convertPage(Blackhole blackhole) {
+        for (JobListing job : jobs) {
+            blackhole.consume(jobController.convertToDTO(job));
+        }
+    }
+
+    private Set<Skill> skills(AfJobStreamJob ad) {
+        Set<Skill> skills = new HashSet<>();
+        if (ad.getMustHave() != null && ad.getMustHave().getSkills() != null) {
+            long id = 1;
+            for (var afSkill : ad.getMustHave().getSkills()) {
+                Skill skill = new Skill();
+                skill.setId(id++);
+                skill.setName(afSkill.getLabel());
+                skills.add(skill);
+            }
+        }
+        return skills;
+    }
+}
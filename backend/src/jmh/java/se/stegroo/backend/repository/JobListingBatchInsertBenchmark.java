@@ -0,0 +1,142 @@
+package se.stegroo.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentityGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import se.stegroo.backend.model.JobListing;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter hur snabbt nya jobb sparas via JPA med prod-inställningarna ({@code batch_size=50}).
+ * <p>
+ * {@code identity} är baslinjen från före V7: id-mappningen skrivs om till IDENTITY med
+ * {@code jmh-identity-orm.xml}, så Hibernate måste skicka varje INSERT för sig för att få tillbaka
+ * id:t. {@code sequence} är entitetens egen mappning med pooled-lo, block om 50, där inserts batchas.
+ * <p>
+ * Skillnaden är rundresor till databasen, så benchmarken kräver PostgreSQL med schemat från Flyway.
+ * Anslutningen anges till den forkade JVM:en, t.ex.
+ * {@code -jvmArgsAppend "-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/stegroo -Dbenchmark.jdbc.user=postgres"}.
+ * Utan anslutning avbryts benchmarken med en varning. Benchmarkens egna rader tas bort före varje iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class JobListingBatchInsertBenchmark {
+
+    private static final int JOBS_PER_TRANSACTION = 500;
+    private static final String SOURCE = "jmh";
+    private static final String URL_PROPERTY = "benchmark.jdbc.url";
+
+    @Param({"identity", "sequence"})
+    public String idGeneration;
+
+    private EntityManagerFactory entityManagerFactory;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null || !url.startsWith("jdbc:postgresql:")) {
+            String message = "JobListingBatchInsertBenchmark kräver PostgreSQL, ange -D" + URL_PROPERTY
+                    + "=jdbc:postgresql://... via -jvmArgsAppend. Hoppar över (angiven url: " + url + ")";
+            System.err.println("VARNING: " + message);
+            throw new IllegalStateException(message);
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                url, System.getProperty("benchmark.jdbc.user", "postgres"), System.getProperty("benchmark.jdbc.password", ""));
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("se.stegroo.backend.model");
+        if ("identity".equals(idGeneration)) {
+            factoryBean.setMappingResources("jmh-identity-orm.xml");
+        }
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect",
+                "hibernate.hbm2ddl.auto", "none",
+                "hibernate.id.optimizer.pooled.preferred", "pooled-lo",
+                "hibernate.jdbc.batch_size", "50",
+                "hibernate.order_inserts", "true"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        // Säkerställer att rätt mappning mäts, en ignorerad orm.xml skulle ge två likadana varianter
+        Generator generator = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(JobListing.class).getGenerator();
+        boolean identity = generator instanceof IdentityGenerator;
+        if (identity != "identity".equals(idGeneration)) {
+            throw new IllegalStateException("Fel id-generator för " + idGeneration + ": " + generator.getClass().getName());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("DELETE FROM job_listings WHERE source = '" + SOURCE + "'").executeUpdate();
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clearTable();
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS_PER_TRANSACTION)
+    public long persistJobs() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < JOBS_PER_TRANSACTION; i++) {
+                entityManager.persist(newJob(++sequence, now));
+            }
+            entityManager.getTransaction().commit();
+            return sequence;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static JobListing newJob(long n, LocalDateTime now) {
+        JobListing job = new JobListing();
+        job.setExternalId(SOURCE + "-" + n);
+        job.setTitle("Utvecklare " + n);
+        job.setCompanyName("Stegroo AB");
+        job.setLocation("Stockholm");
+        job.setDescription("Vi söker en utvecklare med erfarenhet av Java och Spring.");
+        job.setSource(SOURCE);
+        job.setPublishedAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+}
@@ -0,0 +1,61 @@
+package se.stegroo.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter validering av en token som återanvänds i en session, med och utan valideringscache.
+ * {@code cacheMaxEntries=0} motsvarar att signaturen verifieras vid varje anrop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-for-jwt-validation-must-be-at-least-256-bits";
+    private static final String ISSUER = "https://fwysotlogybsnaehuuee.supabase.co/auth/v1";
+
+    @Param({"0", "10000"})
+    public int cacheMaxEntries;
+
+    private JwtTokenValidator validator;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator = new JwtTokenValidator(SECRET, ISSUER, cacheMaxEntries, null);
+        token = Jwts.builder()
+                .setSubject("7f3c2a9e-52b1-4c8e-9a0d-3e6f1b2c4d5e")
+                .setIssuer(ISSUER)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .claim("email", "anna.andersson@example.se")
+                .claim("role", "authenticated")
+                .claim("app_metadata", Map.of("provider", "email", "roles", List.of("admin")))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public Authentication validateToken() {
+        return validator.validateToken(token);
+    }
+}
@@ -0,0 +1,106 @@
+package se.stegroo.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.stegroo.backend.benchmark.BenchmarkFixtures;
+import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.model.JobCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter inläsningen av en snapshot-chunk: JSON till AfJobStreamJob och vidare till JobListing.
+ * Kategorier hämtas från en cache i minnet så att bara parsning och konvertering mäts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class AfIngestBenchmark {
+
+    @Param({"100", "1000"})
+    public int adCount;
+
+    private ObjectMapper objectMapper;
+    private ArbetsformedlingenService arbetsformedlingenService;
+    private byte[] chunk;
+    private List<AfJobStreamJob> ads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        chunk = BenchmarkFixtures.afStreamChunk(objectMapper, adCount);
+        arbetsformedlingenService = new ArbetsformedlingenService(
+                "http://localhost", "", null, new InMemoryCategoryCache(), null, objectMapper, null, null, null);
+        ReflectionTestUtils.setField(arbetsformedlingenService, "streamBatchSize", 500);
+        ads = objectMapper.readValue(chunk, new TypeReference<List<AfJobStreamJob>>() {});
+    }
+
+    @Benchmark
+    public List<AfJobStreamJob> deserializeChunk() throws IOException {
+        return objectMapper.readValue(chunk, new TypeReference<List<AfJobStreamJob>>() {});
+    }
+
+    @Benchmark
+    public int deserializeChunkStreaming(Blackhole blackhole) throws IOException {
+        return arbetsformedlingenService.readAdsStreaming(new ByteArrayInputStream(chunk), blackhole::consume);
+    }
+
+    @Benchmark
+    public void convertAds(Blackhole blackhole) {
+        for (AfJobStreamJob ad : ads) {
+            blackhole.consume(arbetsformedlingenService.convertAfJobToJobListing(ad));
+        }
+    }
+
+    @Benchmark
+    public ArbetsformedlingenService.ChunkStreamResult readAndConvertChunk(Blackhole blackhole) throws IOException {
+        return arbetsformedlingenService.readJobsStreaming(new ByteArrayInputStream(chunk), 0, (jobs, chunkIndex) -> {
+            blackhole.consume(jobs);
+            return jobs.size();
+        });
+    }
+
+    /**
+     * Kategoricache utan databas, motsvarar en uppvärmd cache i drift
+     */
+    static class InMemoryCategoryCache extends JobCategoryCache {
+
+        private final Map<String, JobCategory> categories = new ConcurrentHashMap<>();
+
+        InMemoryCategoryCache() {
+            super(null, null);
+        }
+
+        @Override
+        public JobCategory getOrCreate(String name, JobCategory.TaxonomyType taxonomyType) {
+            if (name == null || name.isBlank()) {
+                return null;
+            }
+            return categories.computeIfAbsent(name, key -> {
+                JobCategory category = new JobCategory();
+                category.setId((long) categories.size() + 1);
+                category.setName(key);
+                category.setTaxonomyType(taxonomyType);
+                return category;
+            });
+        }
+    }
+}
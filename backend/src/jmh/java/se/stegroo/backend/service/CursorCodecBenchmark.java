@@ -0,0 +1,58 @@
+package se.stegroo.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter kodning och avkodning av synk- och keyset-cursors
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class CursorCodecBenchmark {
+
+    private static final LocalDateTime PUBLISHED_AT = LocalDateTime.of(2024, 5, 14, 9, 12, 40);
+
+    private CursorPaginationService cursorPaginationService;
+    private String syncCursor;
+    private String keysetCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cursorPaginationService = new CursorPaginationService();
+        syncCursor = cursorPaginationService.createCursor("28893513", PUBLISHED_AT, "arbetsformedlingen");
+        keysetCursor = cursorPaginationService.createKeysetCursor("publishedAt", Sort.Direction.DESC, PUBLISHED_AT, 48_213L);
+    }
+
+    @Benchmark
+    public String createCursor() {
+        return cursorPaginationService.createCursor("28893513", PUBLISHED_AT, "arbetsformedlingen");
+    }
+
+    @Benchmark
+    public CursorPaginationService.CursorInfo decodeCursor() {
+        return cursorPaginationService.decodeCursor(syncCursor);
+    }
+
+    @Benchmark
+    public String createKeysetCursor() {
+        return cursorPaginationService.createKeysetCursor("publishedAt", Sort.Direction.DESC, PUBLISHED_AT, 48_213L);
+    }
+
+    @Benchmark
+    public CursorPaginationService.KeysetCursor decodeKeysetCursor() {
+        return cursorPaginationService.decodeKeysetCursor(keysetCursor);
+    }
+}
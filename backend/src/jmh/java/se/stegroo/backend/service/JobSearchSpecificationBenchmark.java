@@ -0,0 +1,100 @@
+package se.stegroo.backend.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import se.stegroo.backend.dto.JobSearchRequest;
+import se.stegroo.backend.model.JobListing;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter uppbyggnaden av sökfrågan för en typisk filtrerad sökning: Specification till
+ * predikat och vidare till en körbar fråga. Frågan skickas aldrig till databasen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class JobSearchSpecificationBenchmark {
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private JobSearchService jobSearchService;
+    private JobSearchRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1", "sa", "");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("se.stegroo.backend.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+
+        entityManagerFactory = factoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        jobSearchService = new JobSearchService(null, null, null, new CursorPaginationService(), null);
+
+        request = new JobSearchRequest();
+        request.setQuery("Java utvecklare");
+        request.setLocation("Stockholm");
+        request.setCategoryId(1L);
+        request.setSkillIds(Set.of(1L, 2L));
+        request.setEmploymentType("Vanlig anställning");
+        request.setDaysBack(30);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Object buildPredicate() {
+        Specification<JobListing> spec = jobSearchService.createSearchSpecification(request, null);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JobListing> query = criteriaBuilder.createQuery(JobListing.class);
+        Root<JobListing> root = query.from(JobListing.class);
+        return query.where(spec.toPredicate(root, query, criteriaBuilder));
+    }
+
+    @Benchmark
+    public Object buildQuery() {
+        Specification<JobListing> spec = jobSearchService.createSearchSpecification(request, null);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JobListing> query = criteriaBuilder.createQuery(JobListing.class);
+        Root<JobListing> root = query.from(JobListing.class);
+        query.where(spec.toPredicate(root, query, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    @Benchmark
+    public String prefixTsQuery() {
+        return JobSearchService.toPrefixTsQuery(request.getQuery());
+    }
+}
@@ -0,0 +1,110 @@
+package se.stegroo.backend.aspect;
+
+/**
+ * En audit-händelse som den skapas på anropstråden: fasta fält och en tidsstämpel i millisekunder.
+ * Meddelandet byggs och tiden formateras först av {@link AuditEventWriter}.
+ */
+final class AuditEvent {
+
+    /**
+     * Händelsetyper med logger, nivå och meddelandeformat. Formaten är desamma som innan loggningen
+     * blev asynkron så att befintliga sökningar i loggarna fortsätter att fungera.
+     */
+    enum Type {
+        CONTROLLER_ACCESS_START(Channel.AUDIT, Level.INFO,
+                "CONTROLLER_ACCESS_START | User: {} | IP: {} | Class: {} | Method: {} | UserAgent: {} | Timestamp: {}"),
+        CONTROLLER_ACCESS_SUCCESS(Channel.AUDIT, Level.INFO,
+                "CONTROLLER_ACCESS_SUCCESS | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}"),
+        CONTROLLER_ACCESS_FAILURE(Channel.AUDIT, Level.ERROR,
+                "CONTROLLER_ACCESS_FAILURE | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}"),
+        ADMIN_OPERATION_START(Channel.SECURITY, Level.INFO,
+                "ADMIN_OPERATION_START | User: {} | IP: {} | Method: {} | Args: {} | Timestamp: {}"),
+        ADMIN_OPERATION_SUCCESS(Channel.SECURITY, Level.INFO,
+                "ADMIN_OPERATION_SUCCESS | User: {} | IP: {} | Method: {} | Duration: {}ms | Result: {} | Timestamp: {}"),
+        ADMIN_OPERATION_FAILURE(Channel.SECURITY, Level.ERROR,
+                "ADMIN_OPERATION_FAILURE | User: {} | IP: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}"),
+        SYNC_OPERATION_START(Channel.AUDIT, Level.INFO,
+                "SYNC_OPERATION_START | User: {} | IP: {} | Class: {} | Method: {} | Timestamp: {}"),
+        SYNC_OPERATION_SUCCESS(Channel.AUDIT, Level.INFO,
+                "SYNC_OPERATION_SUCCESS | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}"),
+        SYNC_OPERATION_FAILURE(Channel.AUDIT, Level.ERROR,
+                "SYNC_OPERATION_FAILURE | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}"),
+        DATABASE_OPERATION_START(Channel.AUDIT, Level.DEBUG,
+                "DATABASE_OPERATION_START | User: {} | Class: {} | Method: {} | Args: {} | Timestamp: {}"),
+        DATABASE_OPERATION_SUCCESS(Channel.AUDIT, Level.DEBUG,
+                "DATABASE_OPERATION_SUCCESS | User: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}"),
+        DATABASE_OPERATION_FAILURE(Channel.AUDIT, Level.ERROR,
+                "DATABASE_OPERATION_FAILURE | User: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}");
+
+        final Channel channel;
+        final Level level;
+        final String format;
+
+        Type(Channel channel, Level level, String format) {
+            this.channel = channel;
+            this.level = level;
+            this.format = format;
+        }
+    }
+
+    enum Channel { AUDIT, SECURITY }
+
+    enum Level { DEBUG, INFO, ERROR }
+
+    final Type type;
+    final long timestampMillis;
+    final String username;
+    final String clientIp;
+    final String className;
+    final String methodName;
+    final String userAgent;
+    final long durationMs;
+    final String detail;
+    /** Händelser som aldrig får kastas när bufferten är full, t.ex. admin-operationer */
+    final boolean required;
+
+    AuditEvent(Type type, long timestampMillis, String username, String clientIp, String className,
+               String methodName, String userAgent, long durationMs, String detail, boolean required) {
+        this.type = type;
+        this.timestampMillis = timestampMillis;
+        this.username = username;
+        this.clientIp = clientIp;
+        this.className = className;
+        this.methodName = methodName;
+        this.userAgent = userAgent;
+        this.durationMs = durationMs;
+        this.detail = detail;
+        this.required = required;
+    }
+
+    /**
+     * Argumenten till {@link Type#format} i rätt ordning
+     */
+    Object[] arguments(String timestamp) {
+        switch (type) {
+            case CONTROLLER_ACCESS_START:
+                return new Object[]{username, clientIp, className, methodName, userAgent, timestamp};
+            case CONTROLLER_ACCESS_SUCCESS:
+            case SYNC_OPERATION_SUCCESS:
+                return new Object[]{username, clientIp, className, methodName, durationMs, timestamp};
+            case CONTROLLER_ACCESS_FAILURE:
+            case SYNC_OPERATION_FAILURE:
+                return new Object[]{username, clientIp, className, methodName, durationMs, detail, timestamp};
+            case ADMIN_OPERATION_START:
+                return new Object[]{username, clientIp, methodName, detail, timestamp};
+            case ADMIN_OPERATION_SUCCESS:
+            case ADMIN_OPERATION_FAILURE:
+                return new Object[]{username, clientIp, methodName, durationMs, detail, timestamp};
+            case SYNC_OPERATION_START:
+                return new Object[]{username, clientIp, className, methodName, timestamp};
+            case DATABASE_OPERATION_START:
+                return new Object[]{username, className, methodName, detail, timestamp};
+            case DATABASE_OPERATION_SUCCESS:
+                return new Object[]{username, className, methodName, durationMs, timestamp};
+            case DATABASE_OPERATION_FAILURE:
+                return new Object[]{username, className, methodName, durationMs, detail, timestamp};
+            default:
+                throw new IllegalStateException("Okänd audit-händelse: " + type);
+        }
+    }
+}
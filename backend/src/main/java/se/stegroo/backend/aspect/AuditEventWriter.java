@@ -0,0 +1,181 @@
+package se.stegroo.backend.aspect;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.stegroo.backend.config.MetricsConfig;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Skriver audit-händelser på en egen bakgrundstråd så att loggningen inte ligger på
+ * förfrågningens tråd.
+ * <p>
+ * Händelserna lämnas över via en ringbuffert med fast storlek ({@code stegroo.audit.buffer-size}).
+ * Anropstråden blockerar aldrig: är bufferten full kastas vanliga händelser och räknas i
+ * {@code stegroo.audit.dropped}, medan obligatoriska händelser (admin-operationer) skrivs direkt
+ * på anropstråden. Vid nedstängning läggs en stoppmarkör sist i bufferten så att skrivtråden
+ * skriver allt som publicerats före stoppet, i ordning, innan den avslutas.
+ */
+@Component
+public class AuditEventWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+    private static final Logger auditLogger = LoggerFactory.getLogger("AUDIT");
+    private static final Logger securityLogger = LoggerFactory.getLogger("SECURITY");
+    private static final DateTimeFormatter formatter =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+    // Stoppmarkör, jämförs på identitet och skrivs aldrig
+    private static final AuditEvent STOP = new AuditEvent(null, 0, null, null, null, null, null, 0, null, true);
+
+    private final BlockingQueue<AuditEvent> buffer;
+    private final MetricsConfig metricsConfig;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final List<AuditEvent> drained = new ArrayList<>(DRAIN_BATCH);
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditEventWriter(
+            @Value("${stegroo.audit.buffer-size:8192}") int bufferSize,
+            MetricsConfig metricsConfig) {
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        this.metricsConfig = metricsConfig;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (writerThread != null) {
+            // Skrivtråden avbryts inte mitt i en skrivning. Får markören inte plats avslutas
+            // skrivtråden i stället vid nästa tomma poll.
+            try {
+                buffer.offer(STOP, STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                writerThread.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerThread.isAlive()) {
+                // Att skriva här samtidigt som skrivtråden skulle blanda ordningen
+                log.warn("Audit-skrivaren stoppades inte inom {} ms, {} händelser kvar i bufferten",
+                        STOP_TIMEOUT_MILLIS, buffer.size());
+                return;
+            }
+            writerThread = null;
+        }
+        // Det som hann läggas i bufferten efter att skrivtråden slutade
+        AuditEvent event;
+        while ((event = buffer.poll()) != null) {
+            if (event != STOP) {
+                write(event);
+            }
+        }
+    }
+
+    /**
+     * Lämnar en händelse till skrivtråden utan att blockera
+     *
+     * @return false om händelsen kastades för att bufferten var full
+     */
+    boolean publish(AuditEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        if (event.required) {
+            write(event);
+            return true;
+        }
+        droppedEvents.incrementAndGet();
+        if (metricsConfig != null) {
+            metricsConfig.recordAuditEventDropped();
+        }
+        return false;
+    }
+
+    /**
+     * Antal händelser som kastats sedan start
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void drainLoop() {
+        boolean stopSeen = false;
+        while (!stopSeen) {
+            try {
+                AuditEvent first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    stopSeen = !running;
+                    continue;
+                }
+                drained.add(first);
+                buffer.drainTo(drained, DRAIN_BATCH);
+                for (AuditEvent event : drained) {
+                    if (event == STOP) {
+                        // Det som publicerades efter markören skrivs också, anroparen väntar på join
+                        stopSeen = true;
+                        continue;
+                    }
+                    write(event);
+                }
+            } catch (InterruptedException e) {
+                // Skrivtråden stoppas bara via markören eller running
+                stopSeen = !running;
+            } finally {
+                drained.clear();
+            }
+        }
+        long dropped = droppedEvents.get();
+        if (dropped > 0) {
+            log.warn("Audit-skrivaren stoppad, {} händelser kastades för att bufferten var full", dropped);
+        }
+    }
+
+    void write(AuditEvent event) {
+        try {
+            Logger logger = event.type.channel == AuditEvent.Channel.SECURITY ? securityLogger : auditLogger;
+            switch (event.type.level) {
+                case DEBUG:
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(event.type.format, event.arguments(formatter.format(Instant.ofEpochMilli(event.timestampMillis))));
+                    }
+                    break;
+                case ERROR:
+                    logger.error(event.type.format, event.arguments(formatter.format(Instant.ofEpochMilli(event.timestampMillis))));
+                    break;
+                default:
+                    if (logger.isInfoEnabled()) {
+                        logger.info(event.type.format, event.arguments(formatter.format(Instant.ofEpochMilli(event.timestampMillis))));
+                    }
+            }
+        } catch (Exception e) {
+            // En trasig händelse får inte stoppa skrivtråden
+            log.warn("Kunde inte skriva audit-händelse {}: {}", event.type, e.getMessage());
+        }
+    }
+}
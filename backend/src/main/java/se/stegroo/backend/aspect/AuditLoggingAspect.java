@@ -6,27 +6,45 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import se.stegroo.backend.controller.AdminController;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Aspect för audit logging av alla viktiga operationer
+ * Aspect för audit logging av alla viktiga operationer.
+ * <p>
+ * Aspecten samlar bara in fälten för en {@link AuditEvent} på anropstråden; meddelanden byggs och
+ * skrivs av {@link AuditEventWriter} i bakgrunden. Läsande controller-anrop (GET/HEAD) loggas med
+ * sannolikheten {@code stegroo.audit.read-sample-rate}, misslyckade anrop loggas alltid.
+ * Admin-operationer loggas alltid fullständigt, med argument och resultat.
  */
 @Aspect
 @Component
 public class AuditLoggingAspect {
 
     private static final Logger auditLogger = LoggerFactory.getLogger("AUDIT");
-    private static final Logger securityLogger = LoggerFactory.getLogger("SECURITY");
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String ANONYMOUS = "ANONYMOUS";
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final AuditEventWriter auditEventWriter;
+    private final double readSampleRate;
+
+    public AuditLoggingAspect(
+            AuditEventWriter auditEventWriter,
+            @Value("${stegroo.audit.read-sample-rate:1.0}") double readSampleRate) {
+        this.auditEventWriter = auditEventWriter;
+        this.readSampleRate = Math.max(0.0, Math.min(1.0, readSampleRate));
+    }
 
     /**
      * Pointcut för alla controller-metoder
@@ -59,72 +77,76 @@ public class AuditLoggingAspect {
     public void syncOperations() {}
 
     /**
-     * Audit logging för alla controller-anrop
+     * Audit logging för alla controller-anrop, läsande anrop enligt samplingsgraden
      */
     @Around("controllerMethods()")
     public Object logControllerAccess(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+        HttpServletRequest request = currentRequest();
+        Object target = joinPoint.getTarget();
+        boolean sampled = target instanceof AdminController || !isRead(request) || sample();
         String methodName = joinPoint.getSignature().getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        String username = getCurrentUsername();
-        String clientIp = getClientIp();
-        String userAgent = getUserAgent();
+        String className = target.getClass().getSimpleName();
+        String username = null;
+        String clientIp = null;
 
-        // Logga start av operation
-        auditLogger.info("CONTROLLER_ACCESS_START | User: {} | IP: {} | Class: {} | Method: {} | UserAgent: {} | Timestamp: {}",
-            username, clientIp, className, methodName, userAgent, LocalDateTime.now().format(formatter));
+        if (sampled) {
+            username = getCurrentUsername();
+            clientIp = getClientIp(request);
+            // Logga start av operation
+            publish(AuditEvent.Type.CONTROLLER_ACCESS_START, username, clientIp, className, methodName,
+                    getUserAgent(request), 0, null, false);
+        }
 
         try {
             Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Logga framgångsrik operation
-            auditLogger.info("CONTROLLER_ACCESS_SUCCESS | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}",
-                username, clientIp, className, methodName, duration, LocalDateTime.now().format(formatter));
-            
+
+            if (sampled) {
+                // Logga framgångsrik operation
+                publish(AuditEvent.Type.CONTROLLER_ACCESS_SUCCESS, username, clientIp, className, methodName,
+                        null, elapsedMillis(startTime), null, false);
+            }
+
             return result;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Logga misslyckad operation
-            auditLogger.error("CONTROLLER_ACCESS_FAILURE | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}",
-                username, clientIp, className, methodName, duration, e.getMessage(), LocalDateTime.now().format(formatter));
-            
+            // Logga misslyckad operation, även när anropet inte samplades
+            publish(AuditEvent.Type.CONTROLLER_ACCESS_FAILURE,
+                    username != null ? username : getCurrentUsername(),
+                    clientIp != null ? clientIp : getClientIp(request),
+                    className, methodName, null, elapsedMillis(startTime), e.getMessage(), false);
+
             throw e;
         }
     }
 
     /**
-     * Detaljerad audit logging för admin-operationer
+     * Detaljerad audit logging för admin-operationer. Samplas aldrig och kastas aldrig när
+     * bufferten är full.
      */
     @Around("adminOperations()")
     public Object logAdminOperations(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         String methodName = joinPoint.getSignature().getName();
         String username = getCurrentUsername();
-        String clientIp = getClientIp();
-        Object[] args = joinPoint.getArgs();
+        String clientIp = getClientIp(currentRequest());
 
-        // Logga admin-operation med detaljer
-        securityLogger.info("ADMIN_OPERATION_START | User: {} | IP: {} | Method: {} | Args: {} | Timestamp: {}",
-            username, clientIp, methodName, Arrays.toString(args), LocalDateTime.now().format(formatter));
+        // Logga admin-operation med detaljer. Argumenten formateras här eftersom de kan ändras efter anropet.
+        publish(AuditEvent.Type.ADMIN_OPERATION_START, username, clientIp, null, methodName,
+                null, 0, Arrays.toString(joinPoint.getArgs()), true);
 
         try {
             Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-            
+
             // Logga framgångsrik admin-operation
-            securityLogger.info("ADMIN_OPERATION_SUCCESS | User: {} | IP: {} | Method: {} | Duration: {}ms | Result: {} | Timestamp: {}",
-                username, clientIp, methodName, duration, result, LocalDateTime.now().format(formatter));
-            
+            publish(AuditEvent.Type.ADMIN_OPERATION_SUCCESS, username, clientIp, null, methodName,
+                    null, elapsedMillis(startTime), String.valueOf(result), true);
+
             return result;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            
             // Logga misslyckad admin-operation
-            securityLogger.error("ADMIN_OPERATION_FAILURE | User: {} | IP: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}",
-                username, clientIp, methodName, duration, e.getMessage(), LocalDateTime.now().format(formatter));
-            
+            publish(AuditEvent.Type.ADMIN_OPERATION_FAILURE, username, clientIp, null, methodName,
+                    null, elapsedMillis(startTime), e.getMessage(), true);
+
             throw e;
         }
     }
@@ -134,71 +156,96 @@ public class AuditLoggingAspect {
      */
     @Around("syncOperations()")
     public Object logSyncOperations(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
         String username = getCurrentUsername();
-        String clientIp = getClientIp();
+        String clientIp = getClientIp(currentRequest());
 
         // Logga start av synkronisering
-        auditLogger.info("SYNC_OPERATION_START | User: {} | IP: {} | Class: {} | Method: {} | Timestamp: {}",
-            username, clientIp, className, methodName, LocalDateTime.now().format(formatter));
+        publish(AuditEvent.Type.SYNC_OPERATION_START, username, clientIp, className, methodName,
+                null, 0, null, false);
 
         try {
             Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-            
+
             // Logga framgångsrik synkronisering
-            auditLogger.info("SYNC_OPERATION_SUCCESS | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}",
-                username, clientIp, className, methodName, duration, LocalDateTime.now().format(formatter));
-            
+            publish(AuditEvent.Type.SYNC_OPERATION_SUCCESS, username, clientIp, className, methodName,
+                    null, elapsedMillis(startTime), null, false);
+
             return result;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            
             // Logga misslyckad synkronisering
-            auditLogger.error("SYNC_OPERATION_FAILURE | User: {} | IP: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}",
-                username, clientIp, className, methodName, duration, e.getMessage(), LocalDateTime.now().format(formatter));
-            
+            publish(AuditEvent.Type.SYNC_OPERATION_FAILURE, username, clientIp, className, methodName,
+                    null, elapsedMillis(startTime), e.getMessage(), false);
+
             throw e;
         }
     }
 
     /**
-     * Audit logging för databasoperationer
+     * Audit logging för databasoperationer. Start och lyckade anrop loggas på DEBUG, så
+     * argumenten formateras bara när den nivån är påslagen.
      */
     @Around("repositoryMethods()")
     public Object logDatabaseOperations(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+        boolean debug = auditLogger.isDebugEnabled();
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
-        String username = getCurrentUsername();
-        Object[] args = joinPoint.getArgs();
+        String username = null;
 
-        // Logga start av databasoperation
-        auditLogger.debug("DATABASE_OPERATION_START | User: {} | Class: {} | Method: {} | Args: {} | Timestamp: {}",
-            username, className, methodName, Arrays.toString(args), LocalDateTime.now().format(formatter));
+        if (debug) {
+            username = getCurrentUsername();
+            // Logga start av databasoperation. Entiteter formateras här medan sessionen är öppen.
+            publish(AuditEvent.Type.DATABASE_OPERATION_START, username, null, className, methodName,
+                    null, 0, Arrays.toString(joinPoint.getArgs()), false);
+        }
 
         try {
             Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Logga framgångsrik databasoperation
-            auditLogger.debug("DATABASE_OPERATION_SUCCESS | User: {} | Class: {} | Method: {} | Duration: {}ms | Timestamp: {}",
-                username, className, methodName, duration, LocalDateTime.now().format(formatter));
-            
+
+            if (debug) {
+                // Logga framgångsrik databasoperation
+                publish(AuditEvent.Type.DATABASE_OPERATION_SUCCESS, username, null, className, methodName,
+                        null, elapsedMillis(startTime), null, false);
+            }
+
             return result;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            
             // Logga misslyckad databasoperation
-            auditLogger.error("DATABASE_OPERATION_FAILURE | User: {} | Class: {} | Method: {} | Duration: {}ms | Error: {} | Timestamp: {}",
-                username, className, methodName, duration, e.getMessage(), LocalDateTime.now().format(formatter));
-            
+            publish(AuditEvent.Type.DATABASE_OPERATION_FAILURE, username != null ? username : getCurrentUsername(),
+                    null, className, methodName, null, elapsedMillis(startTime), e.getMessage(), false);
+
             throw e;
         }
     }
 
+    private void publish(AuditEvent.Type type, String username, String clientIp, String className, String methodName,
+                         String userAgent, long durationMs, String detail, boolean required) {
+        auditEventWriter.publish(new AuditEvent(type, System.currentTimeMillis(), username, clientIp, className,
+                methodName, userAgent, durationMs, detail, required));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Om ett läsande anrop ska loggas
+     */
+    private boolean sample() {
+        return readSampleRate >= 1.0 || (readSampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < readSampleRate);
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        if (request == null) {
+            return false;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
     /**
      * Hämta aktuell användarnamn
      */
@@ -211,43 +258,51 @@ public class AuditLoggingAspect {
         } catch (Exception e) {
             // Ignorera fel vid hämtning av användarnamn
         }
-        return "ANONYMOUS";
+        return ANONYMOUS;
+    }
+
+    /**
+     * Hämta aktuell HTTP-request, null utanför en förfrågan
+     */
+    private HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest();
+        }
+        return null;
     }
 
     /**
      * Hämta klientens IP-adress
      */
-    private String getClientIp() {
+    private String getClientIp(HttpServletRequest request) {
         try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
+            if (request != null) {
                 String xForwardedFor = request.getHeader("X-Forwarded-For");
                 if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-                    return xForwardedFor.split(",")[0].trim();
+                    int comma = xForwardedFor.indexOf(',');
+                    return (comma >= 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
                 }
                 return request.getRemoteAddr();
             }
         } catch (Exception e) {
             // Ignorera fel vid hämtning av IP-adress
         }
-        return "UNKNOWN";
+        return UNKNOWN;
     }
 
     /**
      * Hämta User-Agent header
      */
-    private String getUserAgent() {
+    private String getUserAgent(HttpServletRequest request) {
         try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
+            if (request != null) {
                 String userAgent = request.getHeader("User-Agent");
-                return userAgent != null ? userAgent : "UNKNOWN";
+                return userAgent != null ? userAgent : UNKNOWN;
             }
         } catch (Exception e) {
             // Ignorera fel vid hämtning av User-Agent
         }
-        return "UNKNOWN";
+        return UNKNOWN;
     }
 }
@@ -0,0 +1,246 @@
+package se.stegroo.backend.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Gemensam policy för alla anrop mot Arbetsförmedlingens API:er.
+ * <ul>
+ *     <li>Begränsar antal samtidiga anrop per värd. Tillståndet släpps först när svaret stängs,
+ *     så ett strömmande svar räknas tills det är färdigläst.</li>
+ *     <li>Ber om gzip eller deflate och packar upp svaret medan det läses, så att
+ *     JSON-parsern läser direkt från den avkodade strömmen.</li>
+ *     <li>Mäter tid till svarshuvuden, räknar fel och bytes före och efter avkodning.</li>
+ * </ul>
+ */
+public class AfHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int maxConcurrentPerHost;
+    private final Duration acquireTimeout;
+    private final MetricsConfig metricsConfig;
+
+    private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
+
+    public AfHttpInterceptor(int maxConcurrentPerHost, Duration acquireTimeout, MetricsConfig metricsConfig) {
+        this.maxConcurrentPerHost = Math.max(1, maxConcurrentPerHost);
+        this.acquireTimeout = acquireTimeout;
+        this.metricsConfig = metricsConfig;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost() != null ? request.getURI().getHost() : "";
+        Semaphore permits = permitsByHost.computeIfAbsent(host, key -> new Semaphore(maxConcurrentPerHost, true));
+        acquire(permits, host);
+
+        if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP + ", " + DEFLATE);
+        }
+
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            recordError();
+            throw e;
+        }
+        recordCall(start);
+        if (response.getStatusCode().isError()) {
+            recordError();
+        }
+        return new AfResponse(response, permits);
+    }
+
+    /**
+     * Antal lediga tillstånd för värden, för övervakning och tester
+     */
+    public int availablePermits(String host) {
+        Semaphore permits = permitsByHost.get(host);
+        return permits != null ? permits.availablePermits() : maxConcurrentPerHost;
+    }
+
+    private void acquire(Semaphore permits, String host) throws IOException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Inget ledigt anrop mot " + host + " inom " + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Avbruten i väntan på anrop mot " + host, e);
+        }
+    }
+
+    private void recordCall(long startNanos) {
+        if (metricsConfig != null) {
+            metricsConfig.recordExternalApiCall(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private void recordError() {
+        if (metricsConfig != null) {
+            metricsConfig.recordExternalApiError();
+        }
+    }
+
+    /**
+     * Svar som släpper värdens tillstånd när det stängs och avkodar gzip- eller deflate-kodad
+     * body medan den läses. Bytes räknas både på nätverkssidan och efter avkodning.
+     */
+    private final class AfResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final String encoding;
+        private final HttpHeaders headers;
+        private CountingInputStream wire;
+        private CountingInputStream decoded;
+        private Inflater inflater;
+
+        AfResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+            this.encoding = supportedEncoding(delegate.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            if (encoding != null) {
+                // Längd och kodning gäller den komprimerade bodyn, inte den som läses
+                HttpHeaders decodedHeaders = new HttpHeaders();
+                decodedHeaders.putAll(delegate.getHeaders());
+                decodedHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+                decodedHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+                this.headers = HttpHeaders.readOnlyHttpHeaders(decodedHeaders);
+            } else {
+                this.headers = delegate.getHeaders();
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (decoded == null) {
+                wire = new CountingInputStream(delegate.getBody());
+                decoded = encoding != null ? new CountingInputStream(decode(wire)) : wire;
+            }
+            return decoded;
+        }
+
+        private InputStream decode(InputStream in) throws IOException {
+            if (GZIP.equals(encoding)) {
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            // "deflate" ska vara zlib-inramad men vissa servrar skickar rå deflate
+            PushbackInputStream pushback = new PushbackInputStream(in, 2);
+            byte[] header = new byte[2];
+            int read = pushback.readNBytes(header, 0, 2);
+            pushback.unread(header, 0, read);
+            boolean zlib = read == 2 && (header[0] & 0x0F) == 8
+                    && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return new InflaterInputStream(pushback, inflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    permits.release();
+                    if (inflater != null) {
+                        inflater.end();
+                    }
+                    if (metricsConfig != null && decoded != null) {
+                        metricsConfig.recordExternalApiBytes(wire.count, decoded.count);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String supportedEncoding(String contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        String normalized = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (GZIP.equals(normalized) || "x-gzip".equals(normalized)) {
+            return GZIP;
+        }
+        return DEFLATE.equals(normalized) ? DEFLATE : null;
+    }
+
+    /**
+     * Räknar lästa bytes utan att buffra
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
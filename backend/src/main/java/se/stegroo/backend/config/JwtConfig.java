@@ -20,13 +20,16 @@ public class JwtConfig {
     @Value("${supabase.jwt.issuer}")
     private String jwtIssuer;
 
+    @Value("${stegroo.security.jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
     /**
      * Skapar en JwtTokenValidator när JWT är aktiverat.
      */
     @Bean
     @ConditionalOnProperty(name = "stegroo.security.jwt.enabled", havingValue = "true")
-    public JwtTokenValidator jwtTokenValidator() {
-        return new JwtTokenValidator(jwtSecret, jwtIssuer);
+    public JwtTokenValidator jwtTokenValidator(MetricsConfig metricsConfig) {
+        return new JwtTokenValidator(jwtSecret, jwtIssuer, cacheMaxEntries, metricsConfig);
     }
 
     /**
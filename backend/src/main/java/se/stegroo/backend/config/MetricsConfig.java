@@ -3,6 +3,7 @@ package se.stegroo.backend.config;
 import io.micrometer.core.aop.TimedAspect;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
@@ -10,11 +11,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
-import org.springframework.scheduling.annotation.Scheduled;
-import se.stegroo.backend.repository.JobListingRepository;
-import se.stegroo.backend.repository.JobCategoryRepository;
-import se.stegroo.backend.repository.SkillRepository;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -24,10 +22,10 @@ import java.util.concurrent.atomic.AtomicLong;
 @EnableAspectJAutoProxy
 public class MetricsConfig {
 
+    public static final String SYNC_SNAPSHOT = "snapshot";
+    public static final String SYNC_INCREMENTAL = "incremental";
+
     private final MeterRegistry meterRegistry;
-    private final JobListingRepository jobListingRepository;
-    private final JobCategoryRepository jobCategoryRepository;
-    private final SkillRepository skillRepository;
 
     // Custom metrics
     private final AtomicLong lastSyncTimestamp = new AtomicLong(0);
@@ -35,15 +33,14 @@ public class MetricsConfig {
     private final AtomicLong failedSyncs = new AtomicLong(0);
     private final AtomicLong successfulSyncs = new AtomicLong(0);
 
+    // Antal rader per tabell, uppdateras i bakgrunden av MetricsSnapshotService. NaN tills första uppdateringen.
+    private volatile double jobCount = Double.NaN;
+    private volatile double categoryCount = Double.NaN;
+    private volatile double skillCount = Double.NaN;
+
     @Autowired
-    public MetricsConfig(MeterRegistry meterRegistry,
-                        JobListingRepository jobListingRepository,
-                        JobCategoryRepository jobCategoryRepository,
-                        SkillRepository skillRepository) {
+    public MetricsConfig(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
-        this.jobListingRepository = jobListingRepository;
-        this.jobCategoryRepository = jobCategoryRepository;
-        this.skillRepository = skillRepository;
         initializeMetrics();
     }
 
@@ -115,17 +112,76 @@ public class MetricsConfig {
                 .description("Number of errors from Arbetsförmedlingen API")
                 .register(meterRegistry);
 
+        Counter.builder("stegroo.external.af.bytes.wire")
+                .description("Response bytes received from Arbetsförmedlingen API as sent on the wire")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        Counter.builder("stegroo.external.af.bytes.decoded")
+                .description("Response bytes from Arbetsförmedlingen API after content decoding")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        // Sökcache
+        Counter.builder("stegroo.search.cache.hits")
+                .description("Number of job searches served from the result cache")
+                .register(meterRegistry);
+
+        Counter.builder("stegroo.search.cache.misses")
+                .description("Number of job searches not found in the result cache")
+                .register(meterRegistry);
+
+        // JWT-valideringscache
+        Counter.builder("stegroo.security.jwt.cache.hits")
+                .description("Number of JWT validations served from the validation cache")
+                .register(meterRegistry);
+
+        Counter.builder("stegroo.security.jwt.cache.misses")
+                .description("Number of JWT validations that required signature verification")
+                .register(meterRegistry);
+
+        Counter.builder("stegroo.security.jwt.cache.evictions")
+                .description("Number of cached JWT validations evicted before expiry because the cache was full")
+                .register(meterRegistry);
+
+        // Utgångna och borttagna annonser
+        Counter.builder("stegroo.jobs.expired")
+                .description("Number of job listings marked EXPIRED after their application deadline")
+                .register(meterRegistry);
+
+        Counter.builder("stegroo.jobs.removed")
+                .description("Number of job listings marked REMOVED from removal events in the AF stream")
+                .register(meterRegistry);
+
+        Timer.builder("stegroo.jobs.expiration.duration")
+                .description("Duration of the scheduled job expiration run")
+                .register(meterRegistry);
+
+        // Audit-loggning
+        Counter.builder("stegroo.audit.dropped")
+                .description("Number of sampled audit events dropped because the audit buffer was full")
+                .register(meterRegistry);
+
+        // Virtuella trådar
+        Counter.builder("stegroo.threads.virtual.pinned")
+                .description("Number of times a virtual thread was pinned to its carrier thread while blocking")
+                .register(meterRegistry);
+
+        Timer.builder("stegroo.threads.virtual.pinned.duration")
+                .description("Time virtual threads spent pinned to their carrier thread")
+                .register(meterRegistry);
+
         // System-relaterade metrics
         Gauge.builder("stegroo.system.jobs.total", this, MetricsConfig::getJobCount)
-                .description("Total number of jobs in database")
+                .description("Total number of jobs in database (estimate, refreshed in the background)")
                 .register(meterRegistry);
 
         Gauge.builder("stegroo.system.categories.total", this, MetricsConfig::getCategoryCount)
-                .description("Total number of job categories in database")
+                .description("Total number of job categories in database (refreshed in the background)")
                 .register(meterRegistry);
 
         Gauge.builder("stegroo.system.skills.total", this, MetricsConfig::getSkillCount)
-                .description("Total number of skills in database")
+                .description("Total number of skills in database (refreshed in the background)")
                 .register(meterRegistry);
 
         Gauge.builder("stegroo.system.last.sync.timestamp", lastSyncTimestamp, AtomicLong::get)
@@ -153,6 +209,7 @@ public class MetricsConfig {
      * Hjälpmetoder för att uppdatera metrics
      */
     public void recordJobSyncSuccess(long durationMs) {
+        meterRegistry.counter("stegroo.jobs.sync.total").increment();
         meterRegistry.counter("stegroo.jobs.sync.successful").increment();
         meterRegistry.timer("stegroo.jobs.sync.duration").record(java.time.Duration.ofMillis(durationMs));
         successfulSyncs.incrementAndGet();
@@ -161,6 +218,7 @@ public class MetricsConfig {
     }
 
     public void recordJobSyncFailure() {
+        meterRegistry.counter("stegroo.jobs.sync.total").increment();
         meterRegistry.counter("stegroo.jobs.sync.failed").increment();
         failedSyncs.incrementAndGet();
     }
@@ -186,38 +244,167 @@ public class MetricsConfig {
 
     public void recordExternalApiCall(long durationMs) {
         meterRegistry.counter("stegroo.external.af.api.calls").increment();
-        meterRegistry.timer("stegroo.external.af.api.response.time").record(java.time.Duration.ofMillis(durationMs));
+        Timer.builder("stegroo.external.af.api.response.time")
+                .description("Time until AF responds with headers")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(java.time.Duration.ofMillis(durationMs));
     }
 
     public void recordExternalApiError() {
         meterRegistry.counter("stegroo.external.af.api.errors").increment();
     }
 
+    /**
+     * Registrerar överförda bytes för ett AF-svar, före och efter gzip/deflate-avkodning
+     */
+    public void recordExternalApiBytes(long wireBytes, long decodedBytes) {
+        meterRegistry.counter("stegroo.external.af.bytes.wire").increment(wireBytes);
+        meterRegistry.counter("stegroo.external.af.bytes.decoded").increment(decodedBytes);
+        responseSize("wire").record(wireBytes);
+        responseSize("decoded").record(decodedBytes);
+    }
+
+    private DistributionSummary responseSize(String encoding) {
+        return DistributionSummary.builder("stegroo.external.af.response.size")
+                .description("Size of each AF response body, e.g. one snapshot chunk")
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tid i ett steg av en synk. Synkens mätare publiceras som percentilhistogram så att
+     * p50/p95/p99 kan jämföras mellan stegen och det steg som begränsar takten syns.
+     * <p>
+     * Steg i snapshot-pipelinen: {@code rate-limit} (väntan på token),
+     * {@code fetch} (hämtning och strömmande parsning av en chunk, exklusive väntan på full kö),
+     * {@code convert}, {@code write} (upsert av en batch inklusive flush) och {@code commit}.
+     * Den inkrementella synken har {@code fetch} och {@code write} för hela körningen.
+     *
+     * @param sync {@link #SYNC_SNAPSHOT} eller {@link #SYNC_INCREMENTAL}
+     */
+    public void recordSyncStage(String sync, String stage, long durationNanos) {
+        Timer.builder("stegroo.sync.stage.duration")
+                .description("Time spent in each stage of a job sync")
+                .tag("sync", sync)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tid som ett steg väntade på kön mellan hämtning och persistens under en chunk.
+     * {@code producer}: hämtningen blockerades av full kö (persistensen är flaskhalsen).
+     * {@code consumer}: persistensen väntade på data (hämtningen är flaskhalsen).
+     */
+    public void recordSyncQueueWait(String side, long durationNanos) {
+        Timer.builder("stegroo.sync.queue.wait")
+                .description("Time a pipeline stage spent blocked on the queue between fetch and persistence, per chunk")
+                .tag("side", side)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Antal batchar i chunkens kö direkt efter att hämtningen lagt till en
+     */
+    public void recordSyncQueueDepth(int depth) {
+        DistributionSummary.builder("stegroo.sync.queue.depth")
+                .description("Batches waiting between fetch and persistence when a batch is enqueued")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(depth);
+    }
+
+    /**
+     * Registrerar en färdig chunk: skrivna rader och takten från första batch till commit
+     */
+    public void recordSyncChunk(String sync, int rows, long durationNanos) {
+        meterRegistry.counter("stegroo.sync.rows", "sync", sync).increment(rows);
+        if (durationNanos > 0) {
+            DistributionSummary.builder("stegroo.sync.chunk.throughput")
+                    .description("Rows written per second for each chunk")
+                    .baseUnit("rows/s")
+                    .tag("sync", sync)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(rows * 1_000_000_000.0 / durationNanos);
+        }
+    }
+
+    public void recordSearchCacheHit() {
+        meterRegistry.counter("stegroo.search.cache.hits").increment();
+    }
+
+    public void recordSearchCacheMiss() {
+        meterRegistry.counter("stegroo.search.cache.misses").increment();
+    }
+
+    public void recordJwtCacheHit() {
+        meterRegistry.counter("stegroo.security.jwt.cache.hits").increment();
+    }
+
+    public void recordJwtCacheMiss() {
+        meterRegistry.counter("stegroo.security.jwt.cache.misses").increment();
+    }
+
+    public void recordJwtCacheEviction() {
+        meterRegistry.counter("stegroo.security.jwt.cache.evictions").increment();
+    }
+
+    /**
+     * Registrerar en körning av utgångsjobbet och hur många annonser den markerade
+     */
+    public void recordJobsExpired(long count, long durationMs) {
+        meterRegistry.counter("stegroo.jobs.expired").increment(count);
+        meterRegistry.timer("stegroo.jobs.expiration.duration").record(java.time.Duration.ofMillis(durationMs));
+    }
+
+    public void recordJobsRemoved(long count) {
+        meterRegistry.counter("stegroo.jobs.removed").increment(count);
+    }
+
+    /**
+     * Registrerar att en virtuell tråd blockerade medan den var fastlåst vid sin bärartråd
+     */
+    public void recordVirtualThreadPinned(java.time.Duration duration) {
+        meterRegistry.counter("stegroo.threads.virtual.pinned").increment();
+        meterRegistry.timer("stegroo.threads.virtual.pinned.duration").record(duration);
+    }
+
+    /**
+     * Registrerar en audit-händelse som kastades för att audit-bufferten var full
+     */
+    public void recordAuditEventDropped() {
+        meterRegistry.counter("stegroo.audit.dropped").increment();
+    }
+
+    /**
+     * Sätter antal rader för gauges. Anropas av MetricsSnapshotService; en scrape läser bara värdet.
+     */
+    public void updateTableCounts(long jobs, long categories, long skills) {
+        jobCount = jobs;
+        categoryCount = categories;
+        skillCount = skills;
+    }
+
     /**
      * Hjälpmetoder för gauge metrics
      */
     private double getJobCount() {
-        try {
-            return (double) jobListingRepository.count();
-        } catch (Exception e) {
-            return -1.0;
-        }
+        return jobCount;
     }
 
     private double getCategoryCount() {
-        try {
-            return (double) jobCategoryRepository.count();
-        } catch (Exception e) {
-            return -1.0;
-        }
+        return categoryCount;
     }
 
     private double getSkillCount() {
-        try {
-            return (double) skillRepository.count();
-        } catch (Exception e) {
-            return -1.0;
-        }
+        return skillCount;
     }
 
     private double getSyncSuccessRate() {
@@ -225,15 +412,4 @@ public class MetricsConfig {
         if (total == 0) return 0.0;
         return (double) successfulSyncs.get() / total;
     }
-
-    /**
-     * Schemalagd uppdatering av metrics var 5:e minut
-     */
-    @Scheduled(fixedRate = 300000) // 5 minutes
-    public void updateMetrics() {
-        // Uppdatera gauge metrics
-        meterRegistry.get("stegroo.system.jobs.total").gauge();
-        meterRegistry.get("stegroo.system.categories.total").gauge();
-        meterRegistry.get("stegroo.system.skills.total").gauge();
-    }
 }
@@ -0,0 +1,44 @@
+package se.stegroo.backend.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registrerar fulltextfunktioner för Criteria/JPQL på PostgreSQL.
+ * <p>
+ * Kolumnen search_vector genereras av databasen (se db/migration/postgresql) och mappas inte
+ * i {@link se.stegroo.backend.model.JobListing}, eftersom den saknas i H2. Funktionerna tar
+ * därför annonsens id och slår upp vektorn via job_listings:
+ * <ul>
+ *   <li>{@code fts_match(id, tsquery)} - semi-join mot GIN-indexet</li>
+ *   <li>{@code fts_rank(id, tsquery)} - ts_rank för sortering på relevans</li>
+ * </ul>
+ * Andra databaser får inga funktioner och söker med LIKE istället.
+ */
+public class PostgresFullTextFunctionContributor implements FunctionContributor {
+
+    public static final String MATCH_FUNCTION = "fts_match";
+    public static final String RANK_FUNCTION = "fts_rank";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                MATCH_FUNCTION,
+                "(?1 in (select fts.id from job_listings fts where fts.search_vector @@ to_tsquery('swedish', ?2)))",
+                types.resolve(StandardBasicTypes.BOOLEAN));
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                RANK_FUNCTION,
+                "(select ts_rank(fts.search_vector, to_tsquery('swedish', ?2)) from job_listings fts where fts.id = ?1)",
+                types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
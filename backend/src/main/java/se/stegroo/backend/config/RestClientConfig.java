@@ -1,11 +1,14 @@
 package se.stegroo.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
 import java.time.Duration;
 
 /**
@@ -15,9 +18,17 @@ import java.time.Duration;
 public class RestClientConfig {
     
     private final RetryConfig retryConfig;
+    private final MetricsConfig metricsConfig;
     
-    public RestClientConfig(RetryConfig retryConfig) {
+    @Value("${af.http.max-concurrent-per-host:4}")
+    private int maxConcurrentPerHost;
+    
+    @Value("${af.http.http2:true}")
+    private boolean http2;
+    
+    public RestClientConfig(RetryConfig retryConfig, MetricsConfig metricsConfig) {
         this.retryConfig = retryConfig;
+        this.metricsConfig = metricsConfig;
     }
     
     /**
@@ -32,25 +43,45 @@ public class RestClientConfig {
     }
     
     /**
-     * Skapar en RestClient med anpassade timeouts
+     * Delad HTTP-klient för Arbetsförmedlingens API:er. JDK-klienten håller en pool med
+     * keep-alive-anslutningar per värd och förhandlar HTTP/2 via ALPN när servern stödjer det.
+     * Poolens storlek och tomgångstid styrs av {@code jdk.httpclient.connectionPoolSize}
+     * och {@code jdk.httpclient.keepalive.timeout}.
      */
     @Bean
-    public RestClient restClient() {
+    public HttpClient afHttpClient() {
+        return HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(retryConfig.getApiRetry().getConnectionTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+    
+    /**
+     * RestClient som alla AF-tjänster delar. Anropen går genom {@link AfHttpInterceptor}
+     * som begränsar samtidiga anrop per värd, förhandlar gzip och mäter svarstider.
+     */
+    @Bean
+    public RestClient restClient(HttpClient afHttpClient) {
         return RestClient.builder()
-                .requestFactory(requestFactory())
+                .requestFactory(requestFactory(afHttpClient))
+                .requestInterceptor(afHttpInterceptor())
                 .build();
     }
     
+    @Bean
+    public AfHttpInterceptor afHttpInterceptor() {
+        return new AfHttpInterceptor(maxConcurrentPerHost,
+                Duration.ofMillis(retryConfig.getApiRetry().getReadTimeoutMs()), metricsConfig);
+    }
+    
     /**
-     * Skapar en anpassad RequestFactory med timeouts
+     * Skapar en RequestFactory ovanpå den delade klienten. Svaren läses som ström
+     * och buffras inte i fabriken.
      */
-    private org.springframework.http.client.SimpleClientHttpRequestFactory requestFactory() {
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory = 
-            new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        
-        factory.setConnectTimeout((int) retryConfig.getApiRetry().getConnectionTimeoutMs());
-        factory.setReadTimeout((int) retryConfig.getApiRetry().getReadTimeoutMs());
-        
+    private JdkClientHttpRequestFactory requestFactory(HttpClient httpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(retryConfig.getApiRetry().getReadTimeoutMs()));
         return factory;
     }
 }
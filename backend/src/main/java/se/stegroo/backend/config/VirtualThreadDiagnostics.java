@@ -0,0 +1,122 @@
+package se.stegroo.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Diagnostik för körläget med virtuella trådar ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * Läget är opt-in och kräver Java 21 i runtime. Spring Boot kör då Tomcats förfrågningar,
+ * schemalagda synkar och {@code applicationTaskExecutor} på virtuella trådar; på äldre JVM:er
+ * används plattformstrådar som vanligt och en varning loggas.
+ * <p>
+ * När läget är aktivt lyssnar komponenten på JFR-händelsen {@code jdk.VirtualThreadPinned}.
+ * En virtuell tråd som blockerar inuti {@code synchronized} eller native-kod låser sin bärartråd,
+ * vilket äter upp fördelen med virtuella trådar. Varje sådan händelse över tröskeln räknas i
+ * {@code stegroo.threads.virtual.pinned} och loggas med översta ramen i vår egen kod.
+ */
+@Component
+public class VirtualThreadDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "se.stegroo.";
+
+    private final boolean enabled;
+    private final Duration pinnedThreshold;
+    private final MetricsConfig metricsConfig;
+
+    private RecordingStream pinnedEvents;
+
+    public VirtualThreadDiagnostics(
+            @Value("${spring.threads.virtual.enabled:false}") boolean enabled,
+            @Value("${stegroo.virtual-threads.pinned-threshold-ms:20}") long pinnedThresholdMs,
+            MetricsConfig metricsConfig) {
+        this.enabled = enabled;
+        this.pinnedThreshold = Duration.ofMillis(pinnedThresholdMs);
+        this.metricsConfig = metricsConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Virtuella trådar avstängda, kör med plattformstrådar");
+            return;
+        }
+        if (!isSupported()) {
+            log.warn("spring.threads.virtual.enabled är satt men Java {} saknar virtuella trådar, kör med plattformstrådar",
+                    Runtime.version().feature());
+            return;
+        }
+
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            pinnedEvents = stream;
+            log.info("Virtuella trådar aktiva, loggar fastlåsning längre än {} ms", pinnedThreshold.toMillis());
+        } catch (RuntimeException e) {
+            // Diagnostiken får aldrig stoppa uppstarten, t.ex. om JFR är avstängt i JVM:en
+            log.warn("Kunde inte starta diagnostik för virtuella trådar: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Om körläget med virtuella trådar faktiskt används
+     */
+    public boolean isActive() {
+        return enabled && isSupported();
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        if (metricsConfig != null) {
+            metricsConfig.recordVirtualThreadPinned(duration);
+        }
+        log.warn("Virtuell tråd fastlåst i {} ms vid {}", duration.toMillis(), applicationFrame(event.getStackTrace()));
+    }
+
+    /**
+     * Översta ramen i applikationens kod, annars översta ramen
+     */
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "okänd plats";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return describe(frame);
+            }
+        }
+        return describe(stackTrace.getFrames().get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pinnedEvents != null) {
+            pinnedEvents.close();
+            pinnedEvents = null;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.model.Skill;
 import se.stegroo.backend.service.JobSyncService;
+import se.stegroo.backend.service.SnapshotIncrementalService;
 import se.stegroo.backend.service.TaxonomiService;
 import se.stegroo.backend.repository.JobCategoryRepository;
 import se.stegroo.backend.repository.SkillRepository;
@@ -35,13 +36,16 @@ public class AdminController {
     private final TaxonomiService taxonomiService;
     private final JobCategoryRepository jobCategoryRepository;
     private final SkillRepository skillRepository;
+    private final SnapshotIncrementalService snapshotIncrementalService;
     
     @Autowired
-    public AdminController(JobSyncService jobSyncService, TaxonomiService taxonomiService, JobCategoryRepository jobCategoryRepository, SkillRepository skillRepository) {
+    public AdminController(JobSyncService jobSyncService, TaxonomiService taxonomiService, JobCategoryRepository jobCategoryRepository, SkillRepository skillRepository,
+                           SnapshotIncrementalService snapshotIncrementalService) {
         this.jobSyncService = jobSyncService;
         this.taxonomiService = taxonomiService;
         this.jobCategoryRepository = jobCategoryRepository;
         this.skillRepository = skillRepository;
+        this.snapshotIncrementalService = snapshotIncrementalService;
     }
     
     /**
@@ -213,6 +217,41 @@ public class AdminController {
         }
     }
 
+    /**
+     * Starta snapshot-synkronisering, från checkpoint eller en angiven offset
+     */
+    @PostMapping("/sync-snapshot")
+    @Operation(summary = "Starta snapshot-synkronisering",
+            description = "Startar snapshot-synkronisering i bakgrunden. Utan offset återupptas en avbruten körning från senast färdiga chunk. "
+                    + "Med bulk=true skrivs chunkarna med COPY via en stagingtabell, avsett för initial laddning av en tom miljö.")
+    public ResponseEntity<Map<String, Object>> syncSnapshot(@RequestParam(required = false) Long offset,
+                                                            @RequestParam(defaultValue = "false") boolean bulk) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (offset != null && offset < 0) {
+            response.put("success", false);
+            response.put("message", "Offset får inte vara negativ");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        log.info("Admin startar snapshot-synkronisering från offset {} (bulkimport: {})",
+                offset != null ? offset : "checkpoint", bulk);
+        
+        if (!snapshotIncrementalService.startSnapshotSync(offset, bulk)) {
+            response.put("success", false);
+            response.put("message", "Snapshot-synkronisering pågår redan");
+            return ResponseEntity.status(409).body(response);
+        }
+        
+        response.put("success", true);
+        response.put("message", "Snapshot-synkronisering startad");
+        response.put("offset", offset);
+        response.put("bulkImport", bulk);
+        response.put("timestamp", java.time.LocalDateTime.now().toString());
+        
+        return ResponseEntity.accepted().body(response);
+    }
+
     /**
      * Hämta synkroniseringsstatus för taxonomier
      */
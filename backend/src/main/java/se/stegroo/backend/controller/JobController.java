@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import se.stegroo.backend.dto.JobListingDTO;
 import se.stegroo.backend.dto.JobSearchRequest;
 import se.stegroo.backend.dto.JobSearchResponse;
+import se.stegroo.backend.dto.KeysetPage;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.model.Skill;
@@ -81,8 +82,8 @@ public class JobController {
             Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
             Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
             
-            Page<JobListing> jobPage = jobListingRepository.findAll(pageable);
-            Page<JobListingDTO> jobDTOPage = jobPage.map(this::convertToDTO);
+            // Projektion utan raw och utan lazy-laddning av kategori/kompetenser per rad
+            Page<JobListingDTO> jobDTOPage = jobSearchService.listJobs(pageable);
             
             log.info("Hämtade {} jobb från sida {}", jobDTOPage.getNumberOfElements(), page);
             return ResponseEntity.ok(jobDTOPage);
@@ -271,10 +272,7 @@ public class JobController {
             @Parameter(description = "Jobbstatus") @PathVariable JobListing.Status status) {
         
         try {
-            List<JobListing> jobs = jobListingRepository.findByStatus(status);
-            List<JobListingDTO> jobDTOs = jobs.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<JobListingDTO> jobDTOs = jobSearchService.listJobsByStatus(status);
             
             log.info("Hämtade {} jobb med status: {}", jobDTOs.size(), status);
             return ResponseEntity.ok(jobDTOs);
@@ -287,7 +285,7 @@ public class JobController {
     /**
      * Konverterar JobListing till DTO
      */
-    private JobListingDTO convertToDTO(JobListing job) {
+    JobListingDTO convertToDTO(JobListing job) {
         JobListingDTO.CategoryDTO categoryDTO = null;
         if (job.getCategory() != null) {
             categoryDTO = JobListingDTO.CategoryDTO.builder()
@@ -317,6 +315,7 @@ public class JobController {
                 .deadline(job.getDeadline())
                 .lastModified(job.getLastModified())
                 .createdAt(job.getCreatedAt() != null ? job.getCreatedAt() : job.getPublishedAt())
+                .updatedAt(job.getUpdatedAt())
                 .category(categoryDTO)
                 .skills(skillDTOs)
                 .build();
@@ -580,6 +579,40 @@ public class JobController {
         }
     }
 
+    /**
+     * Jobblistning med keyset-paginering. Nästa sida hämtas med nextCursor från föregående svar,
+     * varje sida kostar lika mycket oavsett hur djupt man bläddrar och inget totalantal räknas.
+     */
+    @GetMapping("/keyset")
+    @Operation(summary = "Jobb med keyset-paginering", description = "Hämtar aktiva jobb sida för sida med en opak cursor istället för sidnummer")
+    public ResponseEntity<KeysetPage<JobListingDTO>> getJobsKeyset(
+            @Parameter(description = "Sökterm") @RequestParam(required = false) String query,
+            @Parameter(description = "Plats") @RequestParam(required = false) String location,
+            @Parameter(description = "Kategori ID") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Anställningstyp") @RequestParam(required = false) String employmentType,
+            @Parameter(description = "Cursor från föregående sida") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Antal per sida") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Sortera efter (createdAt, updatedAt, title, id)") @RequestParam(defaultValue = "createdAt") String sortBy,
+            @Parameter(description = "Sorteringsriktning") @RequestParam(defaultValue = "desc") String sortDir) {
+        
+        try {
+            JobSearchRequest request = new JobSearchRequest(query, location, categoryId);
+            request.setEmploymentType(employmentType);
+            request.setCursor(cursor);
+            request.setSize(size);
+            request.setSortBy(sortBy);
+            request.setSortDirection(sortDir);
+            
+            return ResponseEntity.ok(jobSearchService.searchJobListingsKeyset(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ogiltig keyset-förfrågan: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Fel vid hämtning av jobb med keyset-paginering", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Enkel jobbsökning med query parameter (från databas)
      */
@@ -598,15 +631,12 @@ public class JobController {
         log.info("Enkel jobbsökning: query={}, location={}, categoryId={}", query, location, categoryId);
         
         try {
-            // Använd repository för enkel sökning
             Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
             Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
             
-            Page<JobListing> jobPage = jobListingRepository.search(
-                query, categoryId, location, null, employmentType, pageable
+            Page<JobListingDTO> jobDTOPage = jobSearchService.simpleSearch(
+                query, categoryId, location, employmentType, pageable
             );
-            
-            Page<JobListingDTO> jobDTOPage = jobPage.map(this::convertToDTO);
             return ResponseEntity.ok(jobDTOPage);
             
         } catch (Exception e) {
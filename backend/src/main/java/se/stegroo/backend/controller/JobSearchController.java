@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import se.stegroo.backend.dto.JobSearchFacets;
 import se.stegroo.backend.dto.JobSearchRequest;
 import se.stegroo.backend.dto.JobSearchResponse;
 import se.stegroo.backend.model.JobCategory;
@@ -27,6 +28,9 @@ public class JobSearchController {
 
     private static final Logger log = LoggerFactory.getLogger(JobSearchController.class);
 
+    private static final int POPULAR_CATEGORY_LIMIT = 5;
+    private static final int POPULAR_SKILL_LIMIT = 10;
+
     private final JobSearchService jobSearchService;
 
     @Autowired
@@ -72,6 +76,34 @@ public class JobSearchController {
         }
     }
 
+    @PostMapping("/keyset-search")
+    @Operation(summary = "Jobbsökning med keyset-paginering", description = "Som avancerad sökning men pagineras med cursor istället för sidnummer. Svaret saknar totalantal och innehåller nextCursor")
+    public ResponseEntity<JobSearchResponse> searchJobsKeyset(@RequestBody JobSearchRequest request) {
+        try {
+            return ResponseEntity.ok(jobSearchService.searchJobsKeyset(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ogiltig keyset-sökning: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Fel vid keyset-sökning", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/facets")
+    @Operation(summary = "Facetter för sökning", description = "Antal träffar per kategori, anställningstyp, arbetstid, plats och kompetens för samma filter som avancerad sökning")
+    public ResponseEntity<JobSearchFacets> getFacets(
+            @RequestBody JobSearchRequest request,
+            @Parameter(description = "Max antal värden för plats och kompetens") @RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            log.info("Beräknar facetter för kriterier: {}", request);
+            return ResponseEntity.ok(jobSearchService.getFacets(request, limit));
+        } catch (Exception e) {
+            log.error("Fel vid beräkning av facetter", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/by-skills")
     @Operation(summary = "Sök jobb baserat på kompetenser", description = "Hittar jobb som kräver specifika kompetenser")
     public ResponseEntity<List<JobListing>> findJobsBySkills(
@@ -183,29 +215,27 @@ public class JobSearchController {
     }
 
     @GetMapping("/filters")
-    @Operation(summary = "Tillgängliga filter", description = "Hämtar information om tillgängliga filter för jobbsökning")
-    public ResponseEntity<Map<String, Object>> getAvailableFilters() {
+    @Operation(summary = "Tillgängliga filter", description = "Facetter för angiven sökning med samma filter som avancerad sökning, angivna som query-parametrar. Populära kategorier och kompetenser tas ur facetterna")
+    public ResponseEntity<Map<String, Object>> getAvailableFilters(@ModelAttribute JobSearchRequest request) {
         try {
-            log.info("Hämtar tillgängliga filter");
-            
+            log.info("Hämtar tillgängliga filter för kriterier: {}", request);
+
+            // En aggregerad fråga för facetterna (plus en för kompetenser), inga separata stat-frågor
+            JobSearchFacets facets = jobSearchService.getFacets(request, JobSearchService.DEFAULT_FACET_LIMIT);
+
             Map<String, Object> filters = new HashMap<>();
-            
-            // Hämta statistik
-            JobSearchResponse.JobStats stats = jobSearchService.getJobStats();
-            filters.put("stats", stats);
-            
-            // Hämta populära kategorier
-            List<JobCategory> popularCategories = jobSearchService.getPopularCategories(5);
-            filters.put("popularCategories", popularCategories);
-            
-            // Hämta populära kompetenser
-            List<Skill> popularSkills = jobSearchService.getPopularSkills(10);
-            filters.put("popularSkills", popularSkills);
-            
+            filters.put("facets", facets);
+            filters.put("popularCategories", head(facets.getCategories(), POPULAR_CATEGORY_LIMIT));
+            filters.put("popularSkills", head(facets.getSkills(), POPULAR_SKILL_LIMIT));
+
             return ResponseEntity.ok(filters);
         } catch (Exception e) {
             log.error("Fel vid hämtning av tillgängliga filter", e);
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    private static List<JobSearchFacets.FacetValue> head(List<JobSearchFacets.FacetValue> values, int limit) {
+        return values.size() > limit ? values.subList(0, limit) : values;
+    }
 }
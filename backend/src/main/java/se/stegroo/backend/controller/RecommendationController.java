@@ -0,0 +1,203 @@
+package se.stegroo.backend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.model.JobListing;
+import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.UserProfileRepository;
+import se.stegroo.backend.service.SkillRecommendationIndex;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * REST-controller för jobbrekommendationer baserat på kompetenser.
+ */
+@RestController
+@RequestMapping("/api/recommendations")
+@Tag(name = "Recommendations", description = "API för jobbrekommendationer")
+public class RecommendationController {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationController.class);
+
+    private static final int MAX_LIMIT = 100;
+
+    private final SkillRecommendationIndex skillRecommendationIndex;
+    private final JobListingRepository jobListingRepository;
+    private final UserProfileRepository userProfileRepository;
+
+    public RecommendationController(
+            SkillRecommendationIndex skillRecommendationIndex,
+            JobListingRepository jobListingRepository,
+            UserProfileRepository userProfileRepository) {
+        this.skillRecommendationIndex = skillRecommendationIndex;
+        this.jobListingRepository = jobListingRepository;
+        this.userProfileRepository = userProfileRepository;
+    }
+
+    /**
+     * Hämtar aktiva jobb rangordnade efter hur väl de matchar kompetenserna.
+     * Utan skillIds används den inloggade användarens kompetenser från profilen.
+     */
+    @GetMapping
+    @Operation(summary = "Hämta jobbrekommendationer",
+            description = "Rangordnar aktiva jobb efter gemensamma kompetenser (overlap) eller Jaccard-likhet")
+    public ResponseEntity<List<RecommendationDTO>> getRecommendations(
+            @Parameter(description = "Kompetens-ID:n, annars den inloggade användarens kompetenser")
+            @RequestParam(required = false) List<Long> skillIds,
+            @Parameter(description = "Antal jobb") @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Poängsättning: overlap eller jaccard") @RequestParam(defaultValue = "overlap") String scoring,
+            Authentication authentication) {
+
+        SkillRecommendationIndex.Scoring parsedScoring;
+        try {
+            parsedScoring = SkillRecommendationIndex.Scoring.valueOf(scoring.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Long> userSkillIds = skillIds;
+        if (userSkillIds == null || userSkillIds.isEmpty()) {
+            if (authentication == null || !authentication.isAuthenticated()) {
+                return ResponseEntity.badRequest().build();
+            }
+            userSkillIds = userProfileRepository.findSkillIdsByUserId(authentication.getName());
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<SkillRecommendationIndex.Recommendation> recommendations =
+                skillRecommendationIndex.recommend(userSkillIds, boundedLimit, parsedScoring);
+        if (recommendations.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        // Jobben läses som DTO:er på primärnyckel i en fråga (utan raw), indexet bestämmer ordningen.
+        // Indexet kan ligga efter en synk, så jobb som inte längre är aktiva filtreras bort i frågan.
+        List<Long> jobIds = recommendations.stream()
+                .map(SkillRecommendationIndex.Recommendation::getJobId)
+                .collect(Collectors.toList());
+        Specification<JobListing> activeJobs = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                root.get("id").in(jobIds),
+                criteriaBuilder.equal(root.get("status"), JobListing.Status.ACTIVE));
+        Map<Long, JobListingDTO> jobsById = jobListingRepository.findListingDTOs(activeJobs, Sort.unsorted(), 0).stream()
+                .collect(Collectors.toMap(JobListingDTO::getId, Function.identity()));
+
+        List<RecommendationDTO> result = new ArrayList<>(recommendations.size());
+        for (SkillRecommendationIndex.Recommendation recommendation : recommendations) {
+            JobListingDTO job = jobsById.get(recommendation.getJobId());
+            if (job != null) {
+                result.add(convertToDTO(job, recommendation));
+            }
+        }
+        log.debug("{} rekommendationer för {} kompetenser", result.size(), userSkillIds.size());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * DTO för ett rekommenderat jobb.
+     */
+    public static class RecommendationDTO {
+        private Long jobId;
+        private String title;
+        private String companyName;
+        private String location;
+        private LocalDateTime deadline;
+        private double score;
+        private int matchedSkills;
+
+        public RecommendationDTO() {
+        }
+
+        public RecommendationDTO(Long jobId, String title, String companyName, String location,
+                                 LocalDateTime deadline, double score, int matchedSkills) {
+            this.jobId = jobId;
+            this.title = title;
+            this.companyName = companyName;
+            this.location = location;
+            this.deadline = deadline;
+            this.score = score;
+            this.matchedSkills = matchedSkills;
+        }
+
+        public Long getJobId() {
+            return jobId;
+        }
+
+        public void setJobId(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getCompanyName() {
+            return companyName;
+        }
+
+        public void setCompanyName(String companyName) {
+            this.companyName = companyName;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public LocalDateTime getDeadline() {
+            return deadline;
+        }
+
+        public void setDeadline(LocalDateTime deadline) {
+            this.deadline = deadline;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+
+        public int getMatchedSkills() {
+            return matchedSkills;
+        }
+
+        public void setMatchedSkills(int matchedSkills) {
+            this.matchedSkills = matchedSkills;
+        }
+    }
+
+    /**
+     * Konverterar ett jobb och dess poäng till DTO.
+     */
+    private RecommendationDTO convertToDTO(JobListingDTO job, SkillRecommendationIndex.Recommendation recommendation) {
+        return new RecommendationDTO(job.getId(), job.getTitle(), job.getCompanyName(), job.getLocation(),
+                job.getDeadline(), recommendation.getScore(), recommendation.getMatchedSkills());
+    }
+}
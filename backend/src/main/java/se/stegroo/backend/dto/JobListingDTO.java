@@ -21,6 +21,7 @@ public class JobListingDTO {
     private LocalDateTime deadline;
     private LocalDateTime lastModified;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     private CategoryDTO category;
     private Set<SkillDTO> skills;
@@ -31,7 +32,7 @@ public class JobListingDTO {
     public JobListingDTO(Long id, String title, String description, String companyName, String location,
                         String externalId, String externalUrl, String source, String employmentType,
                         LocalDateTime publishedAt, LocalDateTime deadline, LocalDateTime lastModified,
-                        LocalDateTime createdAt, CategoryDTO category, Set<SkillDTO> skills) {
+                        LocalDateTime createdAt, LocalDateTime updatedAt, CategoryDTO category, Set<SkillDTO> skills) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -45,6 +46,7 @@ public class JobListingDTO {
         this.deadline = deadline;
         this.lastModified = lastModified;
         this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
         this.category = category;
         this.skills = skills;
     }
@@ -153,6 +155,14 @@ public class JobListingDTO {
         this.createdAt = createdAt;
     }
     
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
     public CategoryDTO getCategory() {
         return category;
     }
@@ -297,6 +307,7 @@ public class JobListingDTO {
         private LocalDateTime deadline;
         private LocalDateTime lastModified;
         private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
         private CategoryDTO category;
         private Set<SkillDTO> skills;
         
@@ -365,6 +376,11 @@ public class JobListingDTO {
             return this;
         }
         
+        public JobListingDTOBuilder updatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+            return this;
+        }
+        
         public JobListingDTOBuilder category(CategoryDTO category) {
             this.category = category;
             return this;
@@ -378,7 +394,7 @@ public class JobListingDTO {
         public JobListingDTO build() {
             return new JobListingDTO(id, title, description, companyName, location, externalId, externalUrl,
                                    source, employmentType, publishedAt, deadline, lastModified,
-                                   createdAt, category, skills);
+                                   createdAt, updatedAt, category, skills);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package se.stegroo.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Facetträknare för en jobbsökning. Alla räknare gäller samma filter som sökningen.
+ */
+@Schema(description = "Antal träffar per filtervärde för aktuell sökning")
+public class JobSearchFacets {
+
+    @Schema(description = "Totalt antal träffar")
+    private long totalCount;
+
+    @Schema(description = "Antal per kategori")
+    private List<FacetValue> categories = new ArrayList<>();
+
+    @Schema(description = "Antal per anställningstyp")
+    private List<FacetValue> employmentTypes = new ArrayList<>();
+
+    @Schema(description = "Antal per arbetstid")
+    private List<FacetValue> workingHoursTypes = new ArrayList<>();
+
+    @Schema(description = "Antal per plats")
+    private List<FacetValue> locations = new ArrayList<>();
+
+    @Schema(description = "Antal per kompetens")
+    private List<FacetValue> skills = new ArrayList<>();
+
+    public JobSearchFacets() {}
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public List<FacetValue> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<FacetValue> categories) {
+        this.categories = categories;
+    }
+
+    public List<FacetValue> getEmploymentTypes() {
+        return employmentTypes;
+    }
+
+    public void setEmploymentTypes(List<FacetValue> employmentTypes) {
+        this.employmentTypes = employmentTypes;
+    }
+
+    public List<FacetValue> getWorkingHoursTypes() {
+        return workingHoursTypes;
+    }
+
+    public void setWorkingHoursTypes(List<FacetValue> workingHoursTypes) {
+        this.workingHoursTypes = workingHoursTypes;
+    }
+
+    public List<FacetValue> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<FacetValue> locations) {
+        this.locations = locations;
+    }
+
+    public List<FacetValue> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(List<FacetValue> skills) {
+        this.skills = skills;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobSearchFacets that = (JobSearchFacets) o;
+        return totalCount == that.totalCount &&
+                Objects.equals(categories, that.categories) &&
+                Objects.equals(employmentTypes, that.employmentTypes) &&
+                Objects.equals(workingHoursTypes, that.workingHoursTypes) &&
+                Objects.equals(locations, that.locations) &&
+                Objects.equals(skills, that.skills);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(totalCount, categories, employmentTypes, workingHoursTypes, locations, skills);
+    }
+
+    @Override
+    public String toString() {
+        return "JobSearchFacets{" +
+                "totalCount=" + totalCount +
+                ", categories=" + categories +
+                ", employmentTypes=" + employmentTypes +
+                ", workingHoursTypes=" + workingHoursTypes +
+                ", locations=" + locations +
+                ", skills=" + skills +
+                '}';
+    }
+
+    /**
+     * Ett filtervärde och antal träffar
+     */
+    @Schema(description = "Filtervärde med antal träffar")
+    public static class FacetValue {
+        @Schema(description = "Värde att filtrera på (id för kategori och kompetens)")
+        private String value;
+
+        @Schema(description = "Visningsnamn")
+        private String label;
+
+        @Schema(description = "Antal träffar")
+        private long count;
+
+        public FacetValue() {}
+
+        public FacetValue(String value, String label, long count) {
+            this.value = value;
+            this.label = label;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FacetValue that = (FacetValue) o;
+            return count == that.count &&
+                    Objects.equals(value, that.value) &&
+                    Objects.equals(label, that.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, label, count);
+        }
+
+        @Override
+        public String toString() {
+            return "FacetValue{" +
+                    "value='" + value + '\'' +
+                    ", label='" + label + '\'' +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
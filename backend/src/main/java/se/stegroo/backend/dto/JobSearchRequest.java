@@ -52,6 +52,9 @@ public class JobSearchRequest {
     @Schema(description = "Sorteringsriktning (asc eller desc)")
     private String sortDirection = "desc";
 
+    @Schema(description = "Opak cursor från föregående svars nextCursor vid keyset-paginering (tom för första sidan)")
+    private String cursor;
+
     // Konstruktorer
     public JobSearchRequest() {}
 
@@ -174,6 +177,14 @@ public class JobSearchRequest {
         this.sortDirection = sortDirection;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -192,13 +203,14 @@ public class JobSearchRequest {
                 Objects.equals(page, that.page) &&
                 Objects.equals(size, that.size) &&
                 Objects.equals(sortBy, that.sortBy) &&
-                Objects.equals(sortDirection, that.sortDirection);
+                Objects.equals(sortDirection, that.sortDirection) &&
+                Objects.equals(cursor, that.cursor);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(query, location, categoryId, skillIds, employmentType, workingHoursType, 
-                          status, daysBack, minSalary, maxSalary, page, size, sortBy, sortDirection);
+                          status, daysBack, minSalary, maxSalary, page, size, sortBy, sortDirection, cursor);
     }
 
     @Override
@@ -218,6 +230,7 @@ public class JobSearchRequest {
                 ", size=" + size +
                 ", sortBy='" + sortBy + '\'' +
                 ", sortDirection='" + sortDirection + '\'' +
+                ", cursor='" + cursor + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class JobSearchResponse {
     @Schema(description = "Statistik över jobb")
     private JobStats jobStats;
 
+    @Schema(description = "Cursor för nästa sida vid keyset-paginering, null på sista sidan")
+    private String nextCursor;
+
     // Konstruktorer
     public JobSearchResponse() {}
 
@@ -112,6 +115,14 @@ public class JobSearchResponse {
         this.jobStats = jobStats;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -124,12 +135,13 @@ public class JobSearchResponse {
                 Objects.equals(size, that.size) &&
                 Objects.equals(hasNext, that.hasNext) &&
                 Objects.equals(hasPrevious, that.hasPrevious) &&
-                Objects.equals(jobStats, that.jobStats);
+                Objects.equals(jobStats, that.jobStats) &&
+                Objects.equals(nextCursor, that.nextCursor);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(jobs, totalElements, totalPages, currentPage, size, hasNext, hasPrevious, jobStats);
+        return Objects.hash(jobs, totalElements, totalPages, currentPage, size, hasNext, hasPrevious, jobStats, nextCursor);
     }
 
     @Override
@@ -143,6 +155,7 @@ public class JobSearchResponse {
                 ", hasNext=" + hasNext +
                 ", hasPrevious=" + hasPrevious +
                 ", jobStats=" + jobStats +
+                ", nextCursor='" + nextCursor + '\'' +
                 '}';
     }
 
@@ -160,6 +173,7 @@ public class JobSearchResponse {
         private Boolean hasNext;
         private Boolean hasPrevious;
         private JobStats jobStats;
+        private String nextCursor;
 
         public JobSearchResponseBuilder jobs(List<JobListing> jobs) {
             this.jobs = jobs;
@@ -201,10 +215,16 @@ public class JobSearchResponse {
             return this;
         }
 
+        public JobSearchResponseBuilder nextCursor(String nextCursor) {
+            this.nextCursor = nextCursor;
+            return this;
+        }
+
         public JobSearchResponse build() {
             JobSearchResponse response = new JobSearchResponse(jobs, totalElements, totalPages, 
                                                             currentPage, size, hasNext, hasPrevious);
             response.setJobStats(jobStats);
+            response.setNextCursor(nextCursor);
             return response;
         }
     }
@@ -0,0 +1,92 @@
+package se.stegroo.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sida vid keyset-paginering. Saknar totalantal, nästa sida hämtas med nextCursor.
+ */
+@Schema(description = "Sida med keyset-paginering")
+public class KeysetPage<T> {
+
+    @Schema(description = "Innehåll på sidan")
+    private List<T> content;
+
+    @Schema(description = "Begärd sidstorlek")
+    private Integer size;
+
+    @Schema(description = "Om det finns fler sidor")
+    private Boolean hasNext;
+
+    @Schema(description = "Cursor för nästa sida, null på sista sidan")
+    private String nextCursor;
+
+    public KeysetPage() {}
+
+    public KeysetPage(List<T> content, Integer size, Boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetPage<?> that = (KeysetPage<?>) o;
+        return Objects.equals(content, that.content) &&
+                Objects.equals(size, that.size) &&
+                Objects.equals(hasNext, that.hasNext) &&
+                Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, size, hasNext, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{" +
+                "content=" + content +
+                ", size=" + size +
+                ", hasNext=" + hasNext +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
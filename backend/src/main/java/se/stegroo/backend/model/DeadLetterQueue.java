@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class DeadLetterQueue {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dead_letter_queue_id_seq")
+    @SequenceGenerator(name = "dead_letter_queue_id_seq", sequenceName = "dead_letter_queue_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "external_id", nullable = false)
@@ -20,7 +20,8 @@ import java.util.Set;
 public class JobCategory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_categories_id_seq")
+    @SequenceGenerator(name = "job_categories_id_seq", sequenceName = "job_categories_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,7 +23,8 @@ public class JobListing {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_listings_id_seq")
+    @SequenceGenerator(name = "job_listings_id_seq", sequenceName = "job_listings_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -143,6 +144,12 @@ public class JobListing {
     @Lob
     @Column(name = "raw", columnDefinition = "CLOB")
     private String raw;
+
+    /**
+     * SHA-256 av annonsens normaliserade innehåll, används för att hoppa över oförändrade annonser vid synk
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
     
     public JobListing() {
     }
@@ -318,6 +325,14 @@ public class JobListing {
         this.raw = raw;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     /**
      * Lägg till en kompetens till jobbet
      */
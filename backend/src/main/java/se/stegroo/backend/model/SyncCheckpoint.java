@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class SyncCheckpoint {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sync_checkpoints_id_seq")
+    @SequenceGenerator(name = "sync_checkpoints_id_seq", sequenceName = "sync_checkpoints_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "sync_type", nullable = false, unique = true)
@@ -40,6 +41,9 @@ public class SyncCheckpoint {
     @Column(name = "total_failed")
     private Long totalFailed;
 
+    @Column(name = "total_skipped")
+    private Long totalSkipped;
+
     @Column(name = "last_error_message", length = 2000)
     private String lastErrorMessage;
 
@@ -87,6 +91,7 @@ public class SyncCheckpoint {
         this.totalProcessed = 0L;
         this.totalSuccessful = 0L;
         this.totalFailed = 0L;
+        this.totalSkipped = 0L;
     }
 
     // Getters and Setters
@@ -146,6 +151,17 @@ public class SyncCheckpoint {
         this.totalFailed = totalFailed;
     }
 
+    /**
+     * Antal jobb som hoppades över eftersom innehållet var oförändrat
+     */
+    public Long getTotalSkipped() {
+        return totalSkipped;
+    }
+
+    public void setTotalSkipped(Long totalSkipped) {
+        this.totalSkipped = totalSkipped;
+    }
+
     public String getLastErrorMessage() {
         return lastErrorMessage;
     }
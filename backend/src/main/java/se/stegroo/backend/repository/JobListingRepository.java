@@ -20,7 +20,8 @@ import java.util.Set;
  * Repository för jobbannonser.
  */
 @Repository
-public interface JobListingRepository extends JpaRepository<JobListing, Long>, JpaSpecificationExecutor<JobListing> {
+public interface JobListingRepository extends JpaRepository<JobListing, Long>, JpaSpecificationExecutor<JobListing>,
+        JobListingRepositoryCustom {
 
     /**
      * Hitta en jobbannons baserat på externt ID (från Arbetsförmedlingen)
@@ -157,7 +158,8 @@ public interface JobListingRepository extends JpaRepository<JobListing, Long>, J
     List<JobListing> findJobsNeedingUpdate(@Param("cutoffDate") LocalDateTime cutoffDate);
 
     /**
-     * Hitta utgångna jobb
+     * Hitta utgångna jobb. Laddar alla entiteter; för att markera dem som utgångna används
+     * {@link #expireActiveBefore(LocalDateTime, int)}.
      */
     @Query("SELECT j FROM JobListing j WHERE j.deadline < :now AND j.status = 'ACTIVE'")
     List<JobListing> findExpiredJobs(@Param("now") LocalDateTime now);
@@ -0,0 +1,120 @@
+package se.stegroo.backend.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.model.JobListing;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bulkoperationer för jobbannonser som inte kan uttryckas med Spring Data-metoder.
+ * Implementeras av {@link JobListingRepositoryImpl}.
+ */
+public interface JobListingRepositoryCustom {
+
+    /**
+     * Styr när en befintlig annons skrivs över vid upsert
+     */
+    enum UpsertPolicy {
+        /**
+         * Befintlig annons uppdateras alltid
+         */
+        ALWAYS,
+        /**
+         * Befintlig annons uppdateras endast om den inkommande har ett senare publiceringsdatum
+         */
+        ONLY_IF_NEWER
+    }
+
+    /**
+     * Sparar en sida jobb nycklade på external_id. På PostgreSQL skrivs sidan med
+     * {@code INSERT ... ON CONFLICT (external_id) DO UPDATE} i en sats per delbatch.
+     * Misslyckas en sats körs raderna om en och en så att felet kan härledas till
+     * enskilda annonser, övriga rader sparas ändå.
+     * <p>
+     * Jobb med contentHash jämförs först mot sparade hashar med en bulkuppslagning;
+     * oförändrade jobb hoppas över helt och rapporteras som skipped.
+     *
+     * @param jobs Jobb att spara, alla måste ha externalId
+     * @param policy När befintliga annonser ska skrivas över
+     * @return Utfall per rad
+     */
+    JobListingUpsertResult upsertByExternalId(List<JobListing> jobs, UpsertPolicy policy);
+
+    /**
+     * Bulkimport för stora initiala laddningar. På PostgreSQL strömmas jobben med {@code COPY}
+     * till en temporär stagingtabell och slås sedan ihop med job_listings och job_skills med
+     * set-baserad SQL, med samma villkor som {@link #upsertByExternalId}. Andra databaser, och
+     * en import som misslyckas, går via {@link #upsertByExternalId}.
+     *
+     * @param jobs Jobb att spara, alla måste ha externalId
+     * @param policy När befintliga annonser ska skrivas över
+     * @return Utfall per rad
+     */
+    JobListingUpsertResult bulkLoadByExternalId(List<JobListing> jobs, UpsertPolicy policy);
+
+    /**
+     * Markerar aktiva annonser vars sista ansökningsdag har passerat som {@code EXPIRED} med en
+     * set-baserad UPDATE, högst {@code limit} rader per anrop (tidigaste deadline först).
+     *
+     * @return Antal annonser som markerades
+     */
+    int expireActiveBefore(LocalDateTime now, int limit);
+
+    /**
+     * Markerar annonser som {@code REMOVED} med en set-baserad UPDATE. Annonser som redan är
+     * borttagna eller saknas lämnas orörda.
+     *
+     * @param removedAtByExternalId externalId -> tidpunkt då AF tog bort annonsen, null ger {@code now}
+     * @return Antal annonser som markerades
+     */
+    int markRemovedByExternalIds(Map<String, LocalDateTime> removedAtByExternalId, LocalDateTime now);
+
+    /**
+     * Läser jobbens kompetens-id:n utan att ladda entiteter, ett jobb i taget i id-ordning
+     *
+     * @param changedAfter null läser alla aktiva jobb som har kompetenser, annars alla jobb
+     *                     (oavsett status) som ändrats efter tidpunkten
+     */
+    void scanSkillSets(LocalDateTime changedAfter, Consumer<JobSkillSet> consumer);
+
+    /**
+     * Om databasen har fulltextindexet (search_vector) och funktionerna fts_match/fts_rank,
+     * vilket gäller för PostgreSQL
+     */
+    boolean supportsFullTextSearch();
+
+    /**
+     * Räknar träffar för en sökning grupperat på alla facettdimensioner i en fråga. Varje jobb
+     * hamnar i exakt en kombination, så antal per dimension fås genom att summera raderna.
+     *
+     * @return Rader med [categoryId, categoryName, employmentType, workingHoursType, location, antal]
+     */
+    List<Object[]> countFacetCombinations(Specification<JobListing> spec);
+
+    /**
+     * Räknar träffar per kompetens för en sökning, flest först
+     *
+     * @return Rader med [skillId, skillName, antal]
+     */
+    List<Object[]> countSkillFacets(Specification<JobListing> spec, int limit);
+
+    /**
+     * Läser en sida jobb som {@link JobListingDTO} utan att ladda entiteter. Kategorin följer med
+     * i samma fråga och kompetenserna läses i en extra fråga för hela sidan.
+     */
+    Page<JobListingDTO> findListingDTOs(Specification<JobListing> spec, Pageable pageable);
+
+    /**
+     * Som {@link #findListingDTOs(Specification, Pageable)} men utan count-fråga
+     *
+     * @param limit Max antal rader, 0 för alla
+     */
+    List<JobListingDTO> findListingDTOs(Specification<JobListing> spec, Sort sort, int limit);
+}
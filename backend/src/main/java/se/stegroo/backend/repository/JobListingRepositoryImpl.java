@@ -0,0 +1,914 @@
+package se.stegroo.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.jpa.domain.Specification;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.model.JobCategory;
+import se.stegroo.backend.model.JobListing;
+import se.stegroo.backend.model.Skill;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Implementation av bulkoperationer för jobbannonser.
+ * Använder set-baserad upsert på PostgreSQL och faller tillbaka på JPA per rad
+ * för andra databaser (t.ex. H2 vid lokal utveckling).
+ */
+public class JobListingRepositoryImpl implements JobListingRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(JobListingRepositoryImpl.class);
+
+    /**
+     * Max antal rader per sats. 18 parametrar per rad håller oss under PostgreSQL:s gräns på 65535.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_COLUMNS =
+            "title, description, company_name, location, external_id, external_url, source, " +
+            "employment_type, working_hours_type, published_at, deadline, status, last_modified, " +
+            "raw, content_hash, category_id, created_at, updated_at";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SET =
+            " ON CONFLICT (external_id) DO UPDATE SET " +
+            "title = EXCLUDED.title, " +
+            "description = EXCLUDED.description, " +
+            "company_name = EXCLUDED.company_name, " +
+            "location = EXCLUDED.location, " +
+            "external_url = EXCLUDED.external_url, " +
+            "employment_type = EXCLUDED.employment_type, " +
+            "working_hours_type = EXCLUDED.working_hours_type, " +
+            "published_at = EXCLUDED.published_at, " +
+            "deadline = EXCLUDED.deadline, " +
+            "last_modified = EXCLUDED.last_modified, " +
+            "raw = EXCLUDED.raw, " +
+            "content_hash = EXCLUDED.content_hash, " +
+            "category_id = COALESCE(EXCLUDED.category_id, job_listings.category_id), " +
+            "updated_at = EXCLUDED.updated_at";
+
+    // Skyddar mot samtidiga skrivningar mellan hashuppslagningen och upserten
+    private static final String CONTENT_CHANGED_CONDITION =
+            " WHERE (EXCLUDED.content_hash IS NULL OR job_listings.content_hash IS DISTINCT FROM EXCLUDED.content_hash)";
+
+    private static final String ONLY_IF_NEWER_CONDITION =
+            " AND EXCLUDED.published_at IS NOT NULL " +
+            "AND (job_listings.published_at IS NULL OR EXCLUDED.published_at > job_listings.published_at)";
+
+    private static final String SELECT_HASHES_SQL =
+            "SELECT external_id, content_hash FROM job_listings WHERE external_id = ANY (?) AND content_hash IS NOT NULL";
+
+    // xmax = 0 betyder att raden skapades av denna sats och inte uppdaterades
+    private static final String RETURNING = " RETURNING external_id, (xmax = 0) AS inserted";
+
+    // Stagingtabeller för bulkimport. Temporära per session, så parallella arbetare inte delar rader.
+    private static final String CREATE_LISTING_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS job_listings_staging (" +
+            "title text, description text, company_name text, location text, external_id text, external_url text, " +
+            "source text, employment_type text, working_hours_type text, published_at timestamp, deadline timestamp, " +
+            "status text, last_modified timestamp, raw text, content_hash text, category_id bigint, " +
+            "created_at timestamp, updated_at timestamp)";
+
+    private static final String CREATE_SKILL_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS job_skills_staging (external_id text, skill_id bigint)";
+
+    // external_id för annonser som skapades eller uppdaterades, deras kompetenskopplingar ersätts
+    private static final String CREATE_TOUCHED_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS job_listings_touched (external_id text)";
+
+    private static final String COPY_LISTINGS_SQL =
+            "COPY job_listings_staging (" + INSERT_COLUMNS + ") FROM STDIN (FORMAT csv)";
+
+    private static final String COPY_SKILLS_SQL =
+            "COPY job_skills_staging (external_id, skill_id) FROM STDIN (FORMAT csv)";
+
+    private static final String COPY_TOUCHED_SQL =
+            "COPY job_listings_touched (external_id) FROM STDIN (FORMAT csv)";
+
+    private static final String MERGE_LISTINGS_SQL =
+            "INSERT INTO job_listings (" + INSERT_COLUMNS + ") SELECT " + INSERT_COLUMNS + " FROM job_listings_staging";
+
+    private static final String SELECT_STAGED_UNCHANGED_SQL =
+            "SELECT s.external_id FROM job_listings_staging s JOIN job_listings j ON j.external_id = s.external_id " +
+            "WHERE s.content_hash IS NOT NULL AND s.content_hash = j.content_hash";
+
+    private static final String REPLACE_SKILLS_SQL =
+            "DELETE FROM job_skills js USING job_listings j " +
+            "WHERE js.job_id = j.id AND j.external_id IN (SELECT external_id FROM job_listings_touched)";
+
+    private static final String MERGE_SKILLS_SQL =
+            "INSERT INTO job_skills (job_id, skill_id) " +
+            "SELECT DISTINCT j.id, s.skill_id FROM job_skills_staging s JOIN job_listings j ON j.external_id = s.external_id " +
+            "ON CONFLICT DO NOTHING";
+
+    // Begränsad batch: delfrågan väljer raderna, den yttre satsen kontrollerar status igen
+    // ifall en samtidig upsert hann ändra raden
+    private static final String EXPIRE_ACTIVE_SQL =
+            "UPDATE job_listings SET status = 'EXPIRED', updated_at = ? WHERE status = 'ACTIVE' AND id IN (" +
+            "SELECT id FROM job_listings WHERE status = 'ACTIVE' AND deadline < ? ORDER BY deadline, id LIMIT ?)";
+
+    private static final String MARK_REMOVED_SQL =
+            "UPDATE job_listings j SET status = 'REMOVED', removed_at = COALESCE(r.removed_at, ?), updated_at = ? " +
+            "FROM unnest(?::text[], ?::timestamp[]) AS r(external_id, removed_at) " +
+            "WHERE j.external_id = r.external_id AND j.status <> 'REMOVED'";
+
+    private static final String MARK_REMOVED_ROW_SQL =
+            "UPDATE job_listings SET status = 'REMOVED', removed_at = ?, updated_at = ? " +
+            "WHERE external_id = ? AND status <> 'REMOVED'";
+
+    // Raderna sorteras på id så att ett jobbs kompetenser kommer i följd. Vid full läsning tas
+    // bara jobb med kompetenser med, ändrade jobb läses även utan så att borttagna kompetenser syns.
+    private static final String SKILL_SETS_ACTIVE_SQL =
+            "SELECT j.id, j.status, j.updated_at, js.skill_id FROM job_listings j " +
+            "JOIN job_skills js ON js.job_id = j.id WHERE j.status = 'ACTIVE' ORDER BY j.id";
+
+    private static final String SKILL_SETS_CHANGED_SQL =
+            "SELECT j.id, j.status, j.updated_at, js.skill_id FROM job_listings j " +
+            "LEFT JOIN job_skills js ON js.job_id = j.id WHERE j.updated_at > ? ORDER BY j.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    public JobListingRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public JobListingUpsertResult upsertByExternalId(List<JobListing> jobs, UpsertPolicy policy) {
+        JobListingUpsertResult result = new JobListingUpsertResult();
+        if (jobs == null || jobs.isEmpty()) {
+            return result;
+        }
+
+        List<JobListing> uniqueJobs = deduplicate(jobs, result);
+
+        if (isPostgres()) {
+            for (int from = 0; from < uniqueJobs.size(); from += MAX_ROWS_PER_STATEMENT) {
+                List<JobListing> slice = uniqueJobs.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, uniqueJobs.size()));
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    upsertChangedInSlice(connection, slice, policy, result);
+                    return null;
+                });
+            }
+        } else {
+            upsertWithJpa(uniqueJobs, policy, result);
+        }
+
+        log.debug("Bulk-upsert av {} jobb: {}", jobs.size(), result);
+        return result;
+    }
+
+    @Override
+    public JobListingUpsertResult bulkLoadByExternalId(List<JobListing> jobs, UpsertPolicy policy) {
+        if (jobs == null || jobs.isEmpty() || !isPostgres()) {
+            return upsertByExternalId(jobs, policy);
+        }
+
+        JobListingUpsertResult result = new JobListingUpsertResult();
+        List<JobListing> uniqueJobs = deduplicate(jobs, result);
+        if (uniqueJobs.isEmpty()) {
+            return result;
+        }
+
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection ->
+                    inSavepoint(connection, () -> copyAndMerge(connection, uniqueJobs, policy, result)));
+        } catch (RuntimeException e) {
+            // Stagingen rullades tillbaka, den vanliga upserten isolerar felet till enskilda rader
+            log.warn("Bulkimport av {} jobb misslyckades ({}), använder upsert", uniqueJobs.size(), e.getMessage());
+            JobListingUpsertResult fallback = upsertByExternalId(uniqueJobs, policy);
+            result.getUnchangedExternalIds().forEach(fallback::addUnchanged);
+            result.getFailures().forEach(failure -> fallback.addFailure(failure.getJob(), failure.getError()));
+            return fallback;
+        }
+
+        log.debug("Bulkimport av {} jobb: {}", jobs.size(), result);
+        return result;
+    }
+
+    /**
+     * Laddar jobben till stagingtabellen med COPY och slår ihop dem med job_listings i en sats.
+     * Kompetenskopplingar ersätts för de annonser som skapades eller uppdaterades.
+     */
+    private Void copyAndMerge(Connection connection, List<JobListing> jobs, UpsertPolicy policy,
+                              JobListingUpsertResult result) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_LISTING_STAGING_SQL);
+            statement.execute(CREATE_SKILL_STAGING_SQL);
+            statement.execute(CREATE_TOUCHED_STAGING_SQL);
+            statement.execute("TRUNCATE job_listings_staging, job_skills_staging, job_listings_touched");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> rows = new ArrayList<>(jobs.size());
+        for (JobListing job : jobs) {
+            rows.add(toCsvRow(job, now));
+        }
+        copyIn(connection, COPY_LISTINGS_SQL, rows);
+
+        StringBuilder merge = new StringBuilder(MERGE_LISTINGS_SQL).append(UPDATE_SET).append(CONTENT_CHANGED_CONDITION);
+        if (policy == UpsertPolicy.ONLY_IF_NEWER) {
+            merge.append(ONLY_IF_NEWER_CONDITION);
+        }
+        merge.append(RETURNING);
+
+        List<String> inserted = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(merge.toString())) {
+            while (resultSet.next()) {
+                (resultSet.getBoolean(2) ? inserted : updated).add(resultSet.getString(1));
+            }
+        }
+        Set<String> touched = new HashSet<>(inserted);
+        touched.addAll(updated);
+
+        Set<String> stagedUnchanged = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SELECT_STAGED_UNCHANGED_SQL)) {
+            while (resultSet.next()) {
+                stagedUnchanged.add(resultSet.getString(1));
+            }
+        }
+
+        if (!touched.isEmpty()) {
+            replaceSkills(connection, jobs, touched);
+        }
+
+        // Resultatet registreras först när hela importen lyckats
+        recordMergeOutcome(jobs, inserted, updated, stagedUnchanged, result);
+        return null;
+    }
+
+    /**
+     * Ersätter kompetenskopplingarna för de skapade och uppdaterade annonserna. Kopplingarna
+     * raderas för alla berörda annonser, även de vars kompetenslista nu är tom.
+     */
+    private void replaceSkills(Connection connection, List<JobListing> jobs, Set<String> touched) throws SQLException {
+        List<String> touchedRows = new ArrayList<>(touched.size());
+        for (String externalId : touched) {
+            touchedRows.add(csv(externalId) + "\n");
+        }
+        copyIn(connection, COPY_TOUCHED_SQL, touchedRows);
+
+        List<String> skillRows = new ArrayList<>();
+        for (JobListing job : jobs) {
+            if (touched.contains(job.getExternalId()) && job.getSkills() != null) {
+                for (Skill skill : job.getSkills()) {
+                    if (skill.getId() != null) {
+                        skillRows.add(csv(job.getExternalId()) + "," + skill.getId() + "\n");
+                    }
+                }
+            }
+        }
+        if (!skillRows.isEmpty()) {
+            copyIn(connection, COPY_SKILLS_SQL, skillRows);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(REPLACE_SKILLS_SQL);
+            if (!skillRows.isEmpty()) {
+                statement.executeUpdate(MERGE_SKILLS_SQL);
+            }
+        }
+    }
+
+    /**
+     * Klassar varje importerat jobb utifrån sammanslagningen: skapade och uppdaterade enligt
+     * RETURNING, skipped om stagad hash redan fanns sparad, annars unchanged (t.ex. ett äldre
+     * publiceringsdatum med ONLY_IF_NEWER). Efter sammanslagningen har även uppdaterade rader
+     * samma hash som stagingen, så de räknas inte som skipped.
+     */
+    static void recordMergeOutcome(List<JobListing> jobs, List<String> inserted, List<String> updated,
+                                   Set<String> stagedUnchanged, JobListingUpsertResult result) {
+        Set<String> touched = new HashSet<>(inserted);
+        touched.addAll(updated);
+        inserted.forEach(result::addInserted);
+        updated.forEach(result::addUpdated);
+        for (JobListing job : jobs) {
+            String externalId = job.getExternalId();
+            if (touched.contains(externalId)) {
+                continue;
+            }
+            if (stagedUnchanged.contains(externalId)) {
+                result.addSkipped(externalId);
+            } else {
+                result.addUnchanged(externalId);
+            }
+        }
+    }
+
+    private void copyIn(Connection connection, String sql, List<String> rows) throws SQLException {
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            for (String row : rows) {
+                byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+            }
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * En CSV-rad för COPY i samma kolumnordning som {@link #INSERT_COLUMNS}
+     */
+    static String toCsvRow(JobListing job, LocalDateTime now) {
+        String categoryId = job.getCategory() != null && job.getCategory().getId() != null
+                ? job.getCategory().getId().toString() : null;
+        return String.join(",",
+                csv(job.getTitle()),
+                csv(job.getDescription()),
+                csv(job.getCompanyName()),
+                csv(job.getLocation()),
+                csv(job.getExternalId()),
+                csv(job.getExternalUrl()),
+                csv(job.getSource() != null ? job.getSource() : "arbetsformedlingen"),
+                csv(job.getEmploymentType()),
+                csv(job.getWorkingHoursType()),
+                csv(job.getPublishedAt()),
+                csv(job.getDeadline()),
+                csv((job.getStatus() != null ? job.getStatus() : JobListing.Status.ACTIVE).name()),
+                csv(now),
+                csv(job.getRaw()),
+                csv(job.getContentHash()),
+                categoryId != null ? categoryId : "",
+                csv(now),
+                csv(now)) + "\n";
+    }
+
+    /**
+     * CSV-värde för COPY: null blir ett tomt fält, allt annat citeras så att tom sträng,
+     * kommatecken och radbrytningar bevaras
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String csv(LocalDateTime value) {
+        return value != null ? csv(Timestamp.valueOf(value).toString()) : "";
+    }
+
+    /**
+     * Tar bort dubbletter av samma external_id inom sidan (senaste vinner), eftersom
+     * ON CONFLICT inte får träffa samma rad två gånger i en sats. Jobb utan externalId
+     * rapporteras som fel.
+     */
+    private List<JobListing> deduplicate(List<JobListing> jobs, JobListingUpsertResult result) {
+        Map<String, JobListing> byExternalId = new LinkedHashMap<>();
+        for (JobListing job : jobs) {
+            if (job.getExternalId() == null) {
+                result.addFailure(job, new IllegalArgumentException("Jobb saknar externalId och kan inte upsertas"));
+                continue;
+            }
+            if (byExternalId.remove(job.getExternalId()) != null) {
+                result.addUnchanged(job.getExternalId());
+            }
+            byExternalId.put(job.getExternalId(), job);
+        }
+        return new ArrayList<>(byExternalId.values());
+    }
+
+    /**
+     * Hoppar över jobb vars hash matchar den sparade och upsertar resten
+     */
+    private void upsertChangedInSlice(Connection connection, List<JobListing> slice, UpsertPolicy policy,
+                                      JobListingUpsertResult result) throws SQLException {
+        Map<String, String> storedHashes = selectContentHashes(connection, slice);
+        List<JobListing> changed = new ArrayList<>(slice.size());
+        for (JobListing job : slice) {
+            if (job.getContentHash() != null && job.getContentHash().equals(storedHashes.get(job.getExternalId()))) {
+                result.addSkipped(job.getExternalId());
+            } else {
+                changed.add(job);
+            }
+        }
+        if (!changed.isEmpty()) {
+            upsertSlice(connection, changed, policy, result);
+        }
+    }
+
+    private Map<String, String> selectContentHashes(Connection connection, List<JobListing> jobs) throws SQLException {
+        Map<String, String> hashes = new HashMap<>();
+        String[] externalIds = jobs.stream().map(JobListing::getExternalId).toArray(String[]::new);
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_HASHES_SQL)) {
+            statement.setArray(1, connection.createArrayOf("varchar", externalIds));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    hashes.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            }
+        }
+        return hashes;
+    }
+
+    @Override
+    public boolean supportsFullTextSearch() {
+        return isPostgres();
+    }
+
+    @Override
+    public List<Object[]> countFacetCombinations(Specification<JobListing> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<JobListing> root = query.from(JobListing.class);
+        Join<JobListing, JobCategory> category = root.join("category", JoinType.LEFT);
+
+        List<Expression<?>> groupBy = List.of(
+                category.get("id"),
+                category.get("name"),
+                root.get("employmentType"),
+                root.get("workingHoursType"),
+                root.get("location"));
+
+        List<Selection<?>> selection = new ArrayList<>(groupBy);
+        // distinct eftersom filter på kompetenser kan ge flera rader per jobb
+        selection.add(criteriaBuilder.countDistinct(root));
+        query.multiselect(selection);
+        applySpecification(spec, root, query, criteriaBuilder);
+        query.groupBy(groupBy);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Object[]> countSkillFacets(Specification<JobListing> spec, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<JobListing> root = query.from(JobListing.class);
+        Join<JobListing, Skill> skill = root.join("skills", JoinType.INNER);
+
+        Expression<Long> count = criteriaBuilder.countDistinct(root);
+        query.multiselect(skill.get("id"), skill.get("name"), count);
+        applySpecification(spec, root, query, criteriaBuilder);
+        query.groupBy(skill.get("id"), skill.get("name"));
+        query.orderBy(criteriaBuilder.desc(count), criteriaBuilder.asc(skill.get("name")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private void applySpecification(Specification<JobListing> spec, Root<JobListing> root,
+                                    CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+
+    @Override
+    public Page<JobListingDTO> findListingDTOs(Specification<JobListing> spec, Pageable pageable) {
+        TypedQuery<Object[]> query = listingQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<JobListingDTO> content = toListingDTOs(query.getResultList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> countListings(spec));
+    }
+
+    @Override
+    public List<JobListingDTO> findListingDTOs(Specification<JobListing> spec, Sort sort, int limit) {
+        TypedQuery<Object[]> query = listingQuery(spec, sort);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return toListingDTOs(query.getResultList());
+    }
+
+    /**
+     * Väljer endast kolumnerna i {@link JobListingDTO}, med kategorin via left join. Varken raw
+     * eller lazy-relationer laddas.
+     */
+    private TypedQuery<Object[]> listingQuery(Specification<JobListing> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<JobListing> root = query.from(JobListing.class);
+        Join<JobListing, JobCategory> category = root.join("category", JoinType.LEFT);
+
+        query.multiselect(
+                root.get("id"),
+                root.get("title"),
+                root.get("description"),
+                root.get("companyName"),
+                root.get("location"),
+                root.get("externalId"),
+                root.get("externalUrl"),
+                root.get("source"),
+                root.get("employmentType"),
+                root.get("publishedAt"),
+                root.get("deadline"),
+                root.get("lastModified"),
+                root.get("createdAt"),
+                root.get("updatedAt"),
+                category.get("id"),
+                category.get("name"));
+        applySpecification(spec, root, query, criteriaBuilder);
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long countListings(Specification<JobListing> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JobListing> root = query.from(JobListing.class);
+        query.select(criteriaBuilder.count(root));
+        applySpecification(spec, root, query, criteriaBuilder);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<JobListingDTO> toListingDTOs(List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+        }
+        Map<Long, Set<JobListingDTO.SkillDTO>> skillsByJob = findSkillsByJobIds(ids);
+
+        List<JobListingDTO> dtos = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            LocalDateTime createdAt = (LocalDateTime) row[12];
+            JobListingDTO.CategoryDTO category = row[14] != null
+                    ? JobListingDTO.CategoryDTO.builder().id((Long) row[14]).name((String) row[15]).build()
+                    : null;
+            dtos.add(JobListingDTO.builder()
+                    .id(id)
+                    .title((String) row[1])
+                    .description((String) row[2])
+                    .companyName((String) row[3])
+                    .location((String) row[4])
+                    .externalId((String) row[5])
+                    .externalUrl((String) row[6])
+                    .source((String) row[7])
+                    .employmentType((String) row[8])
+                    .publishedAt((LocalDateTime) row[9])
+                    .deadline((LocalDateTime) row[10])
+                    .lastModified((LocalDateTime) row[11])
+                    .createdAt(createdAt != null ? createdAt : (LocalDateTime) row[9])
+                    .updatedAt((LocalDateTime) row[13])
+                    .category(category)
+                    .skills(skillsByJob.getOrDefault(id, new HashSet<>()))
+                    .build());
+        }
+        return dtos;
+    }
+
+    /**
+     * Läser kompetenser för en sida jobb i en fråga per {@link #MAX_ROWS_PER_STATEMENT} id:n
+     */
+    private Map<Long, Set<JobListingDTO.SkillDTO>> findSkillsByJobIds(List<Long> jobIds) {
+        Map<Long, Set<JobListingDTO.SkillDTO>> skillsByJob = new HashMap<>();
+        for (int from = 0; from < jobIds.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> slice = jobIds.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, jobIds.size()));
+            List<Object[]> rows = entityManager.createQuery(
+                            "SELECT j.id, s.id, s.name FROM JobListing j JOIN j.skills s WHERE j.id IN :ids",
+                            Object[].class)
+                    .setParameter("ids", slice)
+                    .getResultList();
+            for (Object[] row : rows) {
+                skillsByJob.computeIfAbsent((Long) row[0], id -> new HashSet<>())
+                        .add(JobListingDTO.SkillDTO.builder().id((Long) row[1]).name((String) row[2]).build());
+            }
+        }
+        return skillsByJob;
+    }
+
+    @Override
+    public void scanSkillSets(LocalDateTime changedAfter, Consumer<JobSkillSet> consumer) {
+        SkillSetCollector collector = new SkillSetCollector(consumer);
+        if (changedAfter == null) {
+            jdbcTemplate.query(SKILL_SETS_ACTIVE_SQL, collector::processRow);
+        } else {
+            jdbcTemplate.query(SKILL_SETS_CHANGED_SQL, collector::processRow, Timestamp.valueOf(changedAfter));
+        }
+        collector.flush();
+    }
+
+    /**
+     * Slår ihop raderna för ett jobb till en {@link JobSkillSet}
+     */
+    private static final class SkillSetCollector {
+        private final Consumer<JobSkillSet> consumer;
+        private long jobId = -1;
+        private boolean active;
+        private LocalDateTime updatedAt;
+        private long[] skillIds = new long[16];
+        private int skillCount;
+
+        SkillSetCollector(Consumer<JobSkillSet> consumer) {
+            this.consumer = consumer;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (id != jobId) {
+                flush();
+                jobId = id;
+                active = "ACTIVE".equals(rs.getString(2));
+                Timestamp timestamp = rs.getTimestamp(3);
+                updatedAt = timestamp != null ? timestamp.toLocalDateTime() : null;
+            }
+            long skillId = rs.getLong(4);
+            if (!rs.wasNull()) {
+                if (skillCount == skillIds.length) {
+                    skillIds = Arrays.copyOf(skillIds, skillCount * 2);
+                }
+                skillIds[skillCount++] = skillId;
+            }
+        }
+
+        void flush() {
+            if (jobId >= 0) {
+                consumer.accept(new JobSkillSet(jobId, active, updatedAt, Arrays.copyOf(skillIds, skillCount)));
+            }
+            jobId = -1;
+            skillCount = 0;
+        }
+    }
+
+    @Override
+    public int expireActiveBefore(LocalDateTime now, int limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        Timestamp timestamp = Timestamp.valueOf(now);
+        return jdbcTemplate.update(EXPIRE_ACTIVE_SQL, timestamp, timestamp, limit);
+    }
+
+    @Override
+    public int markRemovedByExternalIds(Map<String, LocalDateTime> removedAtByExternalId, LocalDateTime now) {
+        if (removedAtByExternalId == null || removedAtByExternalId.isEmpty()) {
+            return 0;
+        }
+        List<String> externalIds = new ArrayList<>(removedAtByExternalId.keySet());
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        if (isPostgres()) {
+            Integer updated = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                Timestamp[] removedAt = new Timestamp[externalIds.size()];
+                for (int i = 0; i < removedAt.length; i++) {
+                    LocalDateTime value = removedAtByExternalId.get(externalIds.get(i));
+                    removedAt[i] = value != null ? Timestamp.valueOf(value) : null;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(MARK_REMOVED_SQL)) {
+                    statement.setTimestamp(1, timestamp);
+                    statement.setTimestamp(2, timestamp);
+                    statement.setArray(3, connection.createArrayOf("text", externalIds.toArray()));
+                    statement.setArray(4, connection.createArrayOf("timestamp", removedAt));
+                    return statement.executeUpdate();
+                }
+            });
+            return updated != null ? updated : 0;
+        }
+
+        // Andra databaser: en JDBC-batch med en sats per annons
+        int[] counts = jdbcTemplate.batchUpdate(MARK_REMOVED_ROW_SQL, externalIds, externalIds.size(),
+                (statement, externalId) -> {
+                    LocalDateTime removedAt = removedAtByExternalId.get(externalId);
+                    statement.setTimestamp(1, removedAt != null ? Timestamp.valueOf(removedAt) : timestamp);
+                    statement.setTimestamp(2, timestamp);
+                    statement.setString(3, externalId);
+                })[0];
+        int updated = 0;
+        for (int count : counts) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+
+    private void upsertSlice(Connection connection, List<JobListing> slice, UpsertPolicy policy,
+                             JobListingUpsertResult result) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Set<String> touched = new HashSet<>();
+            inSavepoint(connection, () -> executeUpsert(connection, slice, policy, now, result, touched));
+            for (JobListing job : slice) {
+                if (!touched.contains(job.getExternalId())) {
+                    result.addUnchanged(job.getExternalId());
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (slice.size() == 1) {
+                result.addFailure(slice.get(0), e);
+                return;
+            }
+            log.warn("Bulk-upsert av {} rader misslyckades ({}), kör om rad för rad", slice.size(), e.getMessage());
+            for (JobListing job : slice) {
+                upsertSlice(connection, List.of(job), policy, result);
+            }
+        }
+    }
+
+    private Void executeUpsert(Connection connection, List<JobListing> rows, UpsertPolicy policy, LocalDateTime now,
+                               JobListingUpsertResult result, Set<String> touched) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO job_listings (").append(INSERT_COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        sql.append(UPDATE_SET).append(CONTENT_CHANGED_CONDITION);
+        if (policy == UpsertPolicy.ONLY_IF_NEWER) {
+            sql.append(ONLY_IF_NEWER_CONDITION);
+        }
+        sql.append(RETURNING);
+
+        List<String> inserted = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (JobListing job : rows) {
+                index = bindRow(statement, index, job, now);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String externalId = resultSet.getString(1);
+                    (resultSet.getBoolean(2) ? inserted : updated).add(externalId);
+                }
+            }
+        }
+
+        // Resultatet registreras först när hela satsen lyckats
+        inserted.forEach(result::addInserted);
+        updated.forEach(result::addUpdated);
+        touched.addAll(inserted);
+        touched.addAll(updated);
+        return null;
+    }
+
+    private int bindRow(PreparedStatement statement, int index, JobListing job, LocalDateTime now) throws SQLException {
+        statement.setString(index++, job.getTitle());
+        statement.setString(index++, job.getDescription());
+        statement.setString(index++, job.getCompanyName());
+        statement.setString(index++, job.getLocation());
+        statement.setString(index++, job.getExternalId());
+        statement.setString(index++, job.getExternalUrl());
+        statement.setString(index++, job.getSource() != null ? job.getSource() : "arbetsformedlingen");
+        statement.setString(index++, job.getEmploymentType());
+        statement.setString(index++, job.getWorkingHoursType());
+        setTimestamp(statement, index++, job.getPublishedAt());
+        setTimestamp(statement, index++, job.getDeadline());
+        statement.setString(index++, (job.getStatus() != null ? job.getStatus() : JobListing.Status.ACTIVE).name());
+        setTimestamp(statement, index++, now);
+        statement.setString(index++, job.getRaw());
+        statement.setString(index++, job.getContentHash());
+        if (job.getCategory() != null && job.getCategory().getId() != null) {
+            statement.setLong(index++, job.getCategory().getId());
+        } else {
+            statement.setNull(index++, Types.BIGINT);
+        }
+        setTimestamp(statement, index++, now);
+        setTimestamp(statement, index++, now);
+        return index;
+    }
+
+    private void setTimestamp(PreparedStatement statement, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            statement.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            statement.setNull(index, Types.TIMESTAMP);
+        }
+    }
+
+    /**
+     * Kör arbetet inom en savepoint så att ett fel inte avbryter omgivande transaktion
+     * (PostgreSQL kräver rollback efter ett misslyckat kommando).
+     */
+    private <T> T inSavepoint(Connection connection, SqlWork<T> work) throws SQLException {
+        if (connection.getAutoCommit()) {
+            return work.execute();
+        }
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            T value = work.execute();
+            connection.releaseSavepoint(savepoint);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback(savepoint);
+            throw e;
+        }
+    }
+
+    /**
+     * Fallback för databaser utan ON CONFLICT: en uppslagning och en skrivning per rad via JPA
+     */
+    private void upsertWithJpa(List<JobListing> jobs, UpsertPolicy policy, JobListingUpsertResult result) {
+        for (JobListing job : jobs) {
+            try {
+                List<JobListing> existing = entityManager
+                        .createQuery("SELECT j FROM JobListing j WHERE j.externalId = :externalId", JobListing.class)
+                        .setParameter("externalId", job.getExternalId())
+                        .getResultList();
+
+                if (existing.isEmpty()) {
+                    if (job.getSource() == null) {
+                        job.setSource("arbetsformedlingen");
+                    }
+                    job.setLastModified(LocalDateTime.now());
+                    entityManager.persist(job);
+                    result.addInserted(job.getExternalId());
+                } else if (job.getContentHash() != null && job.getContentHash().equals(existing.get(0).getContentHash())) {
+                    result.addSkipped(job.getExternalId());
+                } else if (shouldUpdate(existing.get(0), job, policy)) {
+                    applyUpdate(existing.get(0), job);
+                    result.addUpdated(job.getExternalId());
+                } else {
+                    result.addUnchanged(job.getExternalId());
+                }
+            } catch (RuntimeException e) {
+                result.addFailure(job, e);
+            }
+        }
+        entityManager.flush();
+    }
+
+    private boolean shouldUpdate(JobListing existing, JobListing incoming, UpsertPolicy policy) {
+        if (policy == UpsertPolicy.ALWAYS) {
+            return true;
+        }
+        return incoming.getPublishedAt() != null
+                && (existing.getPublishedAt() == null || incoming.getPublishedAt().isAfter(existing.getPublishedAt()));
+    }
+
+    private void applyUpdate(JobListing existing, JobListing incoming) {
+        existing.setTitle(incoming.getTitle());
+        existing.setDescription(incoming.getDescription());
+        existing.setCompanyName(incoming.getCompanyName());
+        existing.setLocation(incoming.getLocation());
+        existing.setExternalUrl(incoming.getExternalUrl());
+        existing.setEmploymentType(incoming.getEmploymentType());
+        existing.setWorkingHoursType(incoming.getWorkingHoursType());
+        existing.setPublishedAt(incoming.getPublishedAt());
+        existing.setDeadline(incoming.getDeadline());
+        existing.setLastModified(LocalDateTime.now());
+        existing.setRaw(incoming.getRaw());
+        existing.setContentHash(incoming.getContentHash());
+        if (incoming.getCategory() != null) {
+            existing.setCategory(incoming.getCategory());
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean cached = postgres;
+        if (cached == null) {
+            String productName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            cached = "PostgreSQL".equalsIgnoreCase(productName);
+            postgres = cached;
+        }
+        return cached;
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T execute() throws SQLException;
+    }
+}
@@ -0,0 +1,116 @@
+package se.stegroo.backend.repository;
+
+import se.stegroo.backend.model.JobListing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultat från en bulk-upsert av jobbannonser med utfall per rad.
+ */
+public class JobListingUpsertResult {
+
+    private final List<String> insertedExternalIds = new ArrayList<>();
+    private final List<String> updatedExternalIds = new ArrayList<>();
+    private final List<String> unchangedExternalIds = new ArrayList<>();
+    private final List<String> skippedExternalIds = new ArrayList<>();
+    private final List<Failure> failures = new ArrayList<>();
+
+    public void addInserted(String externalId) {
+        insertedExternalIds.add(externalId);
+    }
+
+    public void addUpdated(String externalId) {
+        updatedExternalIds.add(externalId);
+    }
+
+    public void addUnchanged(String externalId) {
+        unchangedExternalIds.add(externalId);
+    }
+
+    public void addSkipped(String externalId) {
+        skippedExternalIds.add(externalId);
+    }
+
+    public void addFailure(JobListing job, Exception error) {
+        failures.add(new Failure(job, error));
+    }
+
+    public List<String> getInsertedExternalIds() {
+        return Collections.unmodifiableList(insertedExternalIds);
+    }
+
+    public List<String> getUpdatedExternalIds() {
+        return Collections.unmodifiableList(updatedExternalIds);
+    }
+
+    /**
+     * Rader som redan fanns och inte behövde skrivas om
+     */
+    public List<String> getUnchangedExternalIds() {
+        return Collections.unmodifiableList(unchangedExternalIds);
+    }
+
+    /**
+     * Rader vars innehållshash matchade den sparade och därför aldrig skickades till databasen
+     */
+    public List<String> getSkippedExternalIds() {
+        return Collections.unmodifiableList(skippedExternalIds);
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public int getInsertedCount() {
+        return insertedExternalIds.size();
+    }
+
+    public int getUpdatedCount() {
+        return updatedExternalIds.size();
+    }
+
+    public int getUnchangedCount() {
+        return unchangedExternalIds.size();
+    }
+
+    public int getSkippedCount() {
+        return skippedExternalIds.size();
+    }
+
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    public int getSuccessfulCount() {
+        return getInsertedCount() + getUpdatedCount() + getUnchangedCount() + getSkippedCount();
+    }
+
+    @Override
+    public String toString() {
+        return "JobListingUpsertResult{" +
+                "inserted=" + getInsertedCount() +
+                ", updated=" + getUpdatedCount() +
+                ", unchanged=" + getUnchangedCount() +
+                ", skipped=" + getSkippedCount() +
+                ", failed=" + getFailedCount() +
+                '}';
+    }
+
+    /**
+     * En rad som inte kunde sparas
+     */
+    public static class Failure {
+        private final JobListing job;
+        private final Exception error;
+
+        public Failure(JobListing job, Exception error) {
+            this.job = job;
+            this.error = error;
+        }
+
+        public JobListing getJob() { return job; }
+        public Exception getError() { return error; }
+    }
+}
@@ -0,0 +1,41 @@
+package se.stegroo.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ett jobbs kompetenser som id:n, läst utan att ladda entiteter. Används för att bygga
+ * rekommendationsindexet.
+ */
+public class JobSkillSet {
+
+    private final long jobId;
+    private final boolean active;
+    private final LocalDateTime updatedAt;
+    private final long[] skillIds;
+
+    public JobSkillSet(long jobId, boolean active, LocalDateTime updatedAt, long[] skillIds) {
+        this.jobId = jobId;
+        this.active = active;
+        this.updatedAt = updatedAt;
+        this.skillIds = skillIds;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Om annonsen har status {@code ACTIVE}
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public long[] getSkillIds() {
+        return skillIds;
+    }
+}
@@ -47,6 +47,12 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, Long>
     @Query("SELECT u FROM UserProfile u JOIN u.skills s WHERE s.id = :skillId")
     List<UserProfile> findBySkillId(@Param("skillId") Long skillId);
 
+    /**
+     * Hämta id:n för en användares kompetenser utan att ladda profilen
+     */
+    @Query("SELECT s.id FROM UserProfile u JOIN u.skills s WHERE u.userId = :userId")
+    List<Long> findSkillIdsByUserId(@Param("userId") String userId);
+
     /**
      * Hitta användare som har flera specifika kompetenser
      */
@@ -2,6 +2,7 @@ package se.stegroo.backend.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -9,22 +10,39 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import se.stegroo.backend.config.MetricsConfig;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongSupplier;
 
 /**
  * Validerar JWT-tokens från Supabase Auth.
+ * <p>
+ * Parsern byggs en gång. Giltiga tokens cachas på sin SHA-256-summa tills tokenens {@code exp},
+ * så att en token som skickas med varje anrop i en session bara behöver verifieras en gång.
+ * Cachen begränsas i antal poster (LRU). Ogiltiga tokens och tokens utan {@code exp} cachas inte.
  */
 public class JwtTokenValidator {
 
     private static final Logger log = LoggerFactory.getLogger(JwtTokenValidator.class);
-    
-    private final Key key;
+
+    static final int DEFAULT_CACHE_MAX_ENTRIES = 10_000;
+
+    private final JwtParser parser;
     private final String issuer;
+    private final MetricsConfig metricsConfig;
+    private final LongSupplier clock;
+    private final int cacheMaxEntries;
+    private final Map<TokenDigest, CachedAuthentication> cache;
 
     /**
      * Skapar en ny JwtTokenValidator.
@@ -33,8 +51,43 @@ public class JwtTokenValidator {
      * @param issuer JWT-utfärdare (issuer) från Supabase
      */
     public JwtTokenValidator(String secret, String issuer) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this(secret, issuer, DEFAULT_CACHE_MAX_ENTRIES, null);
+    }
+
+    /**
+     * Skapar en ny JwtTokenValidator med valideringscache.
+     *
+     * @param secret JWT-hemlighet från Supabase
+     * @param issuer JWT-utfärdare (issuer) från Supabase
+     * @param cacheMaxEntries Max antal cachade tokens, 0 stänger av cachen
+     * @param metricsConfig Metrics för cachens träffar, kan vara null
+     */
+    public JwtTokenValidator(String secret, String issuer, int cacheMaxEntries, MetricsConfig metricsConfig) {
+        this(secret, issuer, cacheMaxEntries, metricsConfig, System::currentTimeMillis);
+    }
+
+    JwtTokenValidator(String secret, String issuer, int cacheMaxEntries, MetricsConfig metricsConfig, LongSupplier clock) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .setClock(() -> new Date(clock.getAsLong()))
+                .build();
         this.issuer = issuer;
+        this.metricsConfig = metricsConfig;
+        this.clock = clock;
+        this.cacheMaxEntries = Math.max(0, cacheMaxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TokenDigest, CachedAuthentication> eldest) {
+                if (size() > JwtTokenValidator.this.cacheMaxEntries) {
+                    if (metricsConfig != null) {
+                        metricsConfig.recordJwtCacheEviction();
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
     }
 
     /**
@@ -44,41 +97,85 @@ public class JwtTokenValidator {
      * @return Authentication-objekt om token är giltig, null annars
      */
     public Authentication validateToken(String token) {
+        if (cacheMaxEntries == 0 || token == null) {
+            return parse(token, null);
+        }
+
+        TokenDigest digest = TokenDigest.of(token);
+        CachedAuthentication cached;
+        synchronized (cache) {
+            cached = cache.get(digest);
+            if (cached != null && clock.getAsLong() > cached.expiresAtMillis) {
+                cache.remove(digest);
+                cached = null;
+            }
+        }
+        if (metricsConfig != null) {
+            if (cached != null) {
+                metricsConfig.recordJwtCacheHit();
+            } else {
+                metricsConfig.recordJwtCacheMiss();
+            }
+        }
+        if (cached != null) {
+            // Ny instans per anrop, Authentication är föränderlig (t.ex. setDetails)
+            return new UsernamePasswordAuthenticationToken(cached.userId, null, cached.authorities);
+        }
+        return parse(token, digest);
+    }
+
+    /**
+     * Antal cachade tokens
+     */
+    public int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Verifierar signaturen och bygger Authentication, cachar resultatet om digest anges
+     */
+    private Authentication parse(String token, TokenDigest digest) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
 
             // Verifiera utfärdare
-            if (!claims.getIssuer().equals(issuer)) {
+            if (!issuer.equals(claims.getIssuer())) {
                 log.warn("Invalid issuer: {}", claims.getIssuer());
                 return null;
             }
 
             // Hämta användar-ID från token
             String userId = claims.getSubject();
-            
+
             // Hämta roller från token
             List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-            
+
             // Lägg till standardroll
             authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
-            
+
             // Lägg till eventuella ytterligare roller från token
             if (claims.get("app_metadata") instanceof Map) {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> appMetadata = (Map<String, Object>) claims.get("app_metadata");
-                
+
                 if (appMetadata.get("roles") instanceof List) {
                     @SuppressWarnings("unchecked")
                     List<String> roles = (List<String>) appMetadata.get("roles");
-                    
+
                     roles.forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
                 }
             }
-            
+
+            Date expiration = claims.getExpiration();
+            if (digest != null && expiration != null) {
+                CachedAuthentication entry = new CachedAuthentication(userId, List.copyOf(authorities), expiration.getTime());
+                synchronized (cache) {
+                    cache.put(digest, entry);
+                }
+            }
+
             // Skapa Authentication-objekt
             return new UsernamePasswordAuthenticationToken(userId, null, authorities);
         } catch (JwtException | IllegalArgumentException e) {
@@ -86,4 +183,48 @@ public class JwtTokenValidator {
             return null;
         }
     }
+
+    /**
+     * SHA-256 av tokenen, så att cachen inte håller själva tokens i minnet
+     */
+    private static final class TokenDigest {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private TokenDigest(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        static TokenDigest of(String token) {
+            try {
+                return new TokenDigest(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 finns i alla JVM:er
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TokenDigest && Arrays.equals(hash, ((TokenDigest) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class CachedAuthentication {
+        private final String userId;
+        private final List<SimpleGrantedAuthority> authorities;
+        private final long expiresAtMillis;
+
+        CachedAuthentication(String userId, List<SimpleGrantedAuthority> authorities, long expiresAtMillis) {
+            this.userId = userId;
+            this.authorities = authorities;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
 }
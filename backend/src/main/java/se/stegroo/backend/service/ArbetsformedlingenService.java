@@ -1,27 +1,43 @@
 package se.stegroo.backend.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClient;
+import se.stegroo.backend.config.MetricsConfig;
 import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.exception.AfApiException;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.repository.JobListingRepository;
-import se.stegroo.backend.repository.JobCategoryRepository;
+import se.stegroo.backend.repository.JobListingUpsertResult;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -48,24 +64,54 @@ public class ArbetsformedlingenService {
     @Value("${job-sync.max-chunks:500}")
     private int maxChunks;
     
+    @Value("${job-sync.stream-batch-size:500}")
+    private int streamBatchSize;
+    
+    @Value("${job-sync.pipeline.fetch-concurrency:2}")
+    private int fetchConcurrency;
+    
+    @Value("${job-sync.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+    
+    @Value("${job-sync.pipeline.persistence-workers:3}")
+    private int persistenceWorkers;
+    
+    @Value("${job-sync.rate-limit.requests-per-second:1.0}")
+    private double rateLimitPerSecond;
+    
+    @Value("${job-sync.rate-limit.burst:2}")
+    private int rateLimitBurst;
+    
     private final RestClient restClient;
-    private final JobCategoryRepository jobCategoryRepository;
+    private final JobCategoryCache jobCategoryCache;
     private final JobListingRepository jobListingRepository;
     private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final JobExpirationService jobExpirationService;
+    private final MetricsConfig metricsConfig;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     public ArbetsformedlingenService(
             @Value("${af.api.base-url}") String baseUrl,
             @Value("${af.api.key:}") String apiKey,
             RestClient restClient,
-            JobCategoryRepository jobCategoryRepository,
+            JobCategoryCache jobCategoryCache,
             JobListingRepository jobListingRepository,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            JobExpirationService jobExpirationService,
+            MetricsConfig metricsConfig) {
         this.baseUrl = baseUrl;
         this.apiKey = apiKey;
         this.restClient = restClient;
-        this.jobCategoryRepository = jobCategoryRepository;
+        this.jobCategoryCache = jobCategoryCache;
         this.jobListingRepository = jobListingRepository;
         this.objectMapper = objectMapper;
+        this.transactionManager = transactionManager;
+        this.jobExpirationService = jobExpirationService;
+        this.metricsConfig = metricsConfig;
     }
     
     /**
@@ -128,26 +174,19 @@ public class ArbetsformedlingenService {
         String url = baseUrl + "/stream?date=" + date.toString();
         
         try {
-            String jsonResponse = restClient.get()
+            List<JobListing> jobs = new ArrayList<>();
+            Integer adsRead = restClient.get()
                     .uri(url)
                     .header("Accept", "application/json")
-                    .retrieve()
-                    .body(String.class);
-            
-            if (jsonResponse != null && !jsonResponse.trim().isEmpty()) {
-                List<AfJobStreamJob> afJobs = objectMapper.readValue(
-                    jsonResponse, 
-                    new TypeReference<List<AfJobStreamJob>>() {}
-                );
-                
-                log.info("Parsade {} jobb från API för datum {}", afJobs.size(), date);
-                
-                return afJobs.stream()
-                    .map(this::convertAfJobToJobListing)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toList());
-            }
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode() != HttpStatus.OK) {
+                            throw new AfApiException("Stream API returnerade felstatus: " + response.getStatusCode());
+                        }
+                        return readAdsStreaming(response.getBody(), ads -> jobs.addAll(convertAll(ads)));
+                    });
+            
+            log.info("Parsade {} jobb från API för datum {}", adsRead, date);
+            return jobs;
             
         } catch (Exception e) {
             log.warn("Fel vid hämtning av jobb för datum {}: {}", date, e.getMessage());
@@ -157,64 +196,39 @@ public class ArbetsformedlingenService {
     }
     
     /**
-     * Sparar en lista med jobb till databasen
+     * Sparar en lista med jobb till databasen med en set-baserad upsert på externalId.
+     * Befintliga jobb skrivs alltid över med den nya datan.
+     * 
+     * @return Antal nya jobb som sparades
      */
     @Transactional
     public int saveJobsToDatabase(List<JobListing> jobs) {
-        int savedCount = 0;
-        
+        List<JobListing> upsertable = new ArrayList<>(jobs.size());
         for (JobListing job : jobs) {
-            try {
-                // Kontrollera om jobbet redan finns baserat på externalId
-                if (job.getExternalId() != null) {
-                    Optional<JobListing> existingJob = jobListingRepository.findByExternalId(job.getExternalId());
-                    
-                    if (existingJob.isPresent()) {
-                        // Uppdatera befintligt jobb
-                        JobListing existing = existingJob.get();
-                        updateExistingJob(existing, job);
-                        jobListingRepository.save(existing);
-                        log.debug("Uppdaterade befintligt jobb: {}", job.getTitle());
-                    } else {
-                        // Spara nytt jobb
-                        job.setSource("arbetsformedlingen");
-                        job.setStatus(JobListing.Status.ACTIVE);
-                        jobListingRepository.save(job);
-                        savedCount++;
-                        log.debug("Sparade nytt jobb: {}", job.getTitle());
-                    }
-                }
-                
-            } catch (Exception e) {
-                log.error("Fel vid sparande av jobb '{}': {}", job.getTitle(), e.getMessage());
+            // Jobb utan externalId kan inte matchas mot befintliga och hoppas över
+            if (job.getExternalId() != null) {
+                job.setSource("arbetsformedlingen");
+                job.setStatus(JobListing.Status.ACTIVE);
+                upsertable.add(job);
             }
         }
         
-        return savedCount;
-    }
-    
-    /**
-     * Uppdaterar ett befintligt jobb med ny data
-     */
-    private void updateExistingJob(JobListing existing, JobListing newJob) {
-        existing.setTitle(newJob.getTitle());
-        existing.setDescription(newJob.getDescription());
-        existing.setCompanyName(newJob.getCompanyName());
-        existing.setLocation(newJob.getLocation());
-        existing.setEmploymentType(newJob.getEmploymentType());
-        existing.setWorkingHoursType(newJob.getWorkingHoursType());
-        existing.setPublishedAt(newJob.getPublishedAt());
-        existing.setDeadline(newJob.getDeadline());
-        existing.setExternalUrl(newJob.getExternalUrl());
-        existing.setLastModified(LocalDateTime.now());
-        existing.setRaw(newJob.getRaw());
-        
-        // Uppdatera kategori om den har ändrats
-        if (newJob.getCategory() != null) {
-            existing.setCategory(newJob.getCategory());
+        if (upsertable.isEmpty()) {
+            return 0;
+        }
+        
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(
+                upsertable, JobListingRepository.UpsertPolicy.ALWAYS);
+        
+        for (JobListingUpsertResult.Failure failure : result.getFailures()) {
+            log.error("Fel vid sparande av jobb '{}': {}", failure.getJob().getTitle(), failure.getError().getMessage());
         }
+        
+        log.debug("Sparade {} nya och uppdaterade {} befintliga jobb", 
+                result.getInsertedCount(), result.getUpdatedCount());
+        return result.getInsertedCount();
     }
-
+    
     /**
      * Hämtar alla tillgängliga jobb från Arbetsförmedlingen (legacy metod)
      */
@@ -249,60 +263,165 @@ public class ArbetsformedlingenService {
      * @return Lista med JobListing-objekt från den aktuella chunken
      */
     public List<JobListing> fetchJobsFromSnapshot(int chunkSize, int chunkIndex) {
-        log.info("Hämtar snapshot chunk {} med storlek {}", chunkIndex, chunkSize);
+        List<JobListing> jobListings = new ArrayList<>();
+        streamJobsFromSnapshot(chunkSize, chunkIndex, (jobs, index) -> {
+            jobListings.addAll(jobs);
+            return jobs.size();
+        });
+        return jobListings;
+    }
+    
+    /**
+     * Strömmar en chunk från snapshot endpoint annons för annons. Svaret läses
+     * direkt från nätverksströmmen med Jacksons {@link MappingIterator}, varje annons
+     * konverteras direkt och skickas vidare i batchar om {@code job-sync.stream-batch-size}
+     * till processorn. Hela chunken hålls aldrig i minnet samtidigt.
+     * 
+     * @param chunkSize Storleken på chunken som hämtas
+     * @param chunkIndex Index för chunken som ska hämtas (0-baserat)
+     * @param processor Callback som anropas för varje batch av konverterade jobb
+     * @return Resultat med antal lästa annonser och antal bearbetade jobb
+     */
+    public ChunkStreamResult streamJobsFromSnapshot(int chunkSize, int chunkIndex, ChunkProcessor processor) {
+        log.info("Strömmar snapshot chunk {} med storlek {}", chunkIndex, chunkSize);
         
         String url = baseUrl + "/snapshot";
         int offset = chunkIndex * chunkSize;
         
         try {
-            // Använd query parameters för paginering
-            // API:t fungerar utan API-nyckel, men om det skulle behövas i framtiden kan denna kod aktiveras
-            ResponseEntity<String> response = RestClient.create()
+            // API:t fungerar utan API-nyckel, men om det skulle behövas i framtiden kan header "api-key" läggas till
+            ChunkStreamResult result = restClient
                 .get()
                 .uri(url + "?offset=" + offset + "&limit=" + chunkSize)
                 .header("Accept", "application/json")
-                // .header("api-key", apiKey != null ? apiKey : "") // API-nyckel behövs inte för Arbetsförmedlingens API
-                .retrieve()
-                .toEntity(String.class);
-            
-            // Kontrollera HTTP status
-            if (response.getStatusCode() != HttpStatus.OK) {
-                log.error("Snapshot API returnerade felstatus: {}", response.getStatusCode());
-                return new ArrayList<>();
-            }
-            
-            String jsonResponse = response.getBody();
-            if (jsonResponse == null || jsonResponse.trim().isEmpty()) {
-                log.warn("Snapshot API returnerade tomt svar för chunk {}", chunkIndex);
-                return new ArrayList<>();
-            }
-            
-            // Parsa JSON-svaret till AfJobStreamJob objekt
-            List<AfJobStreamJob> afJobs = objectMapper.readValue(
-                jsonResponse, 
-                new TypeReference<List<AfJobStreamJob>>() {}
-            );
-            
-            log.info("✅ Snapshot chunk {} hämtad! Fick {} jobb från Arbetsförmedlingen", 
-                    chunkIndex, afJobs.size());
-            
-            // Konvertera till våra interna JobListing objekt
-            List<JobListing> jobListings = afJobs.stream()
-                .map(this::convertAfJobToJobListing)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+                .exchange((request, response) -> {
+                    if (response.getStatusCode() != HttpStatus.OK) {
+                        log.error("Snapshot API returnerade felstatus: {}", response.getStatusCode());
+                        return new ChunkStreamResult(0, 0);
+                    }
+                    return readJobsStreaming(response.getBody(), chunkIndex, processor);
+                });
             
-            log.info("Konverterade {} jobb till interna modeller i chunk {}", 
-                    jobListings.size(), chunkIndex);
-            return jobListings;
+            log.info("✅ Snapshot chunk {} strömmad! {} annonser lästa, {} jobb bearbetade", 
+                    chunkIndex, result.getAdsRead(), result.getProcessed());
+            return result;
             
         } catch (Exception e) {
             log.error("Fel vid hämtning av snapshot chunk {}: {}", chunkIndex, e.getMessage(), e);
-            return new ArrayList<>();
+            return new ChunkStreamResult(0, 0);
         }
     }
-
+    
+    /**
+     * Läser en JSON-array med annonser token för token från en ström och skickar
+     * konverterade jobb till processorn i begränsade batchar.
+     * 
+     * @param inputStream Ström med en JSON-array av AfJobStreamJob
+     * @param chunkIndex Index för chunken som strömmen tillhör
+     * @param processor Callback som anropas för varje batch
+     * @return Resultat med antal lästa annonser och antal bearbetade jobb
+     */
+    public ChunkStreamResult readJobsStreaming(InputStream inputStream, int chunkIndex, ChunkProcessor processor) 
+            throws IOException {
+        AtomicInteger processed = new AtomicInteger(0);
+        
+        int adsRead = readAdsStreaming(inputStream, ads -> {
+            List<JobListing> jobs = convertAll(ads);
+            if (!jobs.isEmpty()) {
+                processed.addAndGet(processor.processChunk(jobs, chunkIndex));
+            }
+        });
+        
+        return new ChunkStreamResult(adsRead, processed.get());
+    }
+    
+    /**
+     * Läser en JSON-array med annonser token för token och lämnar dem okonverterade
+     * i batchar om högst {@code job-sync.stream-batch-size} till sink.
+     * 
+     * @return Antal lästa annonser
+     */
+    int readAdsStreaming(InputStream inputStream, Consumer<List<AfJobStreamJob>> sink) throws IOException {
+        int batchLimit = Math.max(1, streamBatchSize);
+        List<AfJobStreamJob> batch = new ArrayList<>(batchLimit);
+        int adsRead = 0;
+        
+        try (MappingIterator<AfJobStreamJob> iterator = objectMapper
+                .readerFor(AfJobStreamJob.class)
+                .readValues(inputStream)) {
+            
+            while (iterator.hasNextValue()) {
+                batch.add(iterator.nextValue());
+                adsRead++;
+                
+                if (batch.size() >= batchLimit) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchLimit);
+                }
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+        
+        return adsRead;
+    }
+    
+    /**
+     * Hämtar en chunk från snapshot endpoint och strömmar okonverterade annonser till sink.
+     * Till skillnad från {@link #streamJobsFromSnapshot} kastas fel vidare så att
+     * anroparen kan avgöra hur chunken ska hanteras.
+     * 
+     * @return Antal lästa annonser
+     */
+    int fetchSnapshotChunk(long offset, int chunkSize, int chunkIndex, Consumer<List<AfJobStreamJob>> sink) {
+        log.debug("Hämtar snapshot chunk {} (offset {})", chunkIndex, offset);
+        
+        Integer adsRead = restClient
+            .get()
+            .uri(baseUrl + "/snapshot?offset=" + offset + "&limit=" + chunkSize)
+            .header("Accept", "application/json")
+            .exchange((request, response) -> {
+                if (response.getStatusCode() != HttpStatus.OK) {
+                    throw new AfApiException("Snapshot API returnerade felstatus: " + response.getStatusCode());
+                }
+                return readAdsStreaming(response.getBody(), sink);
+            });
+        
+        return adsRead != null ? adsRead : 0;
+    }
+    
+    /**
+     * Konverterar en batch annonser. Annonser som strömmen rapporterar som borttagna
+     * konverteras inte utan markeras som REMOVED i databasen i en sats.
+     */
+    private List<JobListing> convertAll(List<AfJobStreamJob> ads) {
+        List<JobListing> jobs = new ArrayList<>(ads.size());
+        Map<String, LocalDateTime> removed = new LinkedHashMap<>();
+        for (AfJobStreamJob ad : ads) {
+            if (isRemoved(ad)) {
+                if (ad.getId() != null) {
+                    removed.put(ad.getId(), ad.getRemovedDate());
+                }
+                continue;
+            }
+            convertAfJobToJobListing(ad).ifPresent(jobs::add);
+        }
+        if (!removed.isEmpty() && jobExpirationService != null) {
+            try {
+                jobExpirationService.markRemoved(removed);
+            } catch (Exception e) {
+                log.error("Fel vid markering av {} borttagna annonser: {}", removed.size(), e.getMessage());
+            }
+        }
+        return jobs;
+    }
+    
+    private static boolean isRemoved(AfJobStreamJob ad) {
+        return Boolean.TRUE.equals(ad.getRemoved());
+    }
+    
     /**
      * Hämtar endast 1 jobb från snapshot endpoint för testning
      * @return Lista med max 1 JobListing-objekt
@@ -315,7 +434,7 @@ public class ArbetsformedlingenService {
         try {
             // Hämta endast 1 jobb med limit=1
             // API:t fungerar utan API-nyckel, men om det skulle behövas i framtiden kan denna kod aktiveras
-            ResponseEntity<String> response = RestClient.create()
+            ResponseEntity<String> response = restClient
                 .get()
                 .uri(url + "?offset=0&limit=1")
                 .header("Accept", "application/json")
@@ -371,62 +490,74 @@ public class ArbetsformedlingenService {
     
     /**
      * Utför en full synkronisering från snapshot endpoint med chunking
-     * och återanvändbar processningslogik
+     * och återanvändbar processningslogik.
+     * 
+     * Hämtning, konvertering och persistens körs som en pipeline (se {@link SnapshotSyncPipeline})
+     * där upp till {@code job-sync.pipeline.fetch-concurrency} chunkar hämtas samtidigt och
+     * anropstakten mot API:t begränsas av en token bucket.
      * 
-     * @param processor Callback-funktion som anropas för varje chunk av jobb
+     * Metoden är inte transaktionell: varje chunk committas i en egen kort transaktion,
+     * så en avbruten körning behåller de chunkar som redan är klara.
+     * 
+     * @param processor Callback-funktion som anropas för varje batch av jobb
      * @return Totala antalet bearbetade jobb
      */
-    @Transactional
     public int syncFullSnapshotWithChunking(ChunkProcessor processor) {
-        log.info("Startar full snapshot-synkronisering med chunking");
-        
-        AtomicInteger totalProcessed = new AtomicInteger(0);
-        AtomicInteger successfulChunks = new AtomicInteger(0);
-        AtomicInteger failedChunks = new AtomicInteger(0);
-        
         try {
-            // Begränsa till maxChunks för att undvika oändliga loopar
-            for (int chunkIndex = 0; chunkIndex < maxChunks; chunkIndex++) {
-                try {
-                    log.info("Bearbetar snapshot chunk {}/{} (max)", chunkIndex + 1, maxChunks);
-                    
-                    // Hämta chunken av jobb
-                    List<JobListing> jobs = fetchJobsFromSnapshot(snapshotChunkSize, chunkIndex);
-                    
-                    if (jobs.isEmpty()) {
-                        log.info("Inga fler jobb att hämta efter chunk {}", chunkIndex);
-                        break;
-                    }
-                    
-                    // Processera chunken med den angivna processorn
-                    int processedInChunk = processor.processChunk(jobs, chunkIndex);
-                    totalProcessed.addAndGet(processedInChunk);
-                    successfulChunks.incrementAndGet();
-                    
-                    log.info("Chunk {} bearbetad: {} jobb, totalt: {}", 
-                            chunkIndex, processedInChunk, totalProcessed.get());
-                    
-                    // Kort paus för att inte överbelasta API:t
-                    if (chunkIndex < maxChunks - 1) {
-                        Thread.sleep(1000);
-                    }
-                    
-                } catch (Exception e) {
-                    failedChunks.incrementAndGet();
-                    log.error("Fel vid bearbetning av chunk {}: {}", chunkIndex, e.getMessage(), e);
-                    // Fortsätt med nästa chunk trots fel
-                }
-            }
-            
-            log.info("✅ Snapshot-synkronisering slutförd! {} jobb processerade, {} lyckade chunks, {} misslyckade chunks", 
-                    totalProcessed.get(), successfulChunks.get(), failedChunks.get());
-            return totalProcessed.get();
+            return syncSnapshotFromOffset(0, processor, offset -> {}).getTotalProcessed();
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("❌ Snapshot-synkronisering avbröts");
+            return 0;
         } catch (Exception e) {
             log.error("❌ Allvarligt fel vid snapshot-synkronisering: {}", e.getMessage(), e);
-            return totalProcessed.get();
+            return 0;
         }
     }
+    
+    /**
+     * Synkroniserar snapshot med början på en given offset, t.ex. för att återuppta en
+     * avbruten körning. Chunkarna hämtas från {@code startOffset} och framåt.
+     * 
+     * Varje chunk skrivs i en egen transaktion och upp till {@code job-sync.pipeline.persistence-workers}
+     * chunkar skrivs samtidigt. {@code committedOffsetListener} anropas i transaktionen för den chunk som
+     * flyttar fram vattenmärket, så en checkpoint som sparas där aldrig pekar förbi en chunk som inte är committad.
+     * Processorn måste därför tåla anrop från flera trådar.
+     * 
+     * @param startOffset Annonsoffset i snapshoten att börja på
+     * @param processor Callback-funktion som anropas för varje batch av jobb
+     * @param committedOffsetListener Får offseten efter varje färdigbearbetad chunk, i ordning
+     * @return Sammanställning av körningen
+     */
+    public SnapshotSyncPipeline.PipelineResult syncSnapshotFromOffset(
+            long startOffset, ChunkProcessor processor, LongConsumer committedOffsetListener) throws InterruptedException {
+        log.info("Startar snapshot-synkronisering från offset {} (max {} chunks, {} parallella hämtningar, {} persistensarbetare)",
+                startOffset, maxChunks, fetchConcurrency, persistenceWorkers);
+        
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> fetchSnapshotChunk(
+                        chunkOffset(startOffset, chunkIndex), snapshotChunkSize, chunkIndex, sink),
+                this::convertAfJobToJobListing,
+                new TokenBucketRateLimiter(rateLimitPerSecond, rateLimitBurst),
+                fetchConcurrency,
+                pipelineQueueCapacity,
+                maxChunks)
+                .withChunkTransactions(transactionManager, entityManager)
+                .withPersistenceWorkers(persistenceWorkers)
+                .withMetrics(metricsConfig);
+        
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run(processor, (chunkIndex, adsRead) ->
+                committedOffsetListener.accept(chunkOffset(startOffset, chunkIndex) + adsRead));
+        
+        log.info("✅ Snapshot-synkronisering slutförd! {} annonser lästa, {} jobb processerade, {} lyckade chunks, {} misslyckade chunks", 
+                result.getAdsRead(), result.getTotalProcessed(), result.getSuccessfulChunks(), result.getFailedChunks());
+        return result;
+    }
+    
+    private long chunkOffset(long startOffset, int chunkIndex) {
+        return startOffset + (long) chunkIndex * snapshotChunkSize;
+    }
 
     /**
      * Testar snapshot-funktionaliteten med endast 1 jobb för att undvika timeout
@@ -472,6 +603,29 @@ public class ArbetsformedlingenService {
         int processChunk(List<JobListing> jobs, int chunkIndex);
     }
     
+    /**
+     * Resultat från strömning av en snapshot-chunk
+     */
+    public static class ChunkStreamResult {
+        private final int adsRead;
+        private final int processed;
+        
+        public ChunkStreamResult(int adsRead, int processed) {
+            this.adsRead = adsRead;
+            this.processed = processed;
+        }
+        
+        /**
+         * Antal annonser som lästes från API-svaret, även de som inte gick att konvertera
+         */
+        public int getAdsRead() { return adsRead; }
+        
+        /**
+         * Antal jobb som processorn rapporterade som bearbetade
+         */
+        public int getProcessed() { return processed; }
+    }
+    
     /**
      * Hämtar riktiga jobb från Arbetsförmedlingens API
      */
@@ -487,38 +641,31 @@ public class ArbetsformedlingenService {
         // OBS: Arbetsförmedlingens API fungerar utan API-nyckel
         
         try {
-            String jsonResponse = restClient.get()
+            // Annonserna parsas direkt från (avkodad) nätverksström, svaret buffras aldrig som sträng
+            List<JobListing> jobListings = new ArrayList<>();
+            Integer adsRead = restClient.get()
                     .uri(url)
                     .header("Accept", "application/json")
-                    .retrieve()
-                    .body(String.class);
-            
-            if (jsonResponse != null && !jsonResponse.trim().isEmpty()) {
-                log.info("✅ API-anrop lyckades! Fick svar från Arbetsförmedlingen");
-                
-                // Parsa JSON-svaret till AfJobStreamJob objekt
-                List<AfJobStreamJob> afJobs = objectMapper.readValue(
-                    jsonResponse, 
-                    new TypeReference<List<AfJobStreamJob>>() {}
-                );
-                
-                log.info("Parsade {} jobb från API:t", afJobs.size());
-                
-                // Konvertera till våra interna JobListing objekt
-                List<JobListing> jobListings = afJobs.stream()
-                    .limit(limit)
-                    .map(this::convertAfJobToJobListing)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toList());
-                
-                log.info("Konverterade {} jobb till interna modeller", jobListings.size());
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode() != HttpStatus.OK) {
+                            throw new AfApiException("Stream API returnerade felstatus: " + response.getStatusCode());
+                        }
+                        return readAdsStreaming(response.getBody(), ads -> {
+                            int remaining = limit - jobListings.size();
+                            if (remaining > 0) {
+                                jobListings.addAll(convertAll(ads.subList(0, Math.min(remaining, ads.size()))));
+                            }
+                        });
+                    });
+            
+            if (adsRead != null && adsRead > 0) {
+                log.info("✅ API-anrop lyckades! Parsade {} jobb och konverterade {} till interna modeller",
+                        adsRead, jobListings.size());
                 return jobListings;
-                
-            } else {
-                log.warn("API returnerade tomt svar");
-                return generateMockJobs(limit);
             }
+            
+            log.warn("API returnerade tomt svar");
+            return generateMockJobs(limit);
         } catch (Exception e) {
             log.error("Fel vid JSON-parsing av API-svar: {}", e.getMessage());
             log.warn("Faller tillbaka på mock-data");
@@ -529,7 +676,11 @@ public class ArbetsformedlingenService {
     /**
      * Konverterar AfJobStreamJob från API:t till intern JobListing
      */
-    private Optional<JobListing> convertAfJobToJobListing(AfJobStreamJob afJob) {
+    Optional<JobListing> convertAfJobToJobListing(AfJobStreamJob afJob) {
+        // Borttagna annonser saknar innehåll och hanteras av convertAll
+        if (isRemoved(afJob)) {
+            return Optional.empty();
+        }
         try {
             JobListing jobListing = new JobListing();
             
@@ -571,7 +722,9 @@ public class ArbetsformedlingenService {
             // Kategori - använd occupation_field som kategori
             if (afJob.getOccupationField() != null) {
                 JobCategory category = resolveOrCreateCategory(afJob.getOccupationField().getLabel());
-                jobListing.setCategory(category);
+                if (category != null) {
+                    jobListing.setCategory(category);
+                }
             }
             
             // Anställningstyp
@@ -584,9 +737,12 @@ public class ArbetsformedlingenService {
                 jobListing.setWorkingHoursType(afJob.getWorkingHoursType().getLabel());
             }
             
-            // Spara rådata för debugging
+            // Spara rådata för debugging. Hashen beräknas över samma normaliserade serialisering
+            // så att oförändrade annonser kan hoppas över vid nästa synk
             try {
-                jobListing.setRaw(objectMapper.writeValueAsString(afJob));
+                String raw = objectMapper.writeValueAsString(afJob);
+                jobListing.setRaw(raw);
+                jobListing.setContentHash(contentHash(raw));
             } catch (Exception e) {
                 log.warn("Kunde inte serialisera rådata för jobb {}: {}", afJob.getId(), e.getMessage());
             }
@@ -648,32 +804,20 @@ public class ArbetsformedlingenService {
     
     
     /**
-     * Löser eller skapar en jobbkategori baserat på kategorinamn
+     * Beräknar SHA-256 (hex) av annonsens normaliserade JSON
+     */
+    private String contentHash(String normalizedJson) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(normalizedJson.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Löser eller skapar en jobbkategori baserat på kategorinamn. Uppslagningen går mot
+     * {@link JobCategoryCache} och returnerar en fristående referens, eftersom konvertering
+     * sker utanför transaktion (t.ex. i snapshot-pipelinen).
      */
     private JobCategory resolveOrCreateCategory(String categoryName) {
-        if (categoryName == null || categoryName.trim().isEmpty()) {
-            return null;
-        }
-        
-        // Försök hitta befintlig kategori
-        Optional<JobCategory> existingCategory = jobCategoryRepository.findByNameAndTaxonomyType(
-                categoryName, JobCategory.TaxonomyType.OCCUPATION);
-        if (existingCategory.isPresent()) {
-            return existingCategory.get();
-        }
-        
-        // Skapa ny kategori
-        JobCategory newCategory = new JobCategory();
-        newCategory.setName(categoryName);
-        newCategory.setDescription("Kategori från Arbetsförmedlingen: " + categoryName);
-        newCategory.setTaxonomyType(JobCategory.TaxonomyType.OCCUPATION);
-        newCategory.setHierarchyLevel(0);
-        newCategory.setHierarchyPath(categoryName);
-        newCategory.setIsActive(true);
-        newCategory.setCreatedAt(LocalDateTime.now());
-        newCategory.updateSyncInfo();
-        
-        return jobCategoryRepository.save(newCategory);
+        return jobCategoryCache.getOrCreate(categoryName, JobCategory.TaxonomyType.OCCUPATION);
     }
     
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package se.stegroo.backend.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import se.stegroo.backend.model.SyncCheckpoint;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Optional;
@@ -12,13 +14,16 @@ import java.util.Optional;
 /**
  * Service för cursor-baserad paginering.
  * Används för att hantera stora datamängder från Jobstream API
- * utan att förlora positionen under synkronisering.
+ * utan att förlora positionen under synkronisering, samt keyset-paginering
+ * för API:ets jobblistningar.
  */
 @Service
 public class CursorPaginationService {
     
     private static final Logger log = LoggerFactory.getLogger(CursorPaginationService.class);
     
+    private static final String KEYSET_PREFIX = "KEYSET";
+    
     /**
      * Skapar en cursor baserat på jobbdata
      */
@@ -149,6 +154,63 @@ public class CursorPaginationService {
         return Optional.empty();
     }
     
+    /**
+     * Skapar en keyset-cursor för API-paginering över (sorteringsfält, id).
+     * Cursorn är URL-säker och ska behandlas som opak av klienten.
+     *
+     * @param sortBy Fältet som sidan sorteras på
+     * @param direction Sorteringsriktning
+     * @param lastValue Sorteringsvärdet för sista raden på sidan
+     * @param lastId Id för sista raden på sidan
+     */
+    public String createKeysetCursor(String sortBy, Sort.Direction direction, Object lastValue, Long lastId) {
+        if (sortBy == null || direction == null || lastId == null) {
+            return null;
+        }
+        
+        // Värdet ligger sist så att det får innehålla avgränsaren
+        String cursorData = String.join("|", 
+                KEYSET_PREFIX, 
+                sortBy, 
+                direction.name(), 
+                lastId.toString(), 
+                lastValue != null ? lastValue.toString() : "");
+        
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursorData.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Dekoder en keyset-cursor. Värdet för tidsfält (allt utom id och title) tolkas här, så att
+     * en manipulerad eller avklippt cursor avvisas som ogiltig i stället för att fallera i frågan.
+     *
+     * @return Cursor-information, eller null om cursorn saknas eller är ogiltig
+     */
+    public KeysetCursor decodeKeysetCursor(String cursor) {
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return null;
+        }
+        
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 5);
+            
+            if (parts.length == 5 && KEYSET_PREFIX.equals(parts[0])) {
+                if (!"id".equals(parts[1]) && !"title".equals(parts[1])) {
+                    LocalDateTime.parse(parts[4]);
+                }
+                return new KeysetCursor(
+                        parts[1], 
+                        Sort.Direction.valueOf(parts[2]), 
+                        parts[4], 
+                        Long.parseLong(parts[3]));
+            }
+        } catch (Exception e) {
+            log.warn("Kunde inte dekoda keyset-cursor: {}", cursor, e);
+        }
+        
+        return null;
+    }
+    
     /**
      * Information extraherad från en cursor
      */
@@ -184,4 +246,47 @@ public class CursorPaginationService {
                     '}';
         }
     }
+    
+    /**
+     * Position efter sista raden på en sida vid keyset-paginering
+     */
+    public static class KeysetCursor {
+        private final String sortBy;
+        private final Sort.Direction direction;
+        private final String value;
+        private final Long id;
+        
+        public KeysetCursor(String sortBy, Sort.Direction direction, String value, Long id) {
+            this.sortBy = sortBy;
+            this.direction = direction;
+            this.value = value;
+            this.id = id;
+        }
+        
+        public String getSortBy() {
+            return sortBy;
+        }
+        
+        public Sort.Direction getDirection() {
+            return direction;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        public Long getId() {
+            return id;
+        }
+        
+        @Override
+        public String toString() {
+            return "KeysetCursor{" +
+                    "sortBy='" + sortBy + '\'' +
+                    ", direction=" + direction +
+                    ", value='" + value + '\'' +
+                    ", id=" + id +
+                    '}';
+        }
+    }
 }
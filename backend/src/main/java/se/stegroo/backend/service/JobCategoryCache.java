@@ -0,0 +1,209 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.stegroo.backend.model.JobCategory;
+import se.stegroo.backend.repository.JobCategoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache för uppslagning av jobbkategorier på (namn, taxonomi-typ) vid konvertering av annonser.
+ * <p>
+ * Det finns bara några dussin kategorier men varje konverterad annons behöver en, så cachen
+ * laddas vid uppstart och konverteringen går sedan inte mot databasen. Saknade kategorier läses
+ * eller skapas utanför mappen, eftersom databasanropen annars skulle hålla mappens lås (och
+ * bärartråden för virtuella trådar). Samtidiga skapanden, på samma eller olika noder, löses av
+ * unika indexet på (name, taxonomy_type): förlorar vi racet läses vinnarens rad in istället och
+ * den första posten i mappen behålls.
+ * <p>
+ * Cachen returnerar fristående referenser som bara bär id, namn och typ. En ny referens skapas
+ * per anrop eftersom {@link se.stegroo.backend.model.JobListing#setCategory} lägger till jobbet
+ * i kategorins jobs-samling.
+ */
+@Service
+public class JobCategoryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCategoryCache.class);
+
+    private final JobCategoryRepository jobCategoryRepository;
+    private final TransactionTemplate requiresNewTransaction;
+
+    private final Map<CategoryKey, CachedCategory> categories = new ConcurrentHashMap<>();
+
+    public JobCategoryCache(JobCategoryRepository jobCategoryRepository, PlatformTransactionManager transactionManager) {
+        this.jobCategoryRepository = jobCategoryRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Laddar alla kategorier vid uppstart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int loaded = reload();
+            log.info("Kategoricache laddad med {} kategorier", loaded);
+        } catch (Exception e) {
+            // Cachen fylls lazy om uppvärmningen misslyckas
+            log.warn("Kunde inte ladda kategoricache vid uppstart: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Läser om alla kategorier från databasen
+     *
+     * @return Antal kategorier i cachen
+     */
+    public int reload() {
+        List<JobCategory> all = jobCategoryRepository.findAll();
+        categories.clear();
+        for (JobCategory category : all) {
+            if (category.getName() != null && category.getTaxonomyType() != null) {
+                categories.putIfAbsent(new CategoryKey(category.getName(), category.getTaxonomyType()),
+                        new CachedCategory(category.getId(), category.getName(), category.getTaxonomyType()));
+            }
+        }
+        return categories.size();
+    }
+
+    /**
+     * Hämtar eller skapar en kategori
+     *
+     * @return Fristående referens till kategorin, eller null om namnet är tomt eller kategorin inte kunde skapas
+     */
+    public JobCategory getOrCreate(String name, JobCategory.TaxonomyType taxonomyType) {
+        if (name == null || name.trim().isEmpty() || taxonomyType == null) {
+            return null;
+        }
+
+        CategoryKey key = new CategoryKey(name, taxonomyType);
+        CachedCategory cached = categories.get(key);
+        if (cached == null) {
+            try {
+                cached = loadOrCreate(key);
+            } catch (RuntimeException e) {
+                log.warn("Kunde inte lösa kategori {} ({}): {}", name, taxonomyType, e.getMessage());
+                return null;
+            }
+            if (cached != null) {
+                CachedCategory existing = categories.putIfAbsent(key, cached);
+                cached = existing != null ? existing : cached;
+            }
+        }
+        return cached != null ? cached.toReference() : null;
+    }
+
+    /**
+     * Tömmer cachen. Inom en transaktion töms den även efter commit så att
+     * ändringar som ännu inte är synliga inte fastnar i cachen.
+     */
+    public void invalidate() {
+        categories.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    categories.clear();
+                }
+            });
+        }
+        log.debug("Kategoricache invaliderad");
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+    /**
+     * Kan köras samtidigt för samma nyckel, unika indexet släpper bara igenom ett skapande
+     */
+    private CachedCategory loadOrCreate(CategoryKey key) {
+        JobCategory category = requiresNewTransaction.execute(status ->
+                jobCategoryRepository.findByNameAndTaxonomyType(key.name, key.taxonomyType).orElse(null));
+        if (category == null) {
+            try {
+                category = requiresNewTransaction.execute(status -> jobCategoryRepository.save(newCategory(key)));
+                log.info("Skapade ny kategori: {} (typ: {})", key.name, key.taxonomyType);
+            } catch (DataIntegrityViolationException e) {
+                // En annan tråd eller nod skapade kategorin efter vår uppslagning
+                log.debug("Kategori {} skapades samtidigt, läser om", key.name);
+                category = requiresNewTransaction.execute(status ->
+                        jobCategoryRepository.findByNameAndTaxonomyType(key.name, key.taxonomyType).orElse(null));
+            }
+        }
+        return category != null
+                ? new CachedCategory(category.getId(), category.getName(), category.getTaxonomyType())
+                : null;
+    }
+
+    private JobCategory newCategory(CategoryKey key) {
+        JobCategory category = new JobCategory();
+        category.setName(key.name);
+        category.setDescription("Kategori från Arbetsförmedlingen: " + key.name);
+        category.setTaxonomyType(key.taxonomyType);
+        category.setHierarchyLevel(0);
+        category.setHierarchyPath(key.name);
+        category.setIsActive(true);
+        category.setCreatedAt(LocalDateTime.now());
+        category.updateSyncInfo();
+        return category;
+    }
+
+    private static final class CategoryKey {
+        private final String name;
+        private final JobCategory.TaxonomyType taxonomyType;
+
+        CategoryKey(String name, JobCategory.TaxonomyType taxonomyType) {
+            this.name = name;
+            this.taxonomyType = taxonomyType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CategoryKey)) return false;
+            CategoryKey that = (CategoryKey) o;
+            return name.equals(that.name) && taxonomyType == that.taxonomyType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, taxonomyType);
+        }
+    }
+
+    private static final class CachedCategory {
+        private final Long id;
+        private final String name;
+        private final JobCategory.TaxonomyType taxonomyType;
+
+        CachedCategory(Long id, String name, JobCategory.TaxonomyType taxonomyType) {
+            this.id = id;
+            this.name = name;
+            this.taxonomyType = taxonomyType;
+        }
+
+        JobCategory toReference() {
+            JobCategory reference = new JobCategory();
+            reference.setId(id);
+            reference.setName(name);
+            reference.setTaxonomyType(taxonomyType);
+            return reference;
+        }
+    }
+}
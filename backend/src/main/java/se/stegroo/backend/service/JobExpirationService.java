@@ -0,0 +1,136 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.repository.JobListingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Håller annonsernas status i takt med verkligheten utan att ladda entiteter.
+ * <ul>
+ *     <li>Aktiva annonser vars sista ansökningsdag har passerat markeras {@code EXPIRED} av ett
+ *     schemalagt jobb, i begränsade batchar så att varje UPDATE bara låser ett fåtal rader.</li>
+ *     <li>Annonser som AF:s ström rapporterar som borttagna markeras {@code REMOVED} med
+ *     {@code removed_at}, på samma sätt.</li>
+ * </ul>
+ * Varje batch är en egen sats. Sökcachen töms när något har ändrats.
+ */
+@Service
+public class JobExpirationService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobExpirationService.class);
+
+    private final JobListingRepository jobListingRepository;
+    private final MetricsConfig metricsConfig;
+    private final JobSearchResultCache jobSearchResultCache;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public JobExpirationService(
+            JobListingRepository jobListingRepository,
+            MetricsConfig metricsConfig,
+            JobSearchResultCache jobSearchResultCache,
+            @Value("${job-expiration.batch-size:1000}") int batchSize,
+            @Value("${job-expiration.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jobListingRepository = jobListingRepository;
+        this.metricsConfig = metricsConfig;
+        this.jobSearchResultCache = jobSearchResultCache;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    /**
+     * Schemalagd markering av utgångna annonser
+     */
+    @Scheduled(cron = "${job-expiration.cron:0 5 * * * ?}")
+    public void scheduledExpiration() {
+        try {
+            expireOverdueJobs(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Fel vid markering av utgångna jobb", e);
+        }
+    }
+
+    /**
+     * Markerar aktiva annonser med deadline före {@code now} som utgångna. Kör batchar tills en
+     * batch blir ofull eller taket per körning nås; resten tas vid nästa körning.
+     *
+     * @return Antal annonser som markerades
+     */
+    public int expireOverdueJobs(LocalDateTime now) {
+        long start = System.currentTimeMillis();
+        int total = 0;
+        int batches = 0;
+
+        while (batches < maxBatchesPerRun) {
+            int expired = jobListingRepository.expireActiveBefore(now, batchSize);
+            batches++;
+            total += expired;
+            if (expired < batchSize) {
+                break;
+            }
+        }
+
+        if (metricsConfig != null) {
+            metricsConfig.recordJobsExpired(total, System.currentTimeMillis() - start);
+        }
+        if (total > 0) {
+            invalidateSearchCache();
+            log.info("Markerade {} jobb som utgångna i {} batchar", total, batches);
+        } else {
+            log.debug("Inga utgångna jobb att markera");
+        }
+        if (batches == maxBatchesPerRun && total == batches * batchSize) {
+            log.warn("Taket på {} batchar nåddes, resterande utgångna jobb markeras vid nästa körning", maxBatchesPerRun);
+        }
+        return total;
+    }
+
+    /**
+     * Markerar annonser som AF har tagit bort som {@code REMOVED}, i batchar om
+     * {@code job-expiration.batch-size}
+     *
+     * @param removedAtByExternalId externalId -> tidpunkt då annonsen togs bort, null ger nu
+     * @return Antal annonser som markerades
+     */
+    public int markRemoved(Map<String, LocalDateTime> removedAtByExternalId) {
+        if (removedAtByExternalId == null || removedAtByExternalId.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<String> externalIds = new ArrayList<>(removedAtByExternalId.keySet());
+        int total = 0;
+
+        for (int from = 0; from < externalIds.size(); from += batchSize) {
+            Map<String, LocalDateTime> batch = new LinkedHashMap<>();
+            for (String externalId : externalIds.subList(from, Math.min(from + batchSize, externalIds.size()))) {
+                batch.put(externalId, removedAtByExternalId.get(externalId));
+            }
+            total += jobListingRepository.markRemovedByExternalIds(batch, now);
+        }
+
+        if (metricsConfig != null) {
+            metricsConfig.recordJobsRemoved(total);
+        }
+        if (total > 0) {
+            invalidateSearchCache();
+        }
+        log.info("Markerade {} av {} borttagna annonser som REMOVED", total, removedAtByExternalId.size());
+        return total;
+    }
+
+    private void invalidateSearchCache() {
+        if (jobSearchResultCache != null) {
+            jobSearchResultCache.invalidate();
+        }
+    }
+}
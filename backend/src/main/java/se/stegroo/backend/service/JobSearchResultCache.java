@@ -0,0 +1,180 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.dto.JobSearchRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache för resultat av upprepade jobbsökningar.
+ * <p>
+ * Nyckeln är den normaliserade sökningen (inklusive sida och sortering) och värdet är träffarnas
+ * id:n i ordning plus totalantal, så att en träff bara kostar en uppslagning på primärnyckel.
+ * Cachen begränsas i antal poster (LRU) och med TTL.
+ * <p>
+ * Varje synk som skriver jobb höjer generationen via {@link #invalidate()}. Resultat som
+ * beräknades under en äldre generation sparas inte, så en sökning som pågick medan synken
+ * skrev kan inte lägga tillbaka gamla träffar.
+ */
+@Service
+public class JobSearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JobSearchResultCache.class);
+
+    private final MetricsConfig metricsConfig;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, CachedResult> entries;
+
+    public JobSearchResultCache(
+            MetricsConfig metricsConfig,
+            @Value("${job-search.cache.enabled:true}") boolean enabled,
+            @Value("${job-search.cache.max-entries:500}") int maxEntries,
+            @Value("${job-search.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.metricsConfig = metricsConfig;
+        this.enabled = enabled && maxEntries > 0 && ttlSeconds > 0;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > JobSearchResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Hämtar ett cachat resultat för sökningen
+     *
+     * @return Resultatet, eller null om det saknas, har gått ut eller tillhör en äldre generation
+     */
+    public CachedResult get(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        CachedResult result;
+        synchronized (entries) {
+            result = entries.get(key);
+            if (result != null && (result.generation != generation.get() || isExpired(result))) {
+                entries.remove(key);
+                result = null;
+            }
+        }
+        if (metricsConfig != null) {
+            if (result != null) {
+                metricsConfig.recordSearchCacheHit();
+            } else {
+                metricsConfig.recordSearchCacheMiss();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sparar ett resultat om generationen inte har ändrats sedan sökningen startade
+     *
+     * @param startGeneration Värdet från {@link #currentGeneration()} innan sökningen kördes
+     */
+    public void put(String key, long startGeneration, List<Long> ids, long totalElements) {
+        if (!enabled || key == null || ids.stream().anyMatch(Objects::isNull)) {
+            return;
+        }
+        synchronized (entries) {
+            if (startGeneration != generation.get()) {
+                return;
+            }
+            entries.put(key, new CachedResult(List.copyOf(ids), totalElements, startGeneration, System.nanoTime()));
+        }
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Påbörjar en ny generation och tömmer cachen. Anropas när en synk har skrivit jobb.
+     */
+    public void invalidate() {
+        long next;
+        synchronized (entries) {
+            next = generation.incrementAndGet();
+            entries.clear();
+        }
+        log.debug("Sökcache invaliderad, generation {}", next);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Bygger en cachenyckel av sökningen. Fritext och plats normaliseras så att
+     * "Stockholm " och "stockholm" delar post, eftersom sökningen trimmar och gemenar dem.
+     * Övriga fält jämförs exakt i frågan och ingår oförändrade.
+     *
+     * @return Nyckeln, eller null för sökningar som inte ska cachas (t.ex. keyset-cursor)
+     */
+    public static String keyFor(JobSearchRequest request) {
+        if (request == null || request.getCursor() != null) {
+            return null;
+        }
+        return String.join("|",
+                normalize(request.getQuery()),
+                normalize(request.getLocation()),
+                String.valueOf(request.getCategoryId()),
+                request.getSkillIds() != null ? new TreeSet<>(request.getSkillIds()).toString() : "",
+                String.valueOf(request.getEmploymentType()),
+                String.valueOf(request.getWorkingHoursType()),
+                String.valueOf(request.getStatus()),
+                String.valueOf(request.getDaysBack()),
+                String.valueOf(request.getMinSalary()),
+                String.valueOf(request.getMaxSalary()),
+                String.valueOf(request.getPage()),
+                String.valueOf(request.getSize()),
+                String.valueOf(request.getSortBy()),
+                String.valueOf(request.getSortDirection()));
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private boolean isExpired(CachedResult result) {
+        return System.nanoTime() - result.createdAtNanos > ttlNanos;
+    }
+
+    /**
+     * Cachat sökresultat: id:n i sorteringsordning och totalt antal träffar
+     */
+    public static final class CachedResult {
+        private final List<Long> ids;
+        private final long totalElements;
+        private final long generation;
+        private final long createdAtNanos;
+
+        CachedResult(List<Long> ids, long totalElements, long generation, long createdAtNanos) {
+            this.ids = ids;
+            this.totalElements = totalElements;
+            this.generation = generation;
+            this.createdAtNanos = createdAtNanos;
+        }
+
+        public List<Long> getIds() { return ids; }
+        public long getTotalElements() { return totalElements; }
+    }
+}
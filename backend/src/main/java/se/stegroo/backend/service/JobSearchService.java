@@ -3,14 +3,19 @@ package se.stegroo.backend.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import se.stegroo.backend.config.PostgresFullTextFunctionContributor;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.dto.JobSearchFacets;
 import se.stegroo.backend.dto.JobSearchRequest;
 import se.stegroo.backend.dto.JobSearchResponse;
+import se.stegroo.backend.dto.KeysetPage;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.model.Skill;
@@ -20,8 +25,16 @@ import se.stegroo.backend.repository.SkillRepository;
 
 import jakarta.persistence.criteria.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,17 +43,43 @@ public class JobSearchService {
 
     private static final Logger log = LoggerFactory.getLogger(JobSearchService.class);
 
+    /**
+     * Sorteringsvärde för att rangordna träffar med ts_rank när fulltextsökning finns
+     */
+    public static final String SORT_RELEVANCE = "relevance";
+
+    // Max antal söktermer som skickas till to_tsquery
+    private static final int MAX_QUERY_TERMS = 10;
+
+    /**
+     * Fält som stöder keyset-paginering. Alla är NOT NULL så att (fält, id) ger en total ordning.
+     */
+    private static final Set<String> KEYSET_SORT_FIELDS = Set.of("createdAt", "updatedAt", "title", "id");
+
+    private static final int MAX_KEYSET_PAGE_SIZE = 100;
+
+    /**
+     * Max antal värden per facett för plats och kompetens, som kan ha tusentals värden
+     */
+    public static final int DEFAULT_FACET_LIMIT = 20;
+
     private final JobListingRepository jobListingRepository;
     private final JobCategoryRepository jobCategoryRepository;
     private final SkillRepository skillRepository;
+    private final CursorPaginationService cursorPaginationService;
+    private final JobSearchResultCache resultCache;
 
     public JobSearchService(
             JobListingRepository jobListingRepository,
             JobCategoryRepository jobCategoryRepository,
-            SkillRepository skillRepository) {
+            SkillRepository skillRepository,
+            CursorPaginationService cursorPaginationService,
+            JobSearchResultCache resultCache) {
         this.jobListingRepository = jobListingRepository;
         this.jobCategoryRepository = jobCategoryRepository;
         this.skillRepository = skillRepository;
+        this.cursorPaginationService = cursorPaginationService;
+        this.resultCache = resultCache;
     }
 
     /**
@@ -49,11 +88,26 @@ public class JobSearchService {
     public JobSearchResponse searchJobs(JobSearchRequest request) {
         log.info("Söker jobb med kriterier: {}", request);
 
+        // Upprepade sökningar besvaras från cachen med en uppslagning på id
+        String cacheKey = JobSearchResultCache.keyFor(request);
+        JobSearchResultCache.CachedResult cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            return cachedResponse(request, cached);
+        }
+        long generation = resultCache.currentGeneration();
+
+        // Fulltextsökning via search_vector (PostgreSQL), annars LIKE
+        String tsQuery = fullTextQuery(request);
+        boolean rankByRelevance = tsQuery != null && SORT_RELEVANCE.equalsIgnoreCase(request.getSortBy());
+
         // Skapa specification för filtrering
-        Specification<JobListing> spec = createSearchSpecification(request);
+        Specification<JobListing> spec = createSearchSpecification(request, tsQuery);
+        if (rankByRelevance) {
+            spec = spec.and(orderByRelevance(tsQuery));
+        }
 
-        // Skapa sortering
-        Sort sort = createSort(request.getSortBy(), request.getSortDirection());
+        // Skapa sortering, relevanssortering sätts av specificationen
+        Sort sort = rankByRelevance ? Sort.unsorted() : createSort(request.getSortBy(), request.getSortDirection());
 
         // Skapa paginering
         Pageable pageable = PageRequest.of(
@@ -65,6 +119,10 @@ public class JobSearchService {
         // Utför sökning
         Page<JobListing> jobPage = jobListingRepository.findAll(spec, pageable);
 
+        resultCache.put(cacheKey, generation,
+                jobPage.getContent().stream().map(JobListing::getId).collect(Collectors.toList()),
+                jobPage.getTotalElements());
+
         // Konvertera till response
         JobSearchResponse response = JobSearchResponse.builder()
                 .jobs(jobPage.getContent())
@@ -77,7 +135,148 @@ public class JobSearchService {
                 .build();
         return response;
     }
+
+    /**
+     * Bygger svar från ett cachat resultat. Jobben läses på id och sorteras i cachad ordning,
+     * jobb som tagits bort sedan resultatet cachades hoppas över.
+     */
+    private JobSearchResponse cachedResponse(JobSearchRequest request, JobSearchResultCache.CachedResult cached) {
+        Map<Long, JobListing> byId = jobListingRepository.findAllById(cached.getIds()).stream()
+                .collect(Collectors.toMap(JobListing::getId, job -> job));
+        List<JobListing> jobs = cached.getIds().stream()
+                .map(byId::get)
+                .filter(java.util.Objects::nonNull)
+                .collect(Collectors.toList());
+
+        Page<JobListing> jobPage = new PageImpl<>(jobs, PageRequest.of(request.getPage(), request.getSize()),
+                cached.getTotalElements());
+        return JobSearchResponse.builder()
+                .jobs(jobs)
+                .totalElements(jobPage.getTotalElements())
+                .totalPages(jobPage.getTotalPages())
+                .currentPage(jobPage.getNumber())
+                .size(jobPage.getSize())
+                .hasNext(jobPage.hasNext())
+                .hasPrevious(jobPage.hasPrevious())
+                .build();
+    }
     
+    /**
+     * Sökning med keyset-paginering. Nästa sida hämtas med {@code WHERE (sortfält, id) < (sista raden)}
+     * istället för OFFSET, och ingen count-fråga körs, så sidan N kostar lika mycket som sida 1.
+     * Svaret saknar totalElements/totalPages och bär istället nextCursor.
+     * <p>
+     * Sortering sker på createdAt, updatedAt, title eller id. Relevanssortering stöds inte eftersom
+     * rangen inte är en stabil nyckel, sådana förfrågningar sorteras på createdAt.
+     */
+    public JobSearchResponse searchJobsKeyset(JobSearchRequest request) {
+        log.info("Söker jobb med keyset-paginering: {}", request);
+
+        KeysetSlice<JobListing> slice = keysetSlice(request,
+                (spec, sort, limit) -> jobListingRepository.findBy(spec, query -> query.sortBy(sort).limit(limit).all()),
+                JobListing::getId, this::keysetValue);
+
+        return JobSearchResponse.builder()
+                .jobs(slice.rows)
+                .size(slice.size)
+                .hasNext(slice.hasNext)
+                .hasPrevious(slice.hasPrevious)
+                .nextCursor(slice.nextCursor)
+                .build();
+    }
+
+    /**
+     * Som {@link #searchJobsKeyset} men läser sidan som DTO:er via projektion utan att ladda entiteter
+     */
+    public KeysetPage<JobListingDTO> searchJobListingsKeyset(JobSearchRequest request) {
+        log.info("Söker jobblistning med keyset-paginering: {}", request);
+
+        KeysetSlice<JobListingDTO> slice = keysetSlice(request, jobListingRepository::findListingDTOs,
+                JobListingDTO::getId, this::listingKeysetValue);
+        return new KeysetPage<>(slice.rows, slice.size, slice.hasNext, slice.nextCursor);
+    }
+
+    private <T> KeysetSlice<T> keysetSlice(JobSearchRequest request, KeysetFetcher<T> fetcher,
+                                           Function<T, Long> idOf, BiFunction<T, String, Object> valueOf) {
+        CursorPaginationService.KeysetCursor after = cursorPaginationService.decodeKeysetCursor(request.getCursor());
+        if (request.getCursor() != null && !request.getCursor().trim().isEmpty() && after == null) {
+            throw new IllegalArgumentException("Ogiltig cursor");
+        }
+
+        // Cursorn bestämmer sorteringen så att alla sidor i en följd sorteras lika
+        String sortBy = after != null ? after.getSortBy() : keysetSortField(request.getSortBy());
+        Sort.Direction direction = after != null ? after.getDirection()
+                : ("asc".equalsIgnoreCase(request.getSortDirection()) ? Sort.Direction.ASC : Sort.Direction.DESC);
+        if (!KEYSET_SORT_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("Ogiltig cursor");
+        }
+
+        int size = Math.max(1, Math.min(request.getSize() != null ? request.getSize() : 20, MAX_KEYSET_PAGE_SIZE));
+
+        Specification<JobListing> spec = createSearchSpecification(request, fullTextQuery(request))
+                .and(seekAfter(after));
+        Sort sort = "id".equals(sortBy)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+
+        // En extra rad avgör om det finns en nästa sida
+        List<T> rows = fetcher.fetch(spec, sort, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<T> page = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = page.get(page.size() - 1);
+            nextCursor = cursorPaginationService.createKeysetCursor(sortBy, direction, valueOf.apply(last, sortBy), idOf.apply(last));
+        }
+        return new KeysetSlice<>(page, size, hasNext, after != null, nextCursor);
+    }
+
+    /**
+     * Hämtar en sida jobb för listvyer som DTO:er, utan raw och utan lazy-laddning per rad
+     */
+    public Page<JobListingDTO> listJobs(Pageable pageable) {
+        return jobListingRepository.findListingDTOs(null, pageable);
+    }
+
+    /**
+     * Hämtar jobb med given status som DTO:er
+     */
+    public List<JobListingDTO> listJobsByStatus(JobListing.Status status) {
+        Specification<JobListing> spec = (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("status"), status);
+        return jobListingRepository.findListingDTOs(spec, Sort.unsorted(), 0);
+    }
+
+    /**
+     * Enkel sökning på fritext, kategori, plats och anställningstyp som DTO:er.
+     * Samma villkor som {@link JobListingRepository#search}.
+     */
+    public Page<JobListingDTO> simpleSearch(String keyword, Long categoryId, String location,
+                                            String employmentType, Pageable pageable) {
+        Specification<JobListing> spec = (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (keyword != null) {
+                String term = "%" + keyword.toLowerCase() + "%";
+                predicates.add(criteriaBuilder.or(
+                        criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), term),
+                        criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), term)));
+            }
+            if (categoryId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("category").get("id"), categoryId));
+            }
+            if (location != null) {
+                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("location")),
+                        "%" + location.toLowerCase() + "%"));
+            }
+            if (employmentType != null) {
+                predicates.add(criteriaBuilder.equal(root.get("employmentType"), employmentType));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+        return jobListingRepository.findListingDTOs(spec, pageable);
+    }
+
     /**
      * Hämtar alla jobb från databasen
      */
@@ -88,14 +287,21 @@ public class JobSearchService {
 
     /**
      * Skapar en specification för avancerad filtrering
+     *
+     * @param tsQuery Förberedd tsquery för fulltextindexet, null för LIKE-sökning
      */
-    private Specification<JobListing> createSearchSpecification(JobSearchRequest request) {
+    Specification<JobListing> createSearchSpecification(JobSearchRequest request, String tsQuery) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new java.util.ArrayList<>();
 
             // Fulltext-sökning i title och description
-            if (request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
-                String searchTerm = "%" + request.getQuery().toLowerCase() + "%";
+            if (tsQuery != null) {
+                predicates.add(criteriaBuilder.isTrue(criteriaBuilder.function(
+                        PostgresFullTextFunctionContributor.MATCH_FUNCTION, Boolean.class,
+                        root.get("id"), criteriaBuilder.literal(tsQuery))));
+            } else if (request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
+                // Trimmas och gemenas som i JobSearchResultCache.keyFor, så att nyckeln motsvarar frågan
+                String searchTerm = "%" + request.getQuery().trim().toLowerCase(Locale.ROOT) + "%";
                 predicates.add(criteriaBuilder.or(
                     criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), searchTerm),
                     criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), searchTerm)
@@ -104,12 +310,8 @@ public class JobSearchService {
 
             // Filtrering på plats
             if (request.getLocation() != null && !request.getLocation().trim().isEmpty()) {
-                String locationTerm = "%" + request.getLocation().toLowerCase() + "%";
-                predicates.add(criteriaBuilder.or(
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("location")), locationTerm),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("city")), locationTerm),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("municipality")), locationTerm)
-                ));
+                String locationTerm = "%" + request.getLocation().trim().toLowerCase(Locale.ROOT) + "%";
+                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("location")), locationTerm));
             }
 
             // Filtrering på kategori
@@ -161,11 +363,124 @@ public class JobSearchService {
         };
     }
 
+    /**
+     * Förbereder tsquery om sökfras finns och databasen har fulltextindexet
+     */
+    private String fullTextQuery(JobSearchRequest request) {
+        if (request.getQuery() != null && !request.getQuery().trim().isEmpty()
+                && jobListingRepository.supportsFullTextSearch()) {
+            return toPrefixTsQuery(request.getQuery());
+        }
+        return null;
+    }
+
+    /**
+     * Begränsar till rader efter cursorn: (fält, id) efter (värde, id) i sorteringsriktningen
+     */
+    private Specification<JobListing> seekAfter(CursorPaginationService.KeysetCursor after) {
+        return (root, query, criteriaBuilder) -> {
+            if (after == null) {
+                return null;
+            }
+
+            boolean descending = after.getDirection() == Sort.Direction.DESC;
+            Predicate idAfter = descending
+                    ? criteriaBuilder.lessThan(root.get("id"), after.getId())
+                    : criteriaBuilder.greaterThan(root.get("id"), after.getId());
+
+            switch (after.getSortBy()) {
+                case "id":
+                    return idAfter;
+                case "title":
+                    return seekPredicate(criteriaBuilder, root.get("title"), after.getValue(), idAfter, descending);
+                default:
+                    return seekPredicate(criteriaBuilder, root.get(after.getSortBy()),
+                            LocalDateTime.parse(after.getValue()), idAfter, descending);
+            }
+        };
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate seekPredicate(
+            CriteriaBuilder criteriaBuilder, Expression<? extends Y> key, Y value, Predicate idAfter, boolean descending) {
+        Predicate beyond = descending
+                ? criteriaBuilder.lessThan(key, value)
+                : criteriaBuilder.greaterThan(key, value);
+        return criteriaBuilder.or(beyond, criteriaBuilder.and(criteriaBuilder.equal(key, value), idAfter));
+    }
+
+    private Object listingKeysetValue(JobListingDTO job, String sortBy) {
+        switch (sortBy) {
+            case "updatedAt":
+                return job.getUpdatedAt();
+            case "title":
+                return job.getTitle();
+            case "id":
+                return job.getId();
+            default:
+                return job.getCreatedAt();
+        }
+    }
+
+    private String keysetSortField(String sortBy) {
+        return sortBy != null && KEYSET_SORT_FIELDS.contains(sortBy) ? sortBy : "createdAt";
+    }
+
+    private Object keysetValue(JobListing job, String sortBy) {
+        switch (sortBy) {
+            case "updatedAt":
+                return job.getUpdatedAt();
+            case "title":
+                return job.getTitle();
+            case "id":
+                return job.getId();
+            default:
+                return job.getCreatedAt();
+        }
+    }
+
+    /**
+     * Sorterar på ts_rank, med nyaste först vid lika rank. Sätts inte på count-frågan.
+     */
+    private Specification<JobListing> orderByRelevance(String tsQuery) {
+        return (root, query, criteriaBuilder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(
+                        criteriaBuilder.desc(criteriaBuilder.function(
+                                PostgresFullTextFunctionContributor.RANK_FUNCTION, Double.class,
+                                root.get("id"), criteriaBuilder.literal(tsQuery))),
+                        criteriaBuilder.desc(root.get("createdAt")),
+                        criteriaBuilder.desc(root.get("id")));
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Bygger en tsquery med prefixmatchning av fritext, t.ex. "java utveck" blir
+     * "java:* & utveck:*". Endast bokstäver och siffror behålls så att användarens
+     * text aldrig tolkas som tsquery-syntax. Hibernate renderar Criteria-literaler i
+     * funktionsanrop inline, vilket är säkert eftersom inga citattecken kan förekomma.
+     *
+     * @return tsquery, eller null om texten saknar sökbara termer
+     */
+    static String toPrefixTsQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        String tsQuery = Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .limit(MAX_QUERY_TERMS)
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
+    }
+
     /**
      * Skapar sortering baserat på request
      */
     private Sort createSort(String sortBy, String sortDirection) {
-        if (sortBy == null || sortBy.trim().isEmpty()) {
+        if (sortBy == null || sortBy.trim().isEmpty() || SORT_RELEVANCE.equalsIgnoreCase(sortBy)) {
             sortBy = "createdAt"; // Standard sortering
         }
 
@@ -288,4 +603,101 @@ public class JobSearchService {
     public List<Skill> getPopularSkills(int limit) {
         return skillRepository.findPopularSkills(limit);
     }
+
+    /**
+     * Räknar träffar per kategori, anställningstyp, arbetstid, plats och kompetens för en sökning.
+     * <p>
+     * Alla facetter utom kompetens kommer från en gemensam GROUP BY över samma filter som sökningen
+     * och summeras i minnet. Kompetenser kräver en join mot job_skills och räknas i en egen fråga.
+     *
+     * @param limit Max antal värden för plats och kompetens
+     */
+    public JobSearchFacets getFacets(JobSearchRequest request, int limit) {
+        Specification<JobListing> spec = createSearchSpecification(request, fullTextQuery(request));
+        int facetLimit = limit > 0 ? limit : DEFAULT_FACET_LIMIT;
+
+        Map<String, FacetCounter> categories = new HashMap<>();
+        Map<String, FacetCounter> employmentTypes = new HashMap<>();
+        Map<String, FacetCounter> workingHoursTypes = new HashMap<>();
+        Map<String, FacetCounter> locations = new HashMap<>();
+        long totalCount = 0;
+
+        for (Object[] row : jobListingRepository.countFacetCombinations(spec)) {
+            long count = ((Number) row[5]).longValue();
+            totalCount += count;
+            if (row[0] != null) {
+                addCount(categories, row[0].toString(), (String) row[1], count);
+            }
+            addCount(employmentTypes, (String) row[2], (String) row[2], count);
+            addCount(workingHoursTypes, (String) row[3], (String) row[3], count);
+            addCount(locations, (String) row[4], (String) row[4], count);
+        }
+
+        List<JobSearchFacets.FacetValue> skills = new ArrayList<>();
+        if (totalCount > 0) {
+            for (Object[] row : jobListingRepository.countSkillFacets(spec, facetLimit)) {
+                skills.add(new JobSearchFacets.FacetValue(
+                        row[0].toString(), (String) row[1], ((Number) row[2]).longValue()));
+            }
+        }
+
+        JobSearchFacets facets = new JobSearchFacets();
+        facets.setTotalCount(totalCount);
+        facets.setCategories(toFacetValues(categories, Integer.MAX_VALUE));
+        facets.setEmploymentTypes(toFacetValues(employmentTypes, Integer.MAX_VALUE));
+        facets.setWorkingHoursTypes(toFacetValues(workingHoursTypes, Integer.MAX_VALUE));
+        facets.setLocations(toFacetValues(locations, facetLimit));
+        facets.setSkills(skills);
+
+        log.debug("Facetter beräknade för {} träffar", totalCount);
+        return facets;
+    }
+
+    private void addCount(Map<String, FacetCounter> counters, String value, String label, long count) {
+        if (value == null || value.trim().isEmpty()) {
+            return;
+        }
+        counters.computeIfAbsent(value, key -> new FacetCounter(label)).count += count;
+    }
+
+    private List<JobSearchFacets.FacetValue> toFacetValues(Map<String, FacetCounter> counters, int limit) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, FacetCounter> entry) -> entry.getValue().count)
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(entry -> new JobSearchFacets.FacetValue(
+                        entry.getKey(), entry.getValue().label, entry.getValue().count))
+                .collect(Collectors.toList());
+    }
+
+    private static final class FacetCounter {
+        private final String label;
+        private long count;
+
+        FacetCounter(String label) {
+            this.label = label;
+        }
+    }
+
+    @FunctionalInterface
+    private interface KeysetFetcher<T> {
+        List<T> fetch(Specification<JobListing> spec, Sort sort, int limit);
+    }
+
+    private static final class KeysetSlice<T> {
+        private final List<T> rows;
+        private final int size;
+        private final boolean hasNext;
+        private final boolean hasPrevious;
+        private final String nextCursor;
+
+        KeysetSlice(List<T> rows, int size, boolean hasNext, boolean hasPrevious, String nextCursor) {
+            this.rows = rows;
+            this.size = size;
+            this.hasNext = hasNext;
+            this.hasPrevious = hasPrevious;
+            this.nextCursor = nextCursor;
+        }
+    }
 }
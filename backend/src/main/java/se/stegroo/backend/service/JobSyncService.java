@@ -6,8 +6,10 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobListingUpsertResult;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,12 +23,15 @@ public class JobSyncService {
     
     private final ArbetsformedlingenService arbetsformedlingenService;
     private final JobListingRepository jobListingRepository;
+    private final JobSearchResultCache jobSearchResultCache;
     
     public JobSyncService(
             ArbetsformedlingenService arbetsformedlingenService,
-            JobListingRepository jobListingRepository) {
+            JobListingRepository jobListingRepository,
+            JobSearchResultCache jobSearchResultCache) {
         this.arbetsformedlingenService = arbetsformedlingenService;
         this.jobListingRepository = jobListingRepository;
+        this.jobSearchResultCache = jobSearchResultCache;
     }
     
     /**
@@ -64,42 +69,15 @@ public class JobSyncService {
             log.info("Hittade {} jobb från Arbetsförmedlingen", newJobs.size());
             
             // Spara nya jobb till databasen
-            int savedCount = 0;
-            int updatedCount = 0;
-            
-            for (JobListing job : newJobs) {
-                try {
-                    // Kontrollera om jobbet redan finns
-                    if (job.getExternalId() != null) {
-                        var existingJob = jobListingRepository.findByExternalId(job.getExternalId());
-                        
-                        if (existingJob.isPresent()) {
-                            // Uppdatera befintligt jobb
-                            JobListing existing = existingJob.get();
-                            updateExistingJob(existing, job);
-                            jobListingRepository.save(existing);
-                            updatedCount++;
-                        } else {
-                            // Spara nytt jobb
-                            jobListingRepository.save(job);
-                            savedCount++;
-                        }
-                    } else {
-                        // Spara jobb utan external ID
-                        jobListingRepository.save(job);
-                        savedCount++;
-                    }
-                    
-                } catch (Exception e) {
-                    log.error("Fel vid sparande av jobb: {}", job.getTitle(), e);
-                }
-            }
+            SaveCounts counts = saveJobs(newJobs);
+            int savedCount = counts.saved;
+            int updatedCount = counts.updated;
             
             // Uppdatera senaste synkroniseringstid
             updateLastSyncTime(LocalDateTime.now());
             
-            log.info("Synkronisering slutförd: {} nya jobb sparade, {} jobb uppdaterade", 
-                    savedCount, updatedCount);
+            log.info("Synkronisering slutförd: {} nya jobb sparade, {} jobb uppdaterade, {} oförändrade", 
+                    savedCount, updatedCount, counts.skipped);
             
         } catch (Exception e) {
             log.error("Fel vid daglig synkronisering av jobb", e);
@@ -139,31 +117,9 @@ public class JobSyncService {
             
             log.info("Hittade {} jobb från Arbetsförmedlingen", newJobs.size());
             
-            int savedCount = 0;
-            int updatedCount = 0;
-            
-            for (JobListing job : newJobs) {
-                try {
-                    if (job.getExternalId() != null) {
-                        var existingJob = jobListingRepository.findByExternalId(job.getExternalId());
-                        
-                        if (existingJob.isPresent()) {
-                            updateExistingJob(existingJob.get(), job);
-                            jobListingRepository.save(existingJob.get());
-                            updatedCount++;
-                        } else {
-                            jobListingRepository.save(job);
-                            savedCount++;
-                        }
-                    } else {
-                        jobListingRepository.save(job);
-                        savedCount++;
-                    }
-                    
-                } catch (Exception e) {
-                    log.error("Fel vid sparande av jobb: {}", job.getTitle(), e);
-                }
-            }
+            SaveCounts counts = saveJobs(newJobs);
+            int savedCount = counts.saved;
+            int updatedCount = counts.updated;
             
             // Uppdatera senaste synkroniseringstid
             updateLastSyncTime(LocalDateTime.now());
@@ -180,23 +136,58 @@ public class JobSyncService {
     }
     
     /**
-     * Uppdaterar befintligt jobb med ny information
+     * Sparar jobb med set-baserad upsert på externalId. Befintliga jobb uppdateras
+     * endast om det nya jobbet är nyare. Sökcachen töms efteråt, även om sparandet
+     * avbröts halvvägs.
      */
-    private void updateExistingJob(JobListing existing, JobListing updated) {
-        // Uppdatera endast om det nya jobbet är nyare
-        if (updated.getPublishedAt() != null && 
-            (existing.getPublishedAt() == null || updated.getPublishedAt().isAfter(existing.getPublishedAt()))) {
-            
-            existing.setTitle(updated.getTitle());
-            existing.setDescription(updated.getDescription());
-            existing.setCompanyName(updated.getCompanyName());
-            existing.setLocation(updated.getLocation());
-            existing.setEmploymentType(updated.getEmploymentType());
-            existing.setDeadline(updated.getDeadline());
-            existing.setExternalUrl(updated.getExternalUrl());
-            existing.setCategory(updated.getCategory());
-            existing.setUpdatedAt(LocalDateTime.now());
+    private SaveCounts saveJobs(List<JobListing> jobs) {
+        try {
+            return writeJobs(jobs);
+        } finally {
+            if (jobSearchResultCache != null) {
+                jobSearchResultCache.invalidate();
+            }
+        }
+    }
+    
+    private SaveCounts writeJobs(List<JobListing> jobs) {
+        SaveCounts counts = new SaveCounts();
+        List<JobListing> upsertable = new ArrayList<>(jobs.size());
+        
+        for (JobListing job : jobs) {
+            if (job.getExternalId() != null) {
+                upsertable.add(job);
+                continue;
+            }
+            
+            // Spara jobb utan external ID
+            try {
+                jobListingRepository.save(job);
+                counts.saved++;
+            } catch (Exception e) {
+                log.error("Fel vid sparande av jobb: {}", job.getTitle(), e);
+            }
         }
+        
+        if (!upsertable.isEmpty()) {
+            JobListingUpsertResult result = jobListingRepository.upsertByExternalId(
+                    upsertable, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER);
+            counts.saved += result.getInsertedCount();
+            counts.updated += result.getUpdatedCount();
+            counts.skipped += result.getSkippedCount();
+            
+            for (JobListingUpsertResult.Failure failure : result.getFailures()) {
+                log.error("Fel vid sparande av jobb: {}", failure.getJob().getTitle(), failure.getError());
+            }
+        }
+        
+        return counts;
+    }
+    
+    private static class SaveCounts {
+        private int saved;
+        private int updated;
+        private int skipped;
     }
     
     /**
@@ -0,0 +1,88 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.stegroo.backend.config.MetricsConfig;
+
+/**
+ * Räknar rader i job_listings, job_categories och skills i bakgrunden och lämnar värdena till
+ * gauges i {@link MetricsConfig}, så att en Prometheus-scrape aldrig når databasen.
+ * <p>
+ * På PostgreSQL används planerarens uppskattning {@code pg_class.reltuples}, som hålls aktuell
+ * av autovacuum/ANALYZE. Tabeller som aldrig har analyserats, eller som är mindre än
+ * {@code stegroo.metrics.snapshot.exact-count-threshold} rader, räknas exakt eftersom
+ * {@code count(*)} då är billigt. Andra databaser räknas alltid exakt.
+ */
+@Service
+public class MetricsSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsSnapshotService.class);
+
+    private static final String ESTIMATE_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MetricsConfig metricsConfig;
+    private final long exactCountThreshold;
+
+    private volatile Boolean postgres;
+
+    public MetricsSnapshotService(
+            JdbcTemplate jdbcTemplate,
+            MetricsConfig metricsConfig,
+            @Value("${stegroo.metrics.snapshot.exact-count-threshold:100000}") long exactCountThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metricsConfig = metricsConfig;
+        this.exactCountThreshold = exactCountThreshold;
+    }
+
+    /**
+     * Uppdaterar antalen med konfigurerbart intervall
+     */
+    @Scheduled(initialDelayString = "${stegroo.metrics.snapshot.initial-delay-ms:10000}",
+            fixedDelayString = "${stegroo.metrics.snapshot.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            long jobs = rowCount("job_listings");
+            long categories = rowCount("job_categories");
+            long skills = rowCount("skills");
+            metricsConfig.updateTableCounts(jobs, categories, skills);
+            log.debug("Metrics-ögonblicksbild uppdaterad på {} ms: {} jobb, {} kategorier, {} kompetenser",
+                    System.currentTimeMillis() - start, jobs, categories, skills);
+        } catch (Exception e) {
+            // Gauges behåller föregående värden
+            log.warn("Kunde inte uppdatera metrics-ögonblicksbild: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Antal rader i tabellen, uppskattat när det går
+     */
+    long rowCount(String table) {
+        if (isPostgres()) {
+            Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class, table);
+            // reltuples är -1 (PG 14+) eller 0 innan tabellen har analyserats
+            if (estimate != null && estimate >= exactCountThreshold) {
+                return estimate;
+            }
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private boolean isPostgres() {
+        Boolean cached = postgres;
+        if (cached == null) {
+            String productName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            cached = "PostgreSQL".equalsIgnoreCase(productName);
+            postgres = cached;
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,288 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobSkillSet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index i minnet för att rangordna aktiva jobb mot en användares kompetenser.
+ * <p>
+ * Kompetens-id:n översätts till täta ordningstal. Varje jobbs kompetenser lagras som en sorterad
+ * int-array av ordningstal och användarens som en {@link BitSet}, samma uppdelning som
+ * RoaringBitmap gör mellan gles array-container och tät bitmap-container. Ett jobb har bara en
+ * handfull kompetenser, så arrayen är både minsta formen och snabbast att jämföra mot bitmappen.
+ * <p>
+ * Indexet byggs från databasen vid första uppdateringen och uppdateras sedan inkrementellt med de
+ * jobb vars {@code updated_at} är senare än det senast sedda, minus en överlappning för
+ * transaktioner som committades sent. Läsare arbetar mot en oföränderlig ögonblicksbild som
+ * byts ut när något har ändrats, så rangordningen tar inga lås.
+ */
+@Service
+public class SkillRecommendationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SkillRecommendationIndex.class);
+
+    /**
+     * Hur överlappet mellan användarens och jobbets kompetenser poängsätts
+     */
+    public enum Scoring {
+        /** Antal gemensamma kompetenser */
+        OVERLAP,
+        /** Gemensamma kompetenser delat med kompetenserna i användaren och jobbet tillsammans */
+        JACCARD
+    }
+
+    private final JobListingRepository jobListingRepository;
+    private final long refreshOverlapSeconds;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<Long, Integer> skillOrdinals = new ConcurrentHashMap<>();
+    // Ändras bara under refreshLock
+    private final Map<Long, int[]> jobSkills = new HashMap<>();
+    private LocalDateTime watermark;
+    // Ändringar som ännu inte finns i ögonblicksbilden, t.ex. efter en avbruten läsning
+    private boolean dirty;
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new int[0][]);
+
+    public SkillRecommendationIndex(
+            JobListingRepository jobListingRepository,
+            @Value("${job-recommendations.refresh-overlap-seconds:300}") long refreshOverlapSeconds) {
+        this.jobListingRepository = jobListingRepository;
+        this.refreshOverlapSeconds = Math.max(0, refreshOverlapSeconds);
+    }
+
+    /**
+     * Schemalagd uppdatering, fångar ändringar som inte kom via en synk (t.ex. utgångna annonser)
+     */
+    @Scheduled(initialDelayString = "${job-recommendations.initial-delay-ms:15000}",
+            fixedDelayString = "${job-recommendations.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Läser in jobb som ändrats sedan förra uppdateringen. Pågår redan en uppdatering görs ingenting,
+     * den pågående plockar upp ändringarna eller så gör nästa det.
+     */
+    public void refresh() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime scanStart = LocalDateTime.now();
+            boolean full = watermark == null;
+            LocalDateTime changedAfter = full ? null : watermark.minusSeconds(refreshOverlapSeconds);
+            int[] changes = new int[2];
+            LocalDateTime[] latest = {watermark};
+            jobListingRepository.scanSkillSets(changedAfter, jobSkillSet -> {
+                changes[0]++;
+                if (apply(jobSkillSet)) {
+                    changes[1]++;
+                }
+                LocalDateTime updatedAt = jobSkillSet.getUpdatedAt();
+                if (updatedAt != null && (latest[0] == null || updatedAt.isAfter(latest[0]))) {
+                    latest[0] = updatedAt;
+                }
+            });
+            // Vattenmärket flyttas först när hela läsningen lyckats, raderna kommer i id-ordning.
+            // Gav en full läsning inga jobb med kompetenser utgår nästa läsning från starttiden,
+            // annars skulle varje uppdatering bli en ny full läsning.
+            watermark = latest[0] != null ? latest[0] : scanStart;
+            if (dirty) {
+                publishSnapshot();
+            }
+            if (full || changes[1] > 0) {
+                log.info("Rekommendationsindex {}: {} jobb lästa, {} ändrade, {} aktiva jobb, {} kompetenser på {} ms",
+                        full ? "byggt" : "uppdaterat", changes[0], changes[1], jobSkills.size(), skillOrdinals.size(),
+                        System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            // Indexet behåller sin tidigare ögonblicksbild
+            log.warn("Kunde inte uppdatera rekommendationsindex: {}", e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Lägger in, ersätter eller tar bort ett jobb. Anropas under refreshLock.
+     *
+     * @return true om indexet ändrades
+     */
+    boolean apply(JobSkillSet jobSkillSet) {
+        boolean changed;
+        if (!jobSkillSet.isActive() || jobSkillSet.getSkillIds().length == 0) {
+            // Jobb utan kompetenser kan aldrig matcha och hålls utanför indexet
+            changed = jobSkills.remove(jobSkillSet.getJobId()) != null;
+        } else {
+            int[] ordinals = toOrdinals(jobSkillSet.getSkillIds());
+            int[] previous = jobSkills.put(jobSkillSet.getJobId(), ordinals);
+            changed = previous == null || !Arrays.equals(previous, ordinals);
+        }
+        dirty |= changed;
+        return changed;
+    }
+
+    /**
+     * Bygger en ny ögonblicksbild av jobben. Anropas under refreshLock.
+     */
+    void publishSnapshot() {
+        long[] jobIds = new long[jobSkills.size()];
+        int[][] skills = new int[jobIds.length][];
+        int i = 0;
+        for (Map.Entry<Long, int[]> entry : jobSkills.entrySet()) {
+            jobIds[i] = entry.getKey();
+            skills[i] = entry.getValue();
+            i++;
+        }
+        snapshot = new Snapshot(jobIds, skills);
+        dirty = false;
+    }
+
+    /**
+     * Rangordnar aktiva jobb mot kompetenserna
+     *
+     * @param skillIds Användarens kompetenser
+     * @param limit Max antal jobb
+     * @return Jobb med minst en gemensam kompetens, bäst först. Lika poäng ger nyast jobb först.
+     */
+    public List<Recommendation> recommend(Collection<Long> skillIds, int limit, Scoring scoring) {
+        if (skillIds == null || skillIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        BitSet userSkills = new BitSet(skillOrdinals.size());
+        for (Long skillId : skillIds) {
+            Integer ordinal = skillId != null ? skillOrdinals.get(skillId) : null;
+            if (ordinal != null) {
+                userSkills.set(ordinal);
+            }
+        }
+        int userSkillCount = userSkills.cardinality();
+        if (userSkillCount == 0) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        PriorityQueue<Recommendation> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, RANKING.reversed());
+        for (int i = 0; i < current.jobIds.length; i++) {
+            int[] jobSkillOrdinals = current.skills[i];
+            int matched = 0;
+            for (int ordinal : jobSkillOrdinals) {
+                if (userSkills.get(ordinal)) {
+                    matched++;
+                }
+            }
+            if (matched == 0) {
+                continue;
+            }
+            double score = scoring == Scoring.JACCARD
+                    ? (double) matched / (userSkillCount + jobSkillOrdinals.length - matched)
+                    : matched;
+            if (best.size() < limit) {
+                best.add(new Recommendation(current.jobIds[i], score, matched));
+            } else if (isBetter(score, current.jobIds[i], best.peek())) {
+                best.poll();
+                best.add(new Recommendation(current.jobIds[i], score, matched));
+            }
+        }
+
+        List<Recommendation> result = new ArrayList<>(best);
+        result.sort(RANKING);
+        return result;
+    }
+
+    /**
+     * Antal aktiva jobb i indexet
+     */
+    public int size() {
+        return snapshot.jobIds.length;
+    }
+
+    private static final Comparator<Recommendation> RANKING = Comparator
+            .comparingDouble(Recommendation::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Recommendation::getJobId).reversed());
+
+    private static boolean isBetter(double score, long jobId, Recommendation worst) {
+        return score > worst.getScore() || (score == worst.getScore() && jobId > worst.getJobId());
+    }
+
+    /**
+     * Sorterade ordningstal för kompetenserna, nya kompetenser får nästa lediga ordningstal
+     */
+    private int[] toOrdinals(long[] skillIds) {
+        int[] ordinals = new int[skillIds.length];
+        for (int i = 0; i < skillIds.length; i++) {
+            Integer ordinal = skillOrdinals.get(skillIds[i]);
+            if (ordinal == null) {
+                ordinal = skillOrdinals.size();
+                skillOrdinals.put(skillIds[i], ordinal);
+            }
+            ordinals[i] = ordinal;
+        }
+        Arrays.sort(ordinals);
+        // Samma kompetens ska inte räknas två gånger
+        int distinct = 1;
+        for (int i = 1; i < ordinals.length; i++) {
+            if (ordinals[i] != ordinals[distinct - 1]) {
+                ordinals[distinct++] = ordinals[i];
+            }
+        }
+        return distinct == ordinals.length ? ordinals : Arrays.copyOf(ordinals, distinct);
+    }
+
+    private static final class Snapshot {
+        private final long[] jobIds;
+        private final int[][] skills;
+
+        Snapshot(long[] jobIds, int[][] skills) {
+            this.jobIds = jobIds;
+            this.skills = skills;
+        }
+    }
+
+    /**
+     * Ett rekommenderat jobb med poäng och antal gemensamma kompetenser
+     */
+    public static class Recommendation {
+        private final long jobId;
+        private final double score;
+        private final int matchedSkills;
+
+        public Recommendation(long jobId, double score, int matchedSkills) {
+            this.jobId = jobId;
+            this.score = score;
+            this.matchedSkills = matchedSkills;
+        }
+
+        public long getJobId() {
+            return jobId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getMatchedSkills() {
+            return matchedSkills;
+        }
+    }
+}
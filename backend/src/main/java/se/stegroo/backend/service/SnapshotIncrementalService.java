@@ -2,17 +2,24 @@ package se.stegroo.backend.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import se.stegroo.backend.config.MetricsConfig;
 import se.stegroo.backend.model.DeadLetterQueue;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.SyncCheckpoint;
 import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobListingUpsertResult;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service för att hantera snapshot och inkrementell synkronisering.
@@ -29,71 +36,223 @@ public class SnapshotIncrementalService {
     private final DeadLetterQueueService deadLetterQueueService;
     // Removed cursorPaginationService as it's no longer needed for /stream endpoint
     private final RetryService retryService;
+    private final JobSearchResultCache jobSearchResultCache;
+    private final MetricsConfig metricsConfig;
+    private final SkillRecommendationIndex skillRecommendationIndex;
+    private final TaskExecutor taskExecutor;
     
     // Page size used for batch fetching
     private static final int MAX_RETRIES = 3;
     
+    private static final String SNAPSHOT_OFFSET_PREFIX = "snapshot-offset:";
+    
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean(false);
+    
     public SnapshotIncrementalService(ArbetsformedlingenService arbetsformedlingenService,
                                      JobListingRepository jobListingRepository,
                                      SyncCheckpointService syncCheckpointService,
                                      DeadLetterQueueService deadLetterQueueService,
-                                     RetryService retryService) {
+                                     RetryService retryService,
+                                     JobSearchResultCache jobSearchResultCache,
+                                     MetricsConfig metricsConfig,
+                                     SkillRecommendationIndex skillRecommendationIndex,
+                                     @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
         this.arbetsformedlingenService = arbetsformedlingenService;
         this.jobListingRepository = jobListingRepository;
         this.syncCheckpointService = syncCheckpointService;
         this.deadLetterQueueService = deadLetterQueueService;
         this.retryService = retryService;
+        this.jobSearchResultCache = jobSearchResultCache;
+        this.metricsConfig = metricsConfig;
+        this.skillRecommendationIndex = skillRecommendationIndex;
+        this.taskExecutor = taskExecutor;
     }
     
     /**
      * Utför fullständig snapshot-synkronisering med chunking
      * Detta använder snapshot endpoint för att hämta all data på en gång
-     * med paginering för att hantera stora datamängder
+     * med paginering för att hantera stora datamängder.
+     * En tidigare avbruten eller misslyckad körning återupptas från senast färdiga chunk.
      */
     public SnapshotResult performSnapshotSync() {
-        log.info("Startar fullständig snapshot-synkronisering med chunking");
+        return performSnapshotSync(null);
+    }
+    
+    /**
+     * Utför snapshot-synkronisering från en given offset
+     * 
+     * @param startOffset Annonsoffset att börja på, eller null för att återuppta från checkpoint
+     */
+    public SnapshotResult performSnapshotSync(Long startOffset) {
+        return performSnapshotSync(startOffset, false);
+    }
+    
+    /**
+     * Utför snapshot-synkronisering från en given offset, valfritt som bulkimport
+     * 
+     * @param startOffset Annonsoffset att börja på, eller null för att återuppta från checkpoint
+     * @param bulkImport Skriv chunkarna med COPY via stagingtabell, för initial laddning av en tom miljö
+     */
+    public SnapshotResult performSnapshotSync(Long startOffset, boolean bulkImport) {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            log.warn("Snapshot-synkronisering pågår redan, ny körning startas inte");
+            return new SnapshotResult(0, 0, 0, false, "Snapshot-synkronisering pågår redan");
+        }
+        try {
+            return runSnapshotSync(startOffset, bulkImport);
+        } finally {
+            snapshotRunning.set(false);
+        }
+    }
+    
+    /**
+     * Startar snapshot-synkronisering i bakgrunden
+     * 
+     * @param startOffset Annonsoffset att börja på, eller null för att återuppta från checkpoint
+     * @return false om en snapshot-synkronisering redan pågår
+     */
+    public boolean startSnapshotSync(Long startOffset) {
+        return startSnapshotSync(startOffset, false);
+    }
+    
+    /**
+     * Startar snapshot-synkronisering i bakgrunden, valfritt som bulkimport
+     * 
+     * @param startOffset Annonsoffset att börja på, eller null för att återuppta från checkpoint
+     * @param bulkImport Skriv chunkarna med COPY via stagingtabell, för initial laddning av en tom miljö
+     * @return false om en snapshot-synkronisering redan pågår
+     */
+    public boolean startSnapshotSync(Long startOffset, boolean bulkImport) {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    runSnapshotSync(startOffset, bulkImport);
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            snapshotRunning.set(false);
+            throw e;
+        }
+        return true;
+    }
+    
+    public boolean isSnapshotRunning() {
+        return snapshotRunning.get();
+    }
+    
+    private SnapshotResult runSnapshotSync(Long requestedOffset, boolean bulkImport) {
+        long syncStart = System.currentTimeMillis();
+        long resumeOffset = syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)
+                .filter(previous -> previous.getStatus() != SyncCheckpoint.Status.COMPLETED)
+                .map(previous -> parseSnapshotOffset(previous.getLastCursor()))
+                .orElse(0L);
+        boolean resuming = requestedOffset == null && resumeOffset > 0;
+        long startOffset = requestedOffset != null ? requestedOffset : resumeOffset;
         
         SyncCheckpoint checkpoint = syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT);
-        checkpoint.setTotalProcessed(0L);
-        checkpoint.setTotalSuccessful(0L);
-        checkpoint.setTotalFailed(0L);
+        if (resuming) {
+            log.info("Återupptar snapshot-synkronisering från offset {}", startOffset);
+            checkpoint.setTotalProcessed(orZero(checkpoint.getTotalProcessed()));
+            checkpoint.setTotalSuccessful(orZero(checkpoint.getTotalSuccessful()));
+            checkpoint.setTotalFailed(orZero(checkpoint.getTotalFailed()));
+            checkpoint.setTotalSkipped(orZero(checkpoint.getTotalSkipped()));
+        } else {
+            log.info("Startar snapshot-synkronisering från offset {}{}", startOffset, bulkImport ? " som bulkimport" : "");
+            checkpoint.setTotalProcessed(0L);
+            checkpoint.setTotalSuccessful(0L);
+            checkpoint.setTotalFailed(0L);
+            checkpoint.setTotalSkipped(0L);
+        }
         checkpoint.setLastSyncAt(LocalDateTime.now());
+        checkpoint.setLastCursor(snapshotOffsetCursor(startOffset));
+        SyncCheckpoint progress = syncCheckpointService.saveCheckpoint(checkpoint);
+        // Lås i stället för synchronized: checkpointen sparas under låset och med virtuella trådar
+        // skulle synchronized låsa bärartråden under databasanropet
+        ReentrantLock progressLock = new ReentrantLock();
         
         try {
             log.info("Använder /snapshot endpoint med chunking för fullständig datahämtning");
             
-            // Använd den nya chunking-metoden i ArbetsformedlingenService
-            int totalProcessed = arbetsformedlingenService.syncFullSnapshotWithChunking((jobs, chunkIndex) -> {
-                log.info("Bearbetar chunk {} med {} jobb", chunkIndex, jobs.size());
-                
-                // Använd den befintliga processningslogiken
-                PageProcessingResult result = processJobsPage(jobs);
-                
-                // Uppdatera checkpoint med ackumulerad statistik
-                checkpoint.setTotalProcessed(checkpoint.getTotalProcessed() + result.getProcessedCount());
-                checkpoint.setTotalSuccessful(checkpoint.getTotalSuccessful() + result.getSuccessfulCount());
-                checkpoint.setTotalFailed(checkpoint.getTotalFailed() + result.getFailedCount());
-                // Use syncCheckpointService instead of direct repository access
-                syncCheckpointService.markCheckpointAsCompleted(SyncCheckpoint.SyncType.SNAPSHOT);
-                
-                return result.getSuccessfulCount();
-            });
+            SnapshotSyncPipeline.PipelineResult pipelineResult = arbetsformedlingenService.syncSnapshotFromOffset(
+                    startOffset,
+                    (jobs, chunkIndex) -> {
+                        log.info("Bearbetar chunk {} med {} jobb", chunkIndex, jobs.size());
+                        
+                        // Använd den befintliga processningslogiken
+                        PageProcessingResult result = processJobsPage(jobs, bulkImport);
+                        
+                        // Uppdatera checkpoint med ackumulerad statistik, chunkarna bearbetas parallellt
+                        progressLock.lock();
+                        try {
+                            progress.setTotalProcessed(progress.getTotalProcessed() + result.getProcessedCount());
+                            progress.setTotalSuccessful(progress.getTotalSuccessful() + result.getSuccessfulCount());
+                            progress.setTotalFailed(progress.getTotalFailed() + result.getFailedCount());
+                            progress.setTotalSkipped(progress.getTotalSkipped() + result.getSkippedCount());
+                        } finally {
+                            progressLock.unlock();
+                        }
+                        
+                        return result.getSuccessfulCount();
+                    },
+                    committedOffset -> {
+                        // Sparas i chunkens transaktion, så offseten committas tillsammans med jobben
+                        progressLock.lock();
+                        try {
+                            progress.setLastCursor(snapshotOffsetCursor(committedOffset));
+                            progress.setLastSyncAt(LocalDateTime.now());
+                            syncCheckpointService.saveCheckpoint(progress);
+                        } finally {
+                            progressLock.unlock();
+                        }
+                    });
+            
+            // Slutförd bara om ingen chunk misslyckades och snapshoten lästes till en felfri tom chunk
+            if (pipelineResult.getFailedChunks() > 0 || !pipelineResult.isReachedEnd()) {
+                String message = (pipelineResult.getFailedChunks() > 0
+                        ? pipelineResult.getFailedChunks() + " chunk(s) misslyckades"
+                        : "snapshoten lästes inte till slut")
+                        + ", återupptas från " + progress.getLastCursor();
+                log.warn("Snapshot-synkronisering ofullständig: {}", message);
+                syncCheckpointService.markCheckpointAsFailed(SyncCheckpoint.SyncType.SNAPSHOT, message);
+                recordSyncFailure();
+                return new SnapshotResult(
+                        Math.toIntExact(progress.getTotalProcessed()),
+                        Math.toIntExact(progress.getTotalSuccessful()),
+                        Math.toIntExact(progress.getTotalFailed()),
+                        Math.toIntExact(progress.getTotalSkipped()),
+                        false,
+                        "Snapshot-synkronisering ofullständig: " + message);
+            }
             
-            log.info("Snapshot-synkronisering slutförd med {} jobb processerade", totalProcessed);
+            log.info("Snapshot-synkronisering slutförd med {} jobb processerade, {} oförändrade hoppades över",
+                    pipelineResult.getTotalProcessed(), progress.getTotalSkipped());
             
-            // Markera checkpoint som slutförd
+            // Markera checkpoint som slutförd, nästa körning börjar om från början
+            progress.setLastCursor(null);
+            syncCheckpointService.saveCheckpoint(progress);
             syncCheckpointService.markCheckpointAsCompleted(SyncCheckpoint.SyncType.SNAPSHOT);
+            recordSyncSuccess(syncStart);
             
             return new SnapshotResult(
-                    Math.toIntExact(checkpoint.getTotalProcessed()), 
-                    Math.toIntExact(checkpoint.getTotalSuccessful()), 
-                    Math.toIntExact(checkpoint.getTotalFailed()), 
+                    Math.toIntExact(progress.getTotalProcessed()), 
+                    Math.toIntExact(progress.getTotalSuccessful()), 
+                    Math.toIntExact(progress.getTotalFailed()), 
+                    Math.toIntExact(progress.getTotalSkipped()),
                     true, 
                     "Snapshot-synkronisering slutförd");
             
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.error("Fel vid snapshot-synkronisering", e);
             syncCheckpointService.markCheckpointAsFailed(SyncCheckpoint.SyncType.SNAPSHOT, e.getMessage());
+            recordSyncFailure();
             
             // Lägg till i dead-letter queue
             deadLetterQueueService.addFailedJobWithStackTrace(
@@ -106,13 +265,40 @@ public class SnapshotIncrementalService {
             );
             
             return new SnapshotResult(
-                    checkpoint.getTotalProcessed() != null ? Math.toIntExact(checkpoint.getTotalProcessed()) : 0,
-                    checkpoint.getTotalSuccessful() != null ? Math.toIntExact(checkpoint.getTotalSuccessful()) : 0,
-                    checkpoint.getTotalFailed() != null ? Math.toIntExact(checkpoint.getTotalFailed()) : 0,
+                    progress.getTotalProcessed() != null ? Math.toIntExact(progress.getTotalProcessed()) : 0,
+                    progress.getTotalSuccessful() != null ? Math.toIntExact(progress.getTotalSuccessful()) : 0,
+                    progress.getTotalFailed() != null ? Math.toIntExact(progress.getTotalFailed()) : 0,
                     false, "Fel: " + e.getMessage());
+        } finally {
+            // Även en avbruten synk kan ha skrivit jobb
+            jobSearchResultCache.invalidate();
+            refreshRecommendationIndex();
         }
     }
     
+    /**
+     * Cursor som sparas i checkpointen: offset för första annons som inte är färdigbearbetad
+     */
+    static String snapshotOffsetCursor(long offset) {
+        return SNAPSHOT_OFFSET_PREFIX + offset;
+    }
+    
+    static long parseSnapshotOffset(String cursor) {
+        if (cursor == null || !cursor.startsWith(SNAPSHOT_OFFSET_PREFIX)) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(cursor.substring(SNAPSHOT_OFFSET_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            log.warn("Ogiltig snapshot-cursor i checkpoint: {}", cursor);
+            return 0L;
+        }
+    }
+    
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+    
     /**
      * Utför inkrementell synkronisering baserat på senaste checkpoint
      */
@@ -127,15 +313,18 @@ public class SnapshotIncrementalService {
                     snapshotResult.getTotalProcessed(),
                     snapshotResult.getTotalSuccessful(),
                     snapshotResult.getTotalFailed(),
+                    snapshotResult.getTotalSkipped(),
                     snapshotResult.isSuccess(),
                     "Inkrementell synkronisering slutförd via snapshot"
             );
         }
         
+        long syncStart = System.currentTimeMillis();
         SyncCheckpoint checkpoint = syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.INCREMENTAL);
         checkpoint.setTotalProcessed(0L);
         checkpoint.setTotalSuccessful(0L);
         checkpoint.setTotalFailed(0L);
+        checkpoint.setTotalSkipped(0L);
         // The timestamp is already set by createOrUpdateCheckpoint
         // We don't need to manually save as createOrUpdateCheckpoint already persists the entity
         
@@ -143,30 +332,42 @@ public class SnapshotIncrementalService {
             log.info("Checkpoint skapad: {}", checkpoint);
             
             // Hämta dagens jobb från /stream endpoint
+            long fetchStart = System.nanoTime();
             List<JobListing> jobs = fetchTodaysJobs();
+            long writeStart = System.nanoTime();
+            recordIncrementalStage("fetch", writeStart - fetchStart);
             
             log.info("Hämtade {} jobb från /stream endpoint", jobs.size());
-            PageProcessingResult result = processJobsPage(jobs);
+            PageProcessingResult result = processJobsPage(jobs, false);
+            long writeEnd = System.nanoTime();
+            recordIncrementalStage("write", writeEnd - writeStart);
+            if (metricsConfig != null) {
+                metricsConfig.recordSyncChunk(MetricsConfig.SYNC_INCREMENTAL, result.getSuccessfulCount(), writeEnd - writeStart);
+            }
             
             // Uppdatera checkpoint med statistik
             checkpoint.setTotalProcessed((long) result.getProcessedCount());
             checkpoint.setTotalSuccessful((long) result.getSuccessfulCount());
             checkpoint.setTotalFailed((long) result.getFailedCount());
+            checkpoint.setTotalSkipped((long) result.getSkippedCount());
             // Simply mark the checkpoint as completed which will update and save it internally
             syncCheckpointService.markCheckpointAsCompleted(SyncCheckpoint.SyncType.INCREMENTAL);
+            recordSyncSuccess(syncStart);
             
-            log.info("Inkrementell synkronisering slutförd. Behandlade: {}, Framgångsrika: {}, Fel: {}", 
-                    result.getProcessedCount(), result.getSuccessfulCount(), result.getFailedCount());
+            log.info("Inkrementell synkronisering slutförd. Behandlade: {}, Framgångsrika: {}, Oförändrade: {}, Fel: {}", 
+                    result.getProcessedCount(), result.getSuccessfulCount(), result.getSkippedCount(), result.getFailedCount());
             
             return new IncrementalResult(
                     result.getProcessedCount(),
                     result.getSuccessfulCount(),
                     result.getFailedCount(),
+                    result.getSkippedCount(),
                     true,
                     "Synkronisering slutförd"
             );
         } catch (Exception e) {
             log.error("Fel vid inkrementell synkronisering: {}", e.getMessage(), e);
+            recordSyncFailure();
             
             // Lägg till i kön för misslyckade synkar
             deadLetterQueueService.addFailedJobWithStackTrace(
@@ -179,6 +380,36 @@ public class SnapshotIncrementalService {
             );
             
             return new IncrementalResult(0, 0, 0, false, "Fel: " + e.getMessage());
+        } finally {
+            jobSearchResultCache.invalidate();
+            refreshRecommendationIndex();
+        }
+    }
+    
+    /**
+     * Läser in jobben som synken skrev i rekommendationsindexet
+     */
+    private void refreshRecommendationIndex() {
+        if (skillRecommendationIndex != null) {
+            skillRecommendationIndex.refresh();
+        }
+    }
+
+    private void recordIncrementalStage(String stage, long durationNanos) {
+        if (metricsConfig != null) {
+            metricsConfig.recordSyncStage(MetricsConfig.SYNC_INCREMENTAL, stage, durationNanos);
+        }
+    }
+    
+    private void recordSyncSuccess(long startMillis) {
+        if (metricsConfig != null) {
+            metricsConfig.recordJobSyncSuccess(System.currentTimeMillis() - startMillis);
+        }
+    }
+    
+    private void recordSyncFailure() {
+        if (metricsConfig != null) {
+            metricsConfig.recordJobSyncFailure();
         }
     }
     
@@ -198,72 +429,72 @@ public class SnapshotIncrementalService {
     }
     
     /**
-     * Bearbetar en sida med jobb
+     * Bearbetar en sida med jobb. Jobb med externalId skrivs med en set-baserad upsert,
+     * rader som misslyckas rapporteras till dead-letter queue var för sig.
      */
-    private PageProcessingResult processJobsPage(List<JobListing> jobs) {
-        int processedCount = 0;
+    private PageProcessingResult processJobsPage(List<JobListing> jobs, boolean bulkImport) {
+        int processedCount = jobs.size();
         int successfulCount = 0;
         int failedCount = 0;
+        int skippedCount = 0;
         
+        List<JobListing> upsertable = new ArrayList<>(jobs.size());
         for (JobListing job : jobs) {
+            if (job.getExternalId() != null) {
+                upsertable.add(job);
+                continue;
+            }
+            
+            // Spara jobb utan external ID
             try {
-                processedCount++;
-                
-                if (job.getExternalId() != null) {
-                    // Kontrollera om jobbet redan finns
-                    Optional<JobListing> existingJob = jobListingRepository.findByExternalId(job.getExternalId());
-                    
-                    if (existingJob.isPresent()) {
-                        // Uppdatera befintligt jobb
-                        updateExistingJob(existingJob.get(), job);
-                        jobListingRepository.save(existingJob.get());
-                    } else {
-                        // Spara nytt jobb
-                        jobListingRepository.save(job);
-                    }
-                } else {
-                    // Spara jobb utan external ID
-                    jobListingRepository.save(job);
-                }
-                
+                jobListingRepository.save(job);
                 successfulCount++;
-                
             } catch (Exception e) {
                 failedCount++;
-                log.error("Fel vid bearbetning av jobb: {}", job.getTitle(), e);
+                reportFailedJob(job, e);
+            }
+        }
+        
+        if (!upsertable.isEmpty()) {
+            try {
+                JobListingUpsertResult upsertResult = bulkImport
+                        ? jobListingRepository.bulkLoadByExternalId(upsertable, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER)
+                        : jobListingRepository.upsertByExternalId(upsertable, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER);
+                
+                successfulCount += upsertResult.getSuccessfulCount();
+                skippedCount += upsertResult.getSkippedCount();
+                for (JobListingUpsertResult.Failure failure : upsertResult.getFailures()) {
+                    failedCount++;
+                    reportFailedJob(failure.getJob(), failure.getError());
+                }
                 
-                // Lägg till i dead-letter queue
-                deadLetterQueueService.addFailedJobWithStackTrace(
-                        job.getExternalId() != null ? job.getExternalId() : "unknown-" + job.getId(),
-                        job.getTitle(),
-                        e.getMessage(),
-                        "JobProcessingError",
-                        DeadLetterQueue.SyncType.JOBS,
-                        getStackTrace(e)
-                );
+                log.debug("Sida sparad: {}", upsertResult);
+            } catch (Exception e) {
+                log.error("Bulk-upsert av {} jobb misslyckades: {}", upsertable.size(), e.getMessage(), e);
+                for (JobListing job : upsertable) {
+                    failedCount++;
+                    reportFailedJob(job, e);
+                }
             }
         }
         
-        return new PageProcessingResult(processedCount, successfulCount, failedCount);
+        return new PageProcessingResult(processedCount, successfulCount, failedCount, skippedCount);
     }
     
     /**
-     * Uppdaterar befintligt jobb med ny information
+     * Loggar ett misslyckat jobb och lägger det i dead-letter queue
      */
-    private void updateExistingJob(JobListing existing, JobListing updated) {
-        if (updated.getPublishedAt() != null && 
-            (existing.getPublishedAt() == null || updated.getPublishedAt().isAfter(existing.getPublishedAt()))) {
-            
-            existing.setTitle(updated.getTitle());
-            existing.setDescription(updated.getDescription());
-            existing.setCompanyName(updated.getCompanyName());
-            existing.setLocation(updated.getLocation());
-            existing.setEmploymentType(updated.getEmploymentType());
-            existing.setDeadline(updated.getDeadline());
-            existing.setExternalUrl(updated.getExternalUrl());
-            existing.setCategory(updated.getCategory());
-            existing.setUpdatedAt(LocalDateTime.now());
-        }
+    private void reportFailedJob(JobListing job, Exception e) {
+        log.error("Fel vid bearbetning av jobb: {}", job.getTitle(), e);
+        
+        deadLetterQueueService.addFailedJobWithStackTrace(
+                job.getExternalId() != null ? job.getExternalId() : "unknown-" + job.getId(),
+                job.getTitle(),
+                e.getMessage(),
+                "JobProcessingError",
+                DeadLetterQueue.SyncType.JOBS,
+                getStackTrace(e)
+        );
     }
     
     /**
@@ -285,13 +516,19 @@ public class SnapshotIncrementalService {
         private final int totalProcessed;
         private final int totalSuccessful;
         private final int totalFailed;
+        private final int totalSkipped;
         private final boolean success;
         private final String message;
         
         public SnapshotResult(int totalProcessed, int totalSuccessful, int totalFailed, boolean success, String message) {
+            this(totalProcessed, totalSuccessful, totalFailed, 0, success, message);
+        }
+        
+        public SnapshotResult(int totalProcessed, int totalSuccessful, int totalFailed, int totalSkipped, boolean success, String message) {
             this.totalProcessed = totalProcessed;
             this.totalSuccessful = totalSuccessful;
             this.totalFailed = totalFailed;
+            this.totalSkipped = totalSkipped;
             this.success = success;
             this.message = message;
         }
@@ -299,6 +536,7 @@ public class SnapshotIncrementalService {
         public int getTotalProcessed() { return totalProcessed; }
         public int getTotalSuccessful() { return totalSuccessful; }
         public int getTotalFailed() { return totalFailed; }
+        public int getTotalSkipped() { return totalSkipped; }
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
     }
@@ -307,13 +545,19 @@ public class SnapshotIncrementalService {
         private final int totalProcessed;
         private final int totalSuccessful;
         private final int totalFailed;
+        private final int totalSkipped;
         private final boolean success;
         private final String message;
         
         public IncrementalResult(int totalProcessed, int totalSuccessful, int totalFailed, boolean success, String message) {
+            this(totalProcessed, totalSuccessful, totalFailed, 0, success, message);
+        }
+        
+        public IncrementalResult(int totalProcessed, int totalSuccessful, int totalFailed, int totalSkipped, boolean success, String message) {
             this.totalProcessed = totalProcessed;
             this.totalSuccessful = totalSuccessful;
             this.totalFailed = totalFailed;
+            this.totalSkipped = totalSkipped;
             this.success = success;
             this.message = message;
         }
@@ -321,6 +565,7 @@ public class SnapshotIncrementalService {
         public int getTotalProcessed() { return totalProcessed; }
         public int getTotalSuccessful() { return totalSuccessful; }
         public int getTotalFailed() { return totalFailed; }
+        public int getTotalSkipped() { return totalSkipped; }
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
     }
@@ -349,15 +594,18 @@ public class SnapshotIncrementalService {
         private final int processedCount;
         private final int successfulCount;
         private final int failedCount;
+        private final int skippedCount;
         
-        public PageProcessingResult(int processedCount, int successfulCount, int failedCount) {
+        public PageProcessingResult(int processedCount, int successfulCount, int failedCount, int skippedCount) {
             this.processedCount = processedCount;
             this.successfulCount = successfulCount;
             this.failedCount = failedCount;
+            this.skippedCount = skippedCount;
         }
         
         public int getProcessedCount() { return processedCount; }
         public int getSuccessfulCount() { return successfulCount; }
         public int getFailedCount() { return failedCount; }
+        public int getSkippedCount() { return skippedCount; }
     }
 }
@@ -0,0 +1,626 @@
+package se.stegroo.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.model.JobListing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pipelinad snapshot-synkronisering: hämtning följt av konvertering och persistens.
+ *
+ * <ul>
+ *   <li>Hämtning: upp till {@code fetchConcurrency} chunkar hämtas parallellt. Varje ny
+ *       chunk kräver en token från rate limitern så att AF:s anropstakt respekteras.</li>
+ *   <li>Konvertering och persistens: {@code persistenceWorkers} arbetare tar var sin chunk i
+ *       indexordning, konverterar annonserna och lämnar batcharna till
+ *       {@link ArbetsformedlingenService.ChunkProcessor}. Den första arbetaren är anropande tråd.</li>
+ * </ul>
+ *
+ * Stegen kopplas ihop med begränsade köer per chunk så att minnesanvändningen är begränsad även
+ * om databasen är långsammare än nätverket. Med en arbetare når batcharna processorn i chunkordning,
+ * med flera kan chunkar bli klara i valfri ordning. {@link ChunkCommitListener} får ändå bara
+ * vattenmärket: den högsta chunk där alla chunkar med lägre index är klara.
+ * <p>
+ * Med {@link #withChunkTransactions} körs varje chunk i en egen transaktion som committas
+ * när chunken är klar, tillsammans med det som {@link ChunkCommitListener} skriver. En chunk med
+ * hämtnings- eller skrivfel committar ingenting och resten av dess batchar hoppas över. Persistence
+ * contexten töms efter varje batch så att förstanivåcachen inte växer under körningen.
+ */
+public class SnapshotSyncPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotSyncPipeline.class);
+
+    private static final long END_POLL_MILLIS = 100;
+
+    /**
+     * Hämtar en chunk från snapshot endpoint och lämnar annonserna i batchar till sink
+     */
+    @FunctionalInterface
+    public interface ChunkFetcher {
+        /**
+         * @return Antal annonser som lästes i chunken
+         */
+        int fetch(int chunkIndex, Consumer<List<AfJobStreamJob>> sink) throws Exception;
+    }
+
+    /**
+     * Anropas när en chunk och alla chunkar före den har bearbetats utan fel. Anropen kommer
+     * i stigande chunkordning men kan hoppa över index när flera chunkar blir klara samtidigt.
+     */
+    @FunctionalInterface
+    public interface ChunkCommitListener {
+        void chunkCommitted(int chunkIndex, int adsRead);
+    }
+
+    private final ChunkFetcher fetcher;
+    private final Function<AfJobStreamJob, Optional<JobListing>> converter;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int fetchConcurrency;
+    private final int queueCapacity;
+    private final int maxChunks;
+
+    private final Map<Integer, BlockingQueue<Object>> fetchedChunks = new ConcurrentHashMap<>();
+    private final AtomicInteger nextChunkIndex = new AtomicInteger(0);
+    private final AtomicInteger nextPersistChunkIndex = new AtomicInteger(0);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private volatile int endChunkIndex;
+
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private int persistenceWorkers = 1;
+    private MetricsConfig metricsConfig;
+
+    public SnapshotSyncPipeline(ChunkFetcher fetcher,
+                                Function<AfJobStreamJob, Optional<JobListing>> converter,
+                                TokenBucketRateLimiter rateLimiter,
+                                int fetchConcurrency,
+                                int queueCapacity,
+                                int maxChunks) {
+        this.fetcher = fetcher;
+        this.converter = converter;
+        this.rateLimiter = rateLimiter;
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxChunks = maxChunks;
+        this.endChunkIndex = maxChunks;
+    }
+
+    /**
+     * Låter persistenssteget öppna en ny transaktion per chunk (REQUIRES_NEW) i stället för att
+     * delta i anroparens. En chunk som misslyckas rullas tillbaka utan att tidigare chunkar påverkas.
+     *
+     * @param entityManager Flushas och töms efter varje batch, kan vara null
+     */
+    public SnapshotSyncPipeline withChunkTransactions(PlatformTransactionManager transactionManager,
+                                                      EntityManager entityManager) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        return this;
+    }
+
+    /**
+     * Antal chunkar som konverteras och persisteras samtidigt. Varje arbetare har en egen
+     * transaktion och därmed en egen databasanslutning.
+     */
+    public SnapshotSyncPipeline withPersistenceWorkers(int persistenceWorkers) {
+        this.persistenceWorkers = Math.max(1, persistenceWorkers);
+        return this;
+    }
+
+    /**
+     * Publicerar tid per steg, köväntan och ködjup samt rader per sekund per chunk,
+     * se {@link MetricsConfig#recordSyncStage}
+     */
+    public SnapshotSyncPipeline withMetrics(MetricsConfig metricsConfig) {
+        this.metricsConfig = metricsConfig;
+        return this;
+    }
+
+    /**
+     * Kör pipelinen tills en tom chunk påträffas eller maxChunks har nåtts
+     *
+     * @param processor Callback som anropas för varje batch av konverterade jobb
+     * @return Sammanställning av körningen
+     */
+    public PipelineResult run(ArbetsformedlingenService.ChunkProcessor processor) throws InterruptedException {
+        return run(processor, (chunkIndex, adsRead) -> {});
+    }
+
+    /**
+     * Kör pipelinen och rapporterar varje sammanhängande färdig chunk till listenern.
+     * Efter första misslyckade chunken rapporteras inga fler, så en återupptagen körning
+     * aldrig hoppar över en chunk som inte blev klar.
+     */
+    public PipelineResult run(ArbetsformedlingenService.ChunkProcessor processor,
+                              ChunkCommitListener commitListener) throws InterruptedException {
+        ChunkWatermark watermark = new ChunkWatermark();
+        PipelineTotals totals = new PipelineTotals();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                fetchConcurrency + persistenceWorkers - 1, new CustomizableThreadFactory("snapshot-pipeline-"));
+
+        try {
+            for (int i = 0; i < fetchConcurrency; i++) {
+                executor.execute(this::fetchLoop);
+            }
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 1; i < persistenceWorkers; i++) {
+                workers.add(executor.submit(() -> {
+                    persistLoop(processor, commitListener, watermark, totals);
+                    return null;
+                }));
+            }
+
+            persistLoop(processor, commitListener, watermark, totals);
+            for (Future<?> worker : workers) {
+                awaitWorker(worker);
+            }
+            return totals.toResult();
+        } finally {
+            stopped.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private void awaitWorker(Future<?> worker) throws InterruptedException {
+        try {
+            worker.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Persistensarbetare avbröts", e.getCause());
+        }
+    }
+
+    /**
+     * Hämtningssteget: tar nästa lediga chunkindex och strömmar chunken till dess kö
+     */
+    private void fetchLoop() {
+        while (!stopped.get()) {
+            int chunkIndex = nextChunkIndex.getAndIncrement();
+            if (chunkIndex >= endChunkIndex) {
+                return;
+            }
+
+            BlockingQueue<Object> chunkQueue = chunkQueue(chunkIndex);
+            AtomicInteger delivered = new AtomicInteger(0);
+            AtomicLong blockedNanos = new AtomicLong(0);
+            int adsRead = 0;
+            Exception error = null;
+            long fetchStart = 0;
+            try {
+                long rateLimitStart = System.nanoTime();
+                rateLimiter.acquire();
+                fetchStart = System.nanoTime();
+                recordStage("rate-limit", fetchStart - rateLimitStart);
+                adsRead = fetcher.fetch(chunkIndex, batch -> {
+                    blockedNanos.addAndGet(put(chunkQueue, batch));
+                    delivered.addAndGet(batch.size());
+                });
+            } catch (InterruptedException | CancellationException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Annonser som redan lämnats vidare bearbetas, chunken räknas som misslyckad
+                adsRead = delivered.get();
+                error = e;
+                log.error("Fel vid hämtning av snapshot chunk {}: {}", chunkIndex, e.getMessage(), e);
+            }
+            if (fetchStart > 0) {
+                // Tid som hämtningen stod still för att kön var full räknas inte som hämtning
+                recordStage("fetch", System.nanoTime() - fetchStart - blockedNanos.get());
+                recordQueueWait("producer", blockedNanos.get());
+            }
+
+            // Bara en felfri tom chunk betyder att snapshoten är slut, ett fel räknas som misslyckad chunk
+            if (adsRead == 0 && error == null) {
+                markEndAt(chunkIndex);
+            }
+
+            try {
+                put(chunkQueue, new ChunkEnd(chunkIndex, adsRead, error));
+            } catch (CancellationException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Konverterings- och persistenssteget: tar nästa chunk i indexordning tills snapshoten är slut
+     */
+    private void persistLoop(ArbetsformedlingenService.ChunkProcessor processor,
+                             ChunkCommitListener commitListener,
+                             ChunkWatermark watermark,
+                             PipelineTotals totals) throws InterruptedException {
+        while (!stopped.get()) {
+            int chunkIndex = nextPersistChunkIndex.getAndIncrement();
+            if (chunkIndex >= endChunkIndex) {
+                return;
+            }
+            try {
+                if (!persistChunk(chunkIndex, processor, commitListener, watermark, totals)) {
+                    return;
+                }
+            } finally {
+                fetchedChunks.remove(chunkIndex);
+            }
+        }
+    }
+
+    /**
+     * Konverterar och persisterar en chunk i dess egen transaktion
+     *
+     * @return false om chunken var tom eller låg efter snapshotens slut
+     */
+    private boolean persistChunk(int chunkIndex,
+                                 ArbetsformedlingenService.ChunkProcessor processor,
+                                 ChunkCommitListener commitListener,
+                                 ChunkWatermark watermark,
+                                 PipelineTotals totals) throws InterruptedException {
+        BlockingQueue<Object> chunkQueue = chunkQueue(chunkIndex);
+        int processedInChunk = 0;
+        boolean chunkFailed = false;
+        TransactionStatus transaction = null;
+        long waitNanos = 0;
+        long firstItemNanos = 0;
+
+        try {
+            while (true) {
+                long pollStart = System.nanoTime();
+                Object item = chunkQueue.poll(END_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                waitNanos += System.nanoTime() - pollStart;
+                if (firstItemNanos == 0 && item != null) {
+                    firstItemNanos = System.nanoTime();
+                }
+                if (item == null) {
+                    // Chunkar efter den första tomma hämtas aldrig
+                    if (chunkIndex > endChunkIndex) {
+                        return false;
+                    }
+                    continue;
+                }
+
+                if (item instanceof ChunkEnd chunkEnd) {
+                    if (chunkEnd.adsRead == 0 && chunkEnd.error == null) {
+                        log.info("Inga fler jobb att hämta efter chunk {}", chunkIndex);
+                        totals.reachedEnd();
+                        return false;
+                    }
+
+                    boolean complete = !chunkFailed && chunkEnd.error == null;
+                    long commitStart = System.nanoTime();
+                    if (complete) {
+                        if (transaction == null) {
+                            transaction = beginChunkTransaction(chunkIndex);
+                        }
+                        TransactionStatus committing = transaction;
+                        transaction = null;
+                        if (!commitInOrder(committing, chunkEnd, commitListener, watermark)) {
+                            complete = false;
+                            processedInChunk = 0;
+                        }
+                    } else if (transaction != null) {
+                        // En chunk med hämtningsfel committar ingenting, den hämtas om från checkpointen
+                        rollback(transaction);
+                        transaction = null;
+                        processedInChunk = 0;
+                    }
+                    long chunkEndNanos = System.nanoTime();
+                    recordStage("commit", chunkEndNanos - commitStart);
+                    recordQueueWait("consumer", waitNanos);
+                    if (metricsConfig != null) {
+                        metricsConfig.recordSyncChunk(MetricsConfig.SYNC_SNAPSHOT, processedInChunk,
+                                chunkEndNanos - firstItemNanos);
+                    }
+
+                    int totalProcessed = totals.chunkDone(chunkEnd.adsRead, processedInChunk, complete);
+                    log.info("Chunk {} bearbetad: {} jobb, totalt: {}", chunkIndex, processedInChunk, totalProcessed);
+                    return true;
+                }
+
+                if (chunkFailed) {
+                    // Resten av en misslyckad chunk töms ur kön utan att skrivas
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                List<AfJobStreamJob> ads = (List<AfJobStreamJob>) item;
+                long convertStart = System.nanoTime();
+                List<JobListing> jobs = new ArrayList<>(ads.size());
+                for (AfJobStreamJob ad : ads) {
+                    converter.apply(ad).ifPresent(jobs::add);
+                }
+                recordStage("convert", System.nanoTime() - convertStart);
+                if (jobs.isEmpty()) {
+                    continue;
+                }
+
+                if (transaction == null) {
+                    transaction = beginChunkTransaction(chunkIndex);
+                }
+                long writeStart = System.nanoTime();
+                try {
+                    processedInChunk += processor.processChunk(jobs, chunkIndex);
+                    flushAndClear();
+                    recordStage("write", System.nanoTime() - writeStart);
+                } catch (Exception e) {
+                    chunkFailed = true;
+                    if (transaction != null) {
+                        // Chunkens tidigare batchar rullas tillbaka tillsammans med denna, senare skrivs inte
+                        rollback(transaction);
+                        transaction = null;
+                        processedInChunk = 0;
+                    }
+                    log.error("Fel vid bearbetning av batch i chunk {}: {}", chunkIndex, e.getMessage(), e);
+                }
+            }
+        } finally {
+            if (transaction != null) {
+                rollback(transaction);
+            }
+        }
+    }
+
+    private TransactionStatus beginChunkTransaction(int chunkIndex) {
+        if (transactionManager == null) {
+            return null;
+        }
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setName("snapshot-chunk-" + chunkIndex);
+        return transactionManager.getTransaction(definition);
+    }
+
+    /**
+     * Committar en felfri chunk. Om chunken flyttar fram vattenmärket anropas listenern först,
+     * i chunkens transaktion. Commits serialiseras så att vattenmärket alltid motsvarar
+     * committade chunkar, medan bearbetningen av batcharna fortfarande sker parallellt.
+     *
+     * @return false om listenern eller commit misslyckades och chunken rullades tillbaka
+     */
+    private boolean commitInOrder(TransactionStatus transaction, ChunkEnd chunkEnd,
+                                  ChunkCommitListener commitListener, ChunkWatermark watermark) {
+        watermark.lock.lock();
+        try {
+            ChunkWatermark.Position advanced = watermark.advanceWith(chunkEnd.chunkIndex, chunkEnd.adsRead);
+            try {
+                if (advanced != null) {
+                    commitListener.chunkCommitted(advanced.chunkIndex, advanced.adsRead);
+                    flushAndClear();
+                }
+            } catch (RuntimeException e) {
+                log.error("Kunde inte spara checkpoint för chunk {}: {}", chunkEnd.chunkIndex, e.getMessage(), e);
+                rollback(transaction);
+                return false;
+            }
+
+            if (!commit(transaction, chunkEnd.chunkIndex)) {
+                return false;
+            }
+            watermark.markCommitted(chunkEnd.chunkIndex, chunkEnd.adsRead);
+            return true;
+        } finally {
+            watermark.lock.unlock();
+        }
+    }
+
+    private boolean commit(TransactionStatus transaction, int chunkIndex) {
+        if (transaction == null) {
+            return true;
+        }
+        try {
+            transactionManager.commit(transaction);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Commit av chunk {} misslyckades: {}", chunkIndex, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void rollback(TransactionStatus transaction) {
+        if (transaction == null || transaction.isCompleted()) {
+            return;
+        }
+        try {
+            transactionManager.rollback(transaction);
+        } catch (RuntimeException e) {
+            log.warn("Rollback av chunk-transaktion misslyckades: {}", e.getMessage());
+        }
+    }
+
+    private void flushAndClear() {
+        if (transactionManager != null && entityManager != null) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private BlockingQueue<Object> chunkQueue(int chunkIndex) {
+        return fetchedChunks.computeIfAbsent(chunkIndex, index -> new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    private synchronized void markEndAt(int chunkIndex) {
+        if (chunkIndex < endChunkIndex) {
+            endChunkIndex = chunkIndex;
+        }
+    }
+
+    /**
+     * Lägger ett element i kön och blockerar vid full kö. Avbryts om pipelinen stoppas.
+     *
+     * @return Tid i nanosekunder som anropet blockerades
+     */
+    private long put(BlockingQueue<Object> queue, Object item) {
+        long start = System.nanoTime();
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Snapshot-pipelinen avbröts");
+        }
+        long blocked = System.nanoTime() - start;
+        if (stopped.get()) {
+            throw new CancellationException("Snapshot-pipelinen avbröts");
+        }
+        if (metricsConfig != null) {
+            metricsConfig.recordSyncQueueDepth(queue.size());
+        }
+        return blocked;
+    }
+
+    private void recordStage(String stage, long durationNanos) {
+        if (metricsConfig != null) {
+            metricsConfig.recordSyncStage(MetricsConfig.SYNC_SNAPSHOT, stage, durationNanos);
+        }
+    }
+
+    private void recordQueueWait(String side, long durationNanos) {
+        if (metricsConfig != null) {
+            metricsConfig.recordSyncQueueWait(side, durationNanos);
+        }
+    }
+
+    private static class ChunkEnd {
+        private final int chunkIndex;
+        private final int adsRead;
+        private final Exception error;
+
+        ChunkEnd(int chunkIndex, int adsRead, Exception error) {
+            this.chunkIndex = chunkIndex;
+            this.adsRead = adsRead;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Håller reda på committade chunkar. Vattenmärket är den högsta chunk där alla
+     * chunkar med lägre index också är committade. Anropas under {@link #lock}, som är ett
+     * {@link ReentrantLock} eftersom commit sker under låset och synchronized skulle låsa
+     * en virtuell tråd vid sin bärartråd.
+     */
+    static class ChunkWatermark {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<Integer, Integer> committedAhead = new TreeMap<>();
+        private int nextChunkIndex;
+
+        /**
+         * @return Nytt vattenmärke om chunken committas, eller null om en lägre chunk saknas
+         */
+        Position advanceWith(int chunkIndex, int adsRead) {
+            if (chunkIndex != nextChunkIndex) {
+                return null;
+            }
+            int index = chunkIndex;
+            int reads = adsRead;
+            while (committedAhead.containsKey(index + 1)) {
+                index++;
+                reads = committedAhead.get(index);
+            }
+            return new Position(index, reads);
+        }
+
+        void markCommitted(int chunkIndex, int adsRead) {
+            committedAhead.put(chunkIndex, adsRead);
+            while (committedAhead.remove(nextChunkIndex) != null) {
+                nextChunkIndex++;
+            }
+        }
+
+        static class Position {
+            final int chunkIndex;
+            final int adsRead;
+
+            Position(int chunkIndex, int adsRead) {
+                this.chunkIndex = chunkIndex;
+                this.adsRead = adsRead;
+            }
+        }
+    }
+
+    /**
+     * Summeringar som delas av persistensarbetarna
+     */
+    private static class PipelineTotals {
+        private int adsRead;
+        private int totalProcessed;
+        private int successfulChunks;
+        private int failedChunks;
+        private boolean reachedEnd;
+
+        synchronized void reachedEnd() {
+            reachedEnd = true;
+        }
+
+        synchronized int chunkDone(int chunkAdsRead, int processed, boolean successful) {
+            adsRead += chunkAdsRead;
+            totalProcessed += processed;
+            if (successful) {
+                successfulChunks++;
+            } else {
+                failedChunks++;
+            }
+            return totalProcessed;
+        }
+
+        synchronized PipelineResult toResult() {
+            return new PipelineResult(adsRead, totalProcessed, successfulChunks, failedChunks, reachedEnd);
+        }
+    }
+
+    /**
+     * Resultat från en pipelinekörning
+     */
+    public static class PipelineResult {
+        private final int adsRead;
+        private final int totalProcessed;
+        private final int successfulChunks;
+        private final int failedChunks;
+        private final boolean reachedEnd;
+
+        /**
+         * @param reachedEnd true om körningen läste en felfri tom chunk, dvs. hela snapshoten
+         */
+        public PipelineResult(int adsRead, int totalProcessed, int successfulChunks, int failedChunks,
+                              boolean reachedEnd) {
+            this.adsRead = adsRead;
+            this.totalProcessed = totalProcessed;
+            this.successfulChunks = successfulChunks;
+            this.failedChunks = failedChunks;
+            this.reachedEnd = reachedEnd;
+        }
+
+        public int getAdsRead() { return adsRead; }
+        public int getTotalProcessed() { return totalProcessed; }
+        public int getSuccessfulChunks() { return successfulChunks; }
+        public int getFailedChunks() { return failedChunks; }
+        public boolean isReachedEnd() { return reachedEnd; }
+    }
+}
@@ -49,6 +49,13 @@ public class SyncCheckpointService {
         }
     }
     
+    /**
+     * Sparar checkpointens cursor och statistik
+     */
+    public SyncCheckpoint saveCheckpoint(SyncCheckpoint checkpoint) {
+        return syncCheckpointRepository.save(checkpoint);
+    }
+    
     /**
      * Hämtar en checkpoint för en specifik synkroniseringstyp
      */
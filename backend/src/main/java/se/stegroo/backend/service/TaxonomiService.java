@@ -2,7 +2,9 @@ package se.stegroo.backend.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClient;
@@ -38,6 +40,8 @@ public class TaxonomiService {
     private final RestClient restClient;
     private final JobCategoryRepository jobCategoryRepository;
     private final SkillRepository skillRepository;
+    private final JobCategoryCache jobCategoryCache;
+    private final TaskExecutor taskExecutor;
     
     // Cache för att undvika duplicerade API-anrop
     private final Map<String, LocalDateTime> lastSyncCache = new ConcurrentHashMap<>();
@@ -45,31 +49,37 @@ public class TaxonomiService {
     public TaxonomiService(
             RestClient restClient,
             JobCategoryRepository jobCategoryRepository,
-            SkillRepository skillRepository) {
+            SkillRepository skillRepository,
+            JobCategoryCache jobCategoryCache,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
         this.restClient = restClient;
         this.jobCategoryRepository = jobCategoryRepository;
         this.skillRepository = skillRepository;
+        this.jobCategoryCache = jobCategoryCache;
+        this.taskExecutor = taskExecutor;
     }
     
     /**
-     * Synkroniserar alla taxonomier från Arbetsförmedlingen
+     * Synkroniserar alla taxonomier från Arbetsförmedlingen.
+     * Typerna hämtas parallellt på applikationens task executor, som använder virtuella
+     * trådar när {@code spring.threads.virtual.enabled} är satt.
      */
     public void syncAllTaxonomies() {
         log.info("Startar synkronisering av alla taxonomier");
         
         try {
-            // Synkronisera olika typer av taxonomier parallellt
+            // Synkronisera olika typer av taxonomier parallellt, inte på common pool eftersom anropen blockerar
             CompletableFuture<Void> occupationSync = CompletableFuture.runAsync(() -> 
-                syncTaxonomyType("occupation", JobCategory.TaxonomyType.OCCUPATION));
+                syncTaxonomyType("occupation", JobCategory.TaxonomyType.OCCUPATION), taskExecutor);
             
             CompletableFuture<Void> skillSync = CompletableFuture.runAsync(() -> 
-                syncTaxonomyType("skill", JobCategory.TaxonomyType.SKILL));
+                syncTaxonomyType("skill", JobCategory.TaxonomyType.SKILL), taskExecutor);
             
             CompletableFuture<Void> employmentTypeSync = CompletableFuture.runAsync(() -> 
-                syncTaxonomyType("employment_type", JobCategory.TaxonomyType.EMPLOYMENT_TYPE));
+                syncTaxonomyType("employment_type", JobCategory.TaxonomyType.EMPLOYMENT_TYPE), taskExecutor);
             
             CompletableFuture<Void> workingHoursSync = CompletableFuture.runAsync(() -> 
-                syncTaxonomyType("working_hours", JobCategory.TaxonomyType.WORKING_HOURS));
+                syncTaxonomyType("working_hours", JobCategory.TaxonomyType.WORKING_HOURS), taskExecutor);
             
             // Vänta på att alla synkroniseringar slutförs
             CompletableFuture.allOf(occupationSync, skillSync, employmentTypeSync, workingHoursSync).join();
@@ -99,6 +109,7 @@ public class TaxonomiService {
             
             if (response != null && response.getAds() != null) {
                 processTaxonomyData(response.getAds(), internalType);
+                jobCategoryCache.invalidate();
                 updateLastSync(taxonomyType);
                 log.info("Taxonomi-typ {} synkroniserad: {} poster", taxonomyType, response.getAds().size());
             } else {
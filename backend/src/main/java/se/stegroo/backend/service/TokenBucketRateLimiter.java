@@ -0,0 +1,81 @@
+package se.stegroo.backend.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Enkel token bucket för att begränsa anropstakten mot externa API:er.
+ * Bucketen fylls på kontinuerligt med {@code permitsPerSecond} och rymmer som mest
+ * {@code burst} tokens, vilket tillåter korta skurar utan att överskrida snittakten.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    private double availableTokens;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond måste vara större än 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.nanoClock = nanoClock;
+        this.availableTokens = this.capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Väntar tills en token finns tillgänglig och förbrukar den
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = reserveOrGetWait()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Förbrukar en token om en finns tillgänglig just nu
+     *
+     * @return true om en token förbrukades
+     */
+    public boolean tryAcquire() {
+        return reserveOrGetWait() == 0;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Förbrukar en token om möjligt, annars returneras antal nanosekunder tills nästa token finns
+     */
+    private synchronized long reserveOrGetWait() {
+        refill();
+        if (availableTokens >= 1) {
+            availableTokens -= 1;
+            return 0;
+        }
+        double missing = 1 - availableTokens;
+        return Math.max(1, (long) Math.ceil(missing * NANOS_PER_SECOND / permitsPerSecond));
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            availableTokens = Math.min(capacity, availableTokens + elapsed * permitsPerSecond / NANOS_PER_SECOND);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Innehållshash för att upptäcka oförändrade annonser vid synkronisering
+ALTER TABLE job_listings ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- Index för bulkuppslagning av hashar per sida (external_id, content_hash)
+CREATE INDEX IF NOT EXISTS idx_job_listings_external_id_hash ON job_listings (external_id, content_hash);
+
+-- Räknare för överhoppade jobb i synkroniseringscheckpoints
+ALTER TABLE sync_checkpoints ADD COLUMN IF NOT EXISTS total_skipped BIGINT DEFAULT 0;
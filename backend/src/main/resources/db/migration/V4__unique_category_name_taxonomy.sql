@@ -0,0 +1,45 @@
+-- Unik kategori per (namn, taxonomi-typ) så att samtidiga noder inte kan skapa dubbletter.
+-- Befintliga dubbletter slås först ihop till raden med lägst id.
+
+UPDATE job_listings
+SET category_id = (
+    SELECT MIN(keeper.id)
+    FROM job_categories duplicate
+    JOIN job_categories keeper
+      ON keeper.name = duplicate.name AND keeper.taxonomy_type = duplicate.taxonomy_type
+    WHERE duplicate.id = job_listings.category_id
+)
+WHERE category_id IN (
+    SELECT c.id FROM job_categories c
+    WHERE EXISTS (
+        SELECT 1 FROM job_categories older
+        WHERE older.name = c.name AND older.taxonomy_type = c.taxonomy_type AND older.id < c.id
+    )
+);
+
+UPDATE job_categories
+SET parent_id = (
+    SELECT MIN(keeper.id)
+    FROM job_categories duplicate
+    JOIN job_categories keeper
+      ON keeper.name = duplicate.name AND keeper.taxonomy_type = duplicate.taxonomy_type
+    WHERE duplicate.id = job_categories.parent_id
+)
+WHERE parent_id IN (
+    SELECT c.id FROM job_categories c
+    WHERE EXISTS (
+        SELECT 1 FROM job_categories older
+        WHERE older.name = c.name AND older.taxonomy_type = c.taxonomy_type AND older.id < c.id
+    )
+);
+
+DELETE FROM job_categories
+WHERE id IN (
+    SELECT c.id FROM job_categories c
+    WHERE EXISTS (
+        SELECT 1 FROM job_categories older
+        WHERE older.name = c.name AND older.taxonomy_type = c.taxonomy_type AND older.id < c.id
+    )
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_job_categories_name_taxonomy ON job_categories (name, taxonomy_type);
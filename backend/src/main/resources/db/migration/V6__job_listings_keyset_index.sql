@@ -0,0 +1,3 @@
+-- Index för keyset-paginering: status filtreras alltid och (created_at, id) är standardsorteringen.
+-- B-trädet läses baklänges för fallande sortering.
+CREATE INDEX IF NOT EXISTS idx_job_listings_status_created_at_id ON job_listings (status, created_at, id);
@@ -0,0 +1,11 @@
+-- Fulltextsökning för jobbannonser (endast PostgreSQL).
+-- Sökvektorn genereras av databasen så att den alltid är i synk med titel, företag och beskrivning.
+-- Vikter: titel (A) rankas högst, därefter företag (B) och beskrivning (C).
+ALTER TABLE job_listings ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('swedish', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('swedish', coalesce(company_name, '')), 'B') ||
+        setweight(to_tsvector('swedish', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_job_listings_search_vector ON job_listings USING GIN (search_vector);
@@ -0,0 +1,9 @@
+-- Sekvenser för pooled-lo id-generering (endast PostgreSQL).
+-- Hibernate reserverar 50 id:n per nextval så att inserts kan batchas; IDENTITY kräver en rundresa per rad.
+-- Rå SQL-inserts (upsert och COPY) använder fortfarande kolumnens default nextval och tar då ett helt block,
+-- vilket bara ger luckor i id-serien.
+ALTER SEQUENCE job_listings_id_seq INCREMENT BY 50;
+ALTER SEQUENCE skills_id_seq INCREMENT BY 50;
+ALTER SEQUENCE job_categories_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dead_letter_queue_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sync_checkpoints_id_seq INCREMENT BY 50;
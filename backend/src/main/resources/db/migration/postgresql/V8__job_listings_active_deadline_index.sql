@@ -0,0 +1,2 @@
+-- Partiellt index för utgångsjobbet: bara aktiva annonser, sorterade på deadline (endast PostgreSQL).
+CREATE INDEX IF NOT EXISTS idx_job_listings_active_deadline ON job_listings (deadline, id) WHERE status = 'ACTIVE';
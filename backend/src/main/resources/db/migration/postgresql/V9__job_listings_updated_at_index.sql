@@ -0,0 +1,2 @@
+-- Index för rekommendationsindexets inkrementella uppdatering, som läser jobb ändrade efter ett vattenmärke (endast PostgreSQL).
+CREATE INDEX IF NOT EXISTS idx_job_listings_updated_at ON job_listings (updated_at);
@@ -0,0 +1,148 @@
+package se.stegroo.backend.aspect;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
+import se.stegroo.backend.config.MetricsConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditEventWriterTest {
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    private final ListAppender<ILoggingEvent> auditEvents = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> securityEvents = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        auditEvents.start();
+        securityEvents.start();
+        ((Logger) LoggerFactory.getLogger("AUDIT")).addAppender(auditEvents);
+        ((Logger) LoggerFactory.getLogger("SECURITY")).addAppender(securityEvents);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger("AUDIT")).detachAppender(auditEvents);
+        ((Logger) LoggerFactory.getLogger("SECURITY")).detachAppender(securityEvents);
+    }
+
+    @Test
+    void stop_ShouldWriteAllPublishedEvents() {
+        // Given
+        AuditEventWriter writer = new AuditEventWriter(16, metricsConfig);
+        writer.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.publish(controllerSuccess("method" + i)));
+        }
+        writer.stop();
+
+        // Then
+        assertEquals(10, auditEvents.list.size());
+        String message = auditEvents.list.get(0).getFormattedMessage();
+        assertTrue(message.startsWith("CONTROLLER_ACCESS_SUCCESS | User: testuser | IP: 10.0.0.1 | Class: JobController | Method: method0 | Duration: 12ms | Timestamp: "),
+                message);
+        assertEquals("audit-writer", auditEvents.list.get(0).getThreadName());
+    }
+
+    @Test
+    void stop_ShouldLetWriterFinishWithoutInterrupting() {
+        // Given - en långsam appender så att stop anropas medan händelser ligger kvar i bufferten
+        List<String> writers = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        AppenderBase<ILoggingEvent> slowAppender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    Thread.currentThread().interrupt();
+                }
+                writers.add(event.getThreadName());
+            }
+        };
+        slowAppender.start();
+        Logger audit = (Logger) LoggerFactory.getLogger("AUDIT");
+        audit.addAppender(slowAppender);
+        AuditEventWriter writer = new AuditEventWriter(64, metricsConfig);
+        writer.start();
+
+        try {
+            // When
+            for (int i = 0; i < 40; i++) {
+                assertTrue(writer.publish(controllerSuccess("method" + i)));
+            }
+            writer.stop();
+        } finally {
+            audit.detachAppender(slowAppender);
+        }
+
+        // Then
+        assertFalse(interrupted.get());
+        assertEquals(40, writers.size());
+        assertTrue(writers.stream().allMatch("audit-writer"::equals), writers.toString());
+        assertEquals("method39", auditEvents.list.get(39).getArgumentArray()[3]);
+    }
+
+    @Test
+    void publish_ShouldDropSampledEventsWhenBufferIsFull() {
+        // Given: skrivtråden är inte startad, så bufferten töms inte
+        AuditEventWriter writer = new AuditEventWriter(1, metricsConfig);
+
+        // When
+        boolean first = writer.publish(controllerSuccess("first"));
+        boolean second = writer.publish(controllerSuccess("second"));
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, writer.getDroppedEvents());
+        verify(metricsConfig).recordAuditEventDropped();
+        assertTrue(auditEvents.list.isEmpty());
+    }
+
+    @Test
+    void publish_ShouldWriteRequiredEventsInlineWhenBufferIsFull() {
+        // Given
+        AuditEventWriter writer = new AuditEventWriter(1, metricsConfig);
+        writer.publish(controllerSuccess("first"));
+
+        // When
+        boolean published = writer.publish(new AuditEvent(AuditEvent.Type.ADMIN_OPERATION_START, System.currentTimeMillis(),
+                "admin", "10.0.0.1", null, "syncSnapshot", null, 0, "[]", true));
+
+        // Then
+        assertTrue(published);
+        assertEquals(0, writer.getDroppedEvents());
+        verifyNoInteractions(metricsConfig);
+        assertEquals(1, securityEvents.list.size());
+        assertEquals(Thread.currentThread().getName(), securityEvents.list.get(0).getThreadName());
+        assertTrue(securityEvents.list.get(0).getFormattedMessage()
+                .startsWith("ADMIN_OPERATION_START | User: admin | IP: 10.0.0.1 | Method: syncSnapshot | Args: [] | Timestamp: "));
+    }
+
+    private static AuditEvent controllerSuccess(String methodName) {
+        return new AuditEvent(AuditEvent.Type.CONTROLLER_ACCESS_SUCCESS, System.currentTimeMillis(),
+                "testuser", "10.0.0.1", "JobController", methodName, null, 12, null, false);
+    }
+}
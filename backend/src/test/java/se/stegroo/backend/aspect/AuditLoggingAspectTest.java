@@ -5,6 +5,7 @@ import org.aspectj.lang.Signature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -13,8 +14,12 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import se.stegroo.backend.controller.AdminController;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,12 +43,15 @@ class AuditLoggingAspectTest {
     @Mock
     private SecurityContext securityContext;
 
+    @Mock
+    private AuditEventWriter auditEventWriter;
+
     private AuditLoggingAspect auditLoggingAspect;
     private MockHttpServletRequest request;
 
     @BeforeEach
     void setUp() {
-        auditLoggingAspect = new AuditLoggingAspect();
+        auditLoggingAspect = new AuditLoggingAspect(auditEventWriter, 1.0);
         
         // Mocka HTTP request
         request = new MockHttpServletRequest();
@@ -77,6 +85,7 @@ class AuditLoggingAspectTest {
         // Verifiera resultat
         assertEquals("success", result);
         verify(joinPoint, times(1)).proceed();
+        verify(auditEventWriter, times(2)).publish(any());
     }
 
     @Test
@@ -229,4 +238,69 @@ class AuditLoggingAspectTest {
         assertEquals("Database connection failed", thrownException.getMessage());
         verify(joinPoint, times(1)).proceed();
     }
+
+    @Test
+    void testSampledOutReadIsNotPublished() throws Throwable {
+        // Läsande anrop med samplingsgrad 0
+        auditLoggingAspect = new AuditLoggingAspect(auditEventWriter, 0.0);
+        when(joinPoint.proceed()).thenReturn("success");
+        request.setMethod("GET");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Object result = auditLoggingAspect.logControllerAccess(joinPoint);
+
+        assertEquals("success", result);
+        verifyNoInteractions(auditEventWriter);
+    }
+
+    @Test
+    void testSampledOutReadFailureIsPublished() throws Throwable {
+        // Misslyckade anrop loggas även när anropet inte samplades
+        auditLoggingAspect = new AuditLoggingAspect(auditEventWriter, 0.0);
+        when(joinPoint.proceed()).thenThrow(new RuntimeException("Boom"));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        SecurityContextHolder.setContext(securityContext);
+        request.setMethod("GET");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThrows(RuntimeException.class, () -> auditLoggingAspect.logControllerAccess(joinPoint));
+
+        ArgumentCaptor<AuditEvent> events = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditEventWriter).publish(events.capture());
+        AuditEvent event = events.getValue();
+        assertEquals(AuditEvent.Type.CONTROLLER_ACCESS_FAILURE, event.type);
+        assertEquals("ANONYMOUS", event.username);
+        assertEquals("192.168.1.100", event.clientIp);
+        assertEquals("Boom", event.detail);
+    }
+
+    @Test
+    void testAdminOperationsAreNeverSampled() throws Throwable {
+        // Admin-anrop loggas fullständigt även med samplingsgrad 0
+        auditLoggingAspect = new AuditLoggingAspect(auditEventWriter, 0.0);
+        when(joinPoint.getTarget()).thenReturn(mock(AdminController.class));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{"occupation-name"});
+        when(joinPoint.proceed()).thenReturn("done");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getName()).thenReturn("admin");
+        SecurityContextHolder.setContext(securityContext);
+        request.setMethod("GET");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        auditLoggingAspect.logControllerAccess(joinPoint);
+        auditLoggingAspect.logAdminOperations(joinPoint);
+
+        ArgumentCaptor<AuditEvent> events = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditEventWriter, times(4)).publish(events.capture());
+        List<AuditEvent> published = events.getAllValues();
+        assertEquals(AuditEvent.Type.CONTROLLER_ACCESS_START, published.get(0).type);
+        assertEquals(AuditEvent.Type.CONTROLLER_ACCESS_SUCCESS, published.get(1).type);
+        assertEquals(AuditEvent.Type.ADMIN_OPERATION_START, published.get(2).type);
+        assertEquals("[occupation-name]", published.get(2).detail);
+        assertTrue(published.get(2).required);
+        assertEquals(AuditEvent.Type.ADMIN_OPERATION_SUCCESS, published.get(3).type);
+        assertEquals("done", published.get(3).detail);
+        assertEquals("admin", published.get(3).username);
+    }
 }
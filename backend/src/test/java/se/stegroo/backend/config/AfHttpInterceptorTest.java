@@ -0,0 +1,146 @@
+package se.stegroo.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class AfHttpInterceptorTest {
+
+    private static final URI SNAPSHOT = URI.create("https://jobstream.api.jobtechdev.se/snapshot");
+
+    @Test
+    void intercept_ShouldRequestGzipAndDecodeBody() throws Exception {
+        // Given
+        RestClient.Builder builder = RestClient.builder()
+                .requestInterceptor(new AfHttpInterceptor(2, Duration.ofSeconds(1), null));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        server.expect(requestTo(SNAPSHOT))
+                .andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andRespond(withSuccess(gzip("[{\"id\":\"af-1\"}]"), MediaType.APPLICATION_JSON).headers(headers));
+
+        // When
+        String body = builder.build().get().uri(SNAPSHOT).retrieve().body(String.class);
+
+        // Then
+        assertEquals("[{\"id\":\"af-1\"}]", body);
+        server.verify();
+    }
+
+    @Test
+    void intercept_ShouldDecodeZlibAndRawDeflate() throws Exception {
+        // Given
+        AfHttpInterceptor interceptor = new AfHttpInterceptor(2, Duration.ofSeconds(1), null);
+        String json = "[{\"id\":\"af-1\",\"headline\":\"Utvecklare\"}]";
+
+        for (boolean raw : new boolean[] {false, true}) {
+            MockClientHttpResponse compressed = new MockClientHttpResponse(deflate(json, raw), HttpStatus.OK);
+            compressed.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "deflate");
+
+            // When
+            try (ClientHttpResponse response = interceptor.intercept(
+                    new MockClientHttpRequest(HttpMethod.GET, SNAPSHOT), new byte[0], (req, body) -> compressed)) {
+
+                // Then
+                assertEquals(json, new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+                assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            }
+        }
+    }
+
+    @Test
+    void close_ShouldRecordWireAndDecodedBytes() throws Exception {
+        // Given
+        MetricsConfig metricsConfig = mock(MetricsConfig.class);
+        AfHttpInterceptor interceptor = new AfHttpInterceptor(2, Duration.ofSeconds(1), metricsConfig);
+        String json = "[" + "{\"headline\":\"Utvecklare\"},".repeat(200) + "{}]";
+        byte[] compressed = gzip(json);
+        MockClientHttpResponse gzipped = new MockClientHttpResponse(compressed, HttpStatus.OK);
+        gzipped.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        // When
+        try (ClientHttpResponse response = interceptor.intercept(
+                new MockClientHttpRequest(HttpMethod.GET, SNAPSHOT), new byte[0], (req, body) -> gzipped)) {
+            response.getBody().transferTo(OutputStream.nullOutputStream());
+        }
+
+        // Then
+        verify(metricsConfig).recordExternalApiBytes(compressed.length, json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void intercept_ShouldHoldPermitUntilResponseIsClosed() throws Exception {
+        // Given
+        AfHttpInterceptor interceptor = new AfHttpInterceptor(1, Duration.ofMillis(20), null);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, SNAPSHOT);
+
+        // When
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0],
+                (req, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+
+        // Then
+        assertEquals(0, interceptor.availablePermits(SNAPSHOT.getHost()));
+        assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0],
+                (req, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK)));
+
+        response.close();
+        response.close();
+        assertEquals(1, interceptor.availablePermits(SNAPSHOT.getHost()));
+    }
+
+    @Test
+    void intercept_ShouldReleasePermitWhenRequestFails() {
+        // Given
+        AfHttpInterceptor interceptor = new AfHttpInterceptor(1, Duration.ofMillis(20), null);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, SNAPSHOT);
+
+        // When
+        assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0], (req, body) -> {
+            throw new IOException("Connection reset");
+        }));
+
+        // Then
+        assertEquals(1, interceptor.availablePermits(SNAPSHOT.getHost()));
+    }
+
+    private byte[] deflate(String text, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
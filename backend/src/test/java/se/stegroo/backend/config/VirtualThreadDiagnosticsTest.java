@@ -0,0 +1,38 @@
+package se.stegroo.backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class VirtualThreadDiagnosticsTest {
+
+    @Test
+    void start_ShouldStayInactiveWhenDisabled() {
+        // Given
+        MetricsConfig metricsConfig = mock(MetricsConfig.class);
+        VirtualThreadDiagnostics diagnostics = new VirtualThreadDiagnostics(false, 20, metricsConfig);
+
+        // When
+        diagnostics.start();
+        diagnostics.stop();
+
+        // Then
+        assertFalse(diagnostics.isActive());
+        verifyNoInteractions(metricsConfig);
+    }
+
+    @Test
+    void isActive_ShouldRequireJava21() {
+        // Given
+        VirtualThreadDiagnostics diagnostics = new VirtualThreadDiagnostics(true, 20, null);
+
+        // When
+        diagnostics.start();
+
+        // Then
+        assertEquals(Runtime.version().feature() >= 21, diagnostics.isActive());
+        assertDoesNotThrow(diagnostics::stop);
+    }
+}
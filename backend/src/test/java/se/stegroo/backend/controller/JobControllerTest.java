@@ -19,6 +19,7 @@ import se.stegroo.backend.model.Skill;
 import se.stegroo.backend.repository.JobCategoryRepository;
 import se.stegroo.backend.repository.JobListingRepository;
 import se.stegroo.backend.repository.SkillRepository;
+import se.stegroo.backend.service.JobSearchService;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -40,6 +41,9 @@ class JobControllerTest {
     @Mock
     private SkillRepository skillRepository;
 
+    @Mock
+    private JobSearchService jobSearchService;
+
     @InjectMocks
     private JobController jobController;
 
@@ -81,9 +85,9 @@ class JobControllerTest {
     @Test
     void getAllJobs_ShouldReturnPagedJobs() {
         // Given
-        List<JobListing> jobs = Arrays.asList(testJob);
-        Page<JobListing> jobPage = new PageImpl<>(jobs, PageRequest.of(0, 20), 1);
-        when(jobListingRepository.findAll(any(Pageable.class))).thenReturn(jobPage);
+        List<JobListingDTO> jobs = Arrays.asList(listingDTO(testJob));
+        Page<JobListingDTO> jobPage = new PageImpl<>(jobs, PageRequest.of(0, 20), 1);
+        when(jobSearchService.listJobs(any(Pageable.class))).thenReturn(jobPage);
 
         // When
         ResponseEntity<Page<JobListingDTO>> response = jobController.getAllJobs(0, 20, "createdAt", "desc");
@@ -93,13 +97,14 @@ class JobControllerTest {
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().getContent().size());
         assertEquals("Senior Java Developer", response.getBody().getContent().get(0).getTitle());
-        verify(jobListingRepository).findAll(any(Pageable.class));
+        verify(jobSearchService).listJobs(any(Pageable.class));
+        verify(jobListingRepository, never()).findAll(any(Pageable.class));
     }
 
     @Test
     void getAllJobs_ShouldHandleException() {
         // Given
-        when(jobListingRepository.findAll(any(Pageable.class)))
+        when(jobSearchService.listJobs(any(Pageable.class)))
                 .thenThrow(new RuntimeException("Database error"));
 
         // When
@@ -107,7 +112,7 @@ class JobControllerTest {
 
         // Then
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        verify(jobListingRepository).findAll(any(Pageable.class));
+        verify(jobSearchService).listJobs(any(Pageable.class));
     }
 
     @Test
@@ -382,8 +387,8 @@ class JobControllerTest {
     @Test
     void getJobsByStatus_ShouldReturnJobsWithSpecifiedStatus() {
         // Given
-        List<JobListing> activeJobs = Arrays.asList(testJob);
-        when(jobListingRepository.findByStatus(JobListing.Status.ACTIVE)).thenReturn(activeJobs);
+        List<JobListingDTO> activeJobs = Arrays.asList(listingDTO(testJob));
+        when(jobSearchService.listJobsByStatus(JobListing.Status.ACTIVE)).thenReturn(activeJobs);
 
         // When
         ResponseEntity<List<JobListingDTO>> response = jobController.getJobsByStatus(JobListing.Status.ACTIVE);
@@ -393,13 +398,13 @@ class JobControllerTest {
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().size());
         assertEquals("Senior Java Developer", response.getBody().get(0).getTitle());
-        verify(jobListingRepository).findByStatus(JobListing.Status.ACTIVE);
+        verify(jobSearchService).listJobsByStatus(JobListing.Status.ACTIVE);
     }
 
     @Test
     void getJobsByStatus_ShouldReturnEmptyList_WhenNoJobsWithStatus() {
         // Given
-        when(jobListingRepository.findByStatus(JobListing.Status.EXPIRED)).thenReturn(Collections.emptyList());
+        when(jobSearchService.listJobsByStatus(JobListing.Status.EXPIRED)).thenReturn(Collections.emptyList());
 
         // When
         ResponseEntity<List<JobListingDTO>> response = jobController.getJobsByStatus(JobListing.Status.EXPIRED);
@@ -408,13 +413,13 @@ class JobControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertTrue(response.getBody().isEmpty());
-        verify(jobListingRepository).findByStatus(JobListing.Status.EXPIRED);
+        verify(jobSearchService).listJobsByStatus(JobListing.Status.EXPIRED);
     }
 
     @Test
     void getJobsByStatus_ShouldHandleException() {
         // Given
-        when(jobListingRepository.findByStatus(JobListing.Status.ACTIVE))
+        when(jobSearchService.listJobsByStatus(JobListing.Status.ACTIVE))
                 .thenThrow(new RuntimeException("Database error"));
 
         // When
@@ -422,7 +427,7 @@ class JobControllerTest {
 
         // Then
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        verify(jobListingRepository).findByStatus(JobListing.Status.ACTIVE);
+        verify(jobSearchService).listJobsByStatus(JobListing.Status.ACTIVE);
     }
 
     @Test
@@ -493,4 +498,14 @@ class JobControllerTest {
             fail("Failed to test convertToDTO method with null category: " + e.getMessage());
         }
     }
+
+    private JobListingDTO listingDTO(JobListing job) {
+        return JobListingDTO.builder()
+                .id(job.getId())
+                .title(job.getTitle())
+                .companyName(job.getCompanyName())
+                .location(job.getLocation())
+                .createdAt(job.getCreatedAt())
+                .build();
+    }
 }
@@ -8,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import se.stegroo.backend.dto.JobSearchFacets;
 import se.stegroo.backend.dto.JobSearchRequest;
 import se.stegroo.backend.dto.JobSearchResponse;
 import se.stegroo.backend.model.JobCategory;
@@ -22,6 +23,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -324,26 +326,44 @@ class JobSearchControllerTest {
     @Test
     void getAvailableFilters_ShouldReturnFilterMap() {
         // Given
-        JobSearchResponse.JobStats stats = new JobSearchResponse.JobStats();
-        stats.setTotalJobs(100L);
-        List<JobCategory> popularCategories = Arrays.asList(category);
-        List<Skill> popularSkills = Arrays.asList(skill);
-        
-        when(jobSearchService.getJobStats()).thenReturn(stats);
-        when(jobSearchService.getPopularCategories(5)).thenReturn(popularCategories);
-        when(jobSearchService.getPopularSkills(10)).thenReturn(popularSkills);
+        JobSearchRequest request = new JobSearchRequest("java", "Stockholm", null);
+        request.setEmploymentType("Heltid");
+        JobSearchFacets facets = new JobSearchFacets();
+        facets.setTotalCount(12);
+        List<JobSearchFacets.FacetValue> categories = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            categories.add(new JobSearchFacets.FacetValue(String.valueOf(i), "Kategori " + i, 7 - i));
+        }
+        facets.setCategories(categories);
+        facets.setSkills(List.of(new JobSearchFacets.FacetValue("1", "Java", 12)));
+        when(jobSearchService.getFacets(request, JobSearchService.DEFAULT_FACET_LIMIT)).thenReturn(facets);
 
         // When
-        ResponseEntity<java.util.Map<String, Object>> response = jobSearchController.getAvailableFilters();
+        ResponseEntity<java.util.Map<String, Object>> response = jobSearchController.getAvailableFilters(request);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertTrue(response.getBody().containsKey("stats"));
-        assertTrue(response.getBody().containsKey("popularCategories"));
-        assertTrue(response.getBody().containsKey("popularSkills"));
-        verify(jobSearchService).getJobStats();
-        verify(jobSearchService).getPopularCategories(5);
-        verify(jobSearchService).getPopularSkills(10);
+        assertSame(facets, response.getBody().get("facets"));
+        assertEquals(categories.subList(0, 5), response.getBody().get("popularCategories"));
+        assertEquals(facets.getSkills(), response.getBody().get("popularSkills"));
+        verify(jobSearchService).getFacets(request, JobSearchService.DEFAULT_FACET_LIMIT);
+        verifyNoMoreInteractions(jobSearchService);
+    }
+
+    @Test
+    void getFacets_ShouldReturnFacetsForRequest() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest("java", "Stockholm", null);
+        JobSearchFacets facets = new JobSearchFacets();
+        facets.setTotalCount(3);
+        when(jobSearchService.getFacets(request, 20)).thenReturn(facets);
+
+        // When
+        ResponseEntity<JobSearchFacets> response = jobSearchController.getFacets(request, 20);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().getTotalCount());
     }
 }
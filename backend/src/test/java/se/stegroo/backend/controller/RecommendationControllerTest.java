@@ -0,0 +1,107 @@
+package se.stegroo.backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import se.stegroo.backend.controller.RecommendationController.RecommendationDTO;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.UserProfileRepository;
+import se.stegroo.backend.service.SkillRecommendationIndex;
+import se.stegroo.backend.service.SkillRecommendationIndex.Recommendation;
+import se.stegroo.backend.service.SkillRecommendationIndex.Scoring;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationControllerTest {
+
+    @Mock
+    private SkillRecommendationIndex skillRecommendationIndex;
+
+    @Mock
+    private JobListingRepository jobListingRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @InjectMocks
+    private RecommendationController recommendationController;
+
+    @Test
+    void getRecommendations_ShouldReturnJobsInIndexOrder() {
+        // Given
+        when(skillRecommendationIndex.recommend(List.of(1L, 2L), 20, Scoring.JACCARD))
+                .thenReturn(List.of(new Recommendation(7L, 1.0, 2), new Recommendation(3L, 0.5, 1)));
+        when(jobListingRepository.findListingDTOs(any(), eq(Sort.unsorted()), eq(0))).thenReturn(List.of(job(3L), job(7L)));
+
+        // When
+        ResponseEntity<List<RecommendationDTO>> response =
+                recommendationController.getRecommendations(List.of(1L, 2L), 20, "jaccard", null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<RecommendationDTO> body = response.getBody();
+        assertEquals(2, body.size());
+        assertEquals(7L, body.get(0).getJobId());
+        assertEquals("Utvecklare 7", body.get(0).getTitle());
+        assertEquals(1.0, body.get(0).getScore());
+        assertEquals(2, body.get(0).getMatchedSkills());
+        assertEquals(3L, body.get(1).getJobId());
+        verifyNoInteractions(userProfileRepository);
+    }
+
+    @Test
+    void getRecommendations_ShouldUseProfileSkillsForAuthenticatedUser() {
+        // Given
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "user-1", null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(userProfileRepository.findSkillIdsByUserId("user-1")).thenReturn(List.of(5L));
+        when(skillRecommendationIndex.recommend(List.of(5L), 100, Scoring.OVERLAP))
+                .thenReturn(List.of(new Recommendation(9L, 1.0, 1)));
+        when(jobListingRepository.findListingDTOs(any(), eq(Sort.unsorted()), eq(0))).thenReturn(List.of());
+
+        // When
+        ResponseEntity<List<RecommendationDTO>> response =
+                recommendationController.getRecommendations(null, 500, "overlap", authentication);
+
+        // Then: jobbet har gått ut sedan indexet uppdaterades och filtreras bort av frågan
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isEmpty());
+    }
+
+    @Test
+    void getRecommendations_ShouldRejectMissingSkillsAndUnknownScoring() {
+        // When
+        ResponseEntity<List<RecommendationDTO>> withoutSkills =
+                recommendationController.getRecommendations(List.of(), 20, "overlap", null);
+        ResponseEntity<List<RecommendationDTO>> unknownScoring =
+                recommendationController.getRecommendations(List.of(1L), 20, "cosine", null);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, withoutSkills.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, unknownScoring.getStatusCode());
+        verify(skillRecommendationIndex, never()).recommend(any(), anyInt(), any());
+    }
+
+    private static JobListingDTO job(Long id) {
+        JobListingDTO job = new JobListingDTO();
+        job.setId(id);
+        job.setTitle("Utvecklare " + id);
+        job.setCompanyName("Stegroo AB");
+        job.setLocation("Stockholm");
+        return job;
+    }
+}
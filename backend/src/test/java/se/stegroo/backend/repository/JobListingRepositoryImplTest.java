@@ -0,0 +1,229 @@
+package se.stegroo.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.stegroo.backend.model.JobCategory;
+import se.stegroo.backend.model.JobListing;
+import se.stegroo.backend.repository.JobListingRepositoryCustom.UpsertPolicy;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobListingRepositoryImplTest {
+
+    private static final int UPSERT_COLUMNS = 18;
+
+    @Test
+    void toCsvRow_ShouldQuoteValuesAndKeepNullsEmpty() {
+        // Given
+        JobListing job = new JobListing();
+        job.setTitle("Utvecklare, \"senior\"");
+        job.setDescription("");
+        job.setCompanyName("Rad1\nRad2");
+        job.setExternalId("af-1");
+        job.setPublishedAt(LocalDateTime.of(2024, 3, 1, 8, 30));
+        JobCategory category = new JobCategory();
+        category.setId(7L);
+        job.setCategory(category);
+        LocalDateTime now = LocalDateTime.of(2024, 3, 2, 12, 0);
+
+        // When
+        String row = JobListingRepositoryImpl.toCsvRow(job, now);
+
+        // Then
+        assertEquals("\"Utvecklare, \"\"senior\"\"\",\"\",\"Rad1\nRad2\",,\"af-1\",,\"arbetsformedlingen\",,,"
+                + "\"2024-03-01 08:30:00.0\",,\"ACTIVE\",\"2024-03-02 12:00:00.0\",,,7,"
+                + "\"2024-03-02 12:00:00.0\",\"2024-03-02 12:00:00.0\"\n", row);
+    }
+
+    @Test
+    void upsertByExternalId_ShouldIsolateFailingRowWhenSliceFails() throws Exception {
+        // Given - en PostgreSQL-anslutning där satsen med raden "af-bad" avvisas
+        Connection connection = postgresConnection();
+        Savepoint savepoint = mock(Savepoint.class);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        JobListingRepositoryImpl repository = repositoryOn(connection);
+
+        JobListing bad = job("af-bad");
+        List<JobListing> slice = List.of(job("af-1"), bad, job("af-2"));
+
+        // When
+        JobListingUpsertResult result = repository.upsertByExternalId(slice, UpsertPolicy.ALWAYS);
+
+        // Then - den felande raden rapporteras, resten av sidan skrivs rad för rad
+        assertEquals(1, result.getFailedCount());
+        assertSame(bad, result.getFailures().get(0).getJob());
+        assertEquals(List.of("af-1", "af-2"), result.getInsertedExternalIds());
+        // Hela sidan och den enskilda felande raden rullas tillbaka till sin savepoint
+        verify(connection, times(2)).rollback(savepoint);
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void recordMergeOutcome_ShouldClassifyEveryStagedJob() {
+        // Given - af-2 uppdaterades och har därför samma hash som stagingen efter sammanslagningen
+        List<JobListing> jobs = List.of(job("af-1"), job("af-2"), job("af-3"), job("af-4"));
+        JobListingUpsertResult result = new JobListingUpsertResult();
+
+        // When
+        JobListingRepositoryImpl.recordMergeOutcome(jobs, List.of("af-1"), List.of("af-2"),
+                Set.of("af-2", "af-3"), result);
+
+        // Then
+        assertEquals(List.of("af-1"), result.getInsertedExternalIds());
+        assertEquals(List.of("af-2"), result.getUpdatedExternalIds());
+        assertEquals(List.of("af-3"), result.getSkippedExternalIds());
+        assertEquals(List.of("af-4"), result.getUnchangedExternalIds());
+    }
+
+    @Test
+    void bulkLoadByExternalId_ShouldReplaceSkillsForTouchedJobsWithoutSkills() throws Exception {
+        // Given - af-1 uppdateras och har inte längre några kompetenser
+        Connection connection = postgresConnection();
+        when(connection.setSavepoint()).thenReturn(mock(Savepoint.class));
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenAnswer(invocation -> mock(CopyIn.class));
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        ResultSet merged = rows(List.of("af-1"), false);
+        ResultSet stagedUnchanged = rows(List.of("af-1"), false);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).startsWith("INSERT") ? merged : stagedUnchanged);
+        JobListingRepositoryImpl repository = repositoryOn(connection);
+
+        // When
+        JobListingUpsertResult result = repository.bulkLoadByExternalId(List.of(job("af-1")), UpsertPolicy.ALWAYS);
+
+        // Then - kopplingarna raderas för den berörda annonsen utan att nya kopplingar slås ihop
+        assertEquals(List.of("af-1"), result.getUpdatedExternalIds());
+        assertEquals(0, result.getSkippedCount());
+        verify(copyManager).copyIn(contains("job_listings_touched"));
+        verify(copyManager, never()).copyIn(contains("job_skills_staging"));
+        verify(statement).executeUpdate(contains("DELETE FROM job_skills"));
+        verify(statement, never()).executeUpdate(startsWith("INSERT INTO job_skills"));
+    }
+
+    @Test
+    void bulkLoadByExternalId_ShouldFallBackToUpsertWhenCopyFails() throws Exception {
+        // Given - COPY stöds inte av anslutningen, upserten isolerar sedan den felande raden
+        Connection connection = postgresConnection();
+        Savepoint savepoint = mock(Savepoint.class);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenThrow(new SQLException("COPY stöds inte"));
+        JobListingRepositoryImpl repository = repositoryOn(connection);
+
+        JobListing bad = job("af-bad");
+        List<JobListing> jobs = List.of(job("af-1"), job("af-1"), bad, job("af-2"));
+
+        // When
+        JobListingUpsertResult result = repository.bulkLoadByExternalId(jobs, UpsertPolicy.ALWAYS);
+
+        // Then - dubbletten från importförsöket följer med till upsertens resultat
+        assertEquals(List.of("af-1", "af-2"), result.getInsertedExternalIds());
+        assertEquals(List.of("af-1"), result.getUnchangedExternalIds());
+        assertEquals(1, result.getFailedCount());
+        assertSame(bad, result.getFailures().get(0).getJob());
+        // Importen, hela sidan och den felande raden rullas tillbaka till sin savepoint
+        verify(connection, times(3)).rollback(savepoint);
+    }
+
+    private static JobListingRepositoryImpl repositoryOn(Connection connection) throws SQLException {
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return sql.startsWith("SELECT") ? hashLookup() : upsertStatement();
+        });
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // Som JdbcTemplate översätts SQLException till DataAccessException
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            try {
+                return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("ConnectionCallback", null, e);
+            }
+        });
+        return new JobListingRepositoryImpl(jdbcTemplate);
+    }
+
+    private static Connection postgresConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.createArrayOf(anyString(), any())).thenReturn(mock(Array.class));
+        return connection;
+    }
+
+    private static PreparedStatement hashLookup() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet empty = mock(ResultSet.class);
+        when(statement.executeQuery()).thenReturn(empty);
+        return statement;
+    }
+
+    /**
+     * En upsertsats som avvisas om någon av raderna är "af-bad" och annars returnerar
+     * alla rader som infogade
+     */
+    private static PreparedStatement upsertStatement() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        List<String> externalIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            int index = invocation.getArgument(0);
+            // external_id är femte kolumnen i varje rad
+            if (index % UPSERT_COLUMNS == 5) {
+                externalIds.add(invocation.getArgument(1));
+            }
+            return null;
+        }).when(statement).setString(anyInt(), any());
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            if (externalIds.contains("af-bad")) {
+                throw new SQLException("value too long for type character varying(255)");
+            }
+            return rows(externalIds, true);
+        });
+        return statement;
+    }
+
+    /**
+     * RETURNING-rader (external_id, inserted)
+     */
+    private static ResultSet rows(List<String> externalIds, boolean inserted) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] position = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++position[0] < externalIds.size());
+        when(resultSet.getString(1)).thenAnswer(invocation -> externalIds.get(position[0]));
+        when(resultSet.getBoolean(2)).thenReturn(inserted);
+        return resultSet;
+    }
+
+    private static JobListing job(String externalId) {
+        JobListing job = new JobListing();
+        job.setTitle("Utvecklare");
+        job.setExternalId(externalId);
+        return job;
+    }
+}
@@ -5,14 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.test.context.ActiveProfiles;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.Skill;
+import se.stegroo.backend.repository.JobListingRepositoryCustom.UpsertPolicy;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,6 +29,16 @@ import static org.junit.jupiter.api.Assertions.*;
 @ActiveProfiles("test")
 class JobListingRepositoryTest {
 
+    /**
+     * Applikationsklassens explicita komponentskanning drar annars in hela
+     * applikationen (metrik, tjänster, controllers) i JPA-slicen.
+     */
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "se.stegroo.backend")
+    @EnableJpaAuditing
+    static class JpaSliceConfig {
+    }
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -362,4 +376,137 @@ class JobListingRepositoryTest {
         assertEquals(2, activeJobs.size());
         assertTrue(activeJobs.stream().allMatch(job -> job.getStatus() == JobListing.Status.ACTIVE));
     }
+
+    @Test
+    void upsertByExternalId_ShouldInsertNewAndUpdateExisting() {
+        // Given
+        List<JobListing> page = List.of(
+                incoming("ext-1", "Senior Java Developer", null),
+                incoming("ext-new", "Backend Developer", null));
+
+        // When
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(page, UpsertPolicy.ALWAYS);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertEquals(List.of("ext-new"), result.getInsertedExternalIds());
+        assertEquals(List.of("ext-1"), result.getUpdatedExternalIds());
+        assertEquals("Senior Java Developer", jobListingRepository.findByExternalId("ext-1").orElseThrow().getTitle());
+        JobListing inserted = jobListingRepository.findByExternalId("ext-new").orElseThrow();
+        assertEquals("Backend Developer", inserted.getTitle());
+        assertEquals("arbetsformedlingen", inserted.getSource());
+        assertEquals(4, jobListingRepository.count());
+    }
+
+    @Test
+    void upsertByExternalId_OnlyIfNewer_ShouldRejectOlderPublishedAt() {
+        // Given
+        LocalDateTime published = LocalDateTime.now().minusDays(2);
+        job1.setPublishedAt(published);
+        jobListingRepository.saveAndFlush(job1);
+
+        // When
+        JobListingUpsertResult older = jobListingRepository.upsertByExternalId(
+                List.of(incoming("ext-1", "Äldre version", published.minusDays(1))), UpsertPolicy.ONLY_IF_NEWER);
+        JobListingUpsertResult newer = jobListingRepository.upsertByExternalId(
+                List.of(incoming("ext-1", "Nyare version", published.plusDays(1))), UpsertPolicy.ONLY_IF_NEWER);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertEquals(List.of("ext-1"), older.getUnchangedExternalIds());
+        assertEquals(0, older.getUpdatedCount());
+        assertEquals(List.of("ext-1"), newer.getUpdatedExternalIds());
+        assertEquals("Nyare version", jobListingRepository.findByExternalId("ext-1").orElseThrow().getTitle());
+    }
+
+    @Test
+    void upsertByExternalId_ShouldKeepExistingCategoryWhenIncomingHasNone() {
+        // Given
+        JobListing withoutCategory = incoming("ext-1", "Java Developer utan kategori", null);
+        withoutCategory.setCategory(null);
+
+        // When
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(
+                List.of(withoutCategory), UpsertPolicy.ALWAYS);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertEquals(1, result.getUpdatedCount());
+        JobListing stored = jobListingRepository.findByExternalId("ext-1").orElseThrow();
+        assertEquals("Java Developer utan kategori", stored.getTitle());
+        assertEquals(category.getId(), stored.getCategory().getId());
+    }
+
+    @Test
+    void upsertByExternalId_ShouldReportDuplicatesAsUnchangedAndKeepLatest() {
+        // Given
+        List<JobListing> page = List.of(
+                incoming("ext-dup", "Första versionen", null),
+                incoming("ext-dup", "Andra versionen", null));
+
+        // When
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(page, UpsertPolicy.ALWAYS);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertEquals(List.of("ext-dup"), result.getInsertedExternalIds());
+        assertEquals(List.of("ext-dup"), result.getUnchangedExternalIds());
+        assertEquals("Andra versionen", jobListingRepository.findByExternalId("ext-dup").orElseThrow().getTitle());
+    }
+
+    @Test
+    void upsertByExternalId_ShouldReportMissingExternalIdAsFailure() {
+        // Given
+        JobListing withoutExternalId = incoming(null, "Saknar id", null);
+        List<JobListing> page = List.of(withoutExternalId, incoming("ext-new", "Backend Developer", null));
+
+        // When
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(page, UpsertPolicy.ALWAYS);
+
+        // Then
+        assertEquals(1, result.getFailedCount());
+        assertSame(withoutExternalId, result.getFailures().get(0).getJob());
+        assertInstanceOf(IllegalArgumentException.class, result.getFailures().get(0).getError());
+        assertEquals(List.of("ext-new"), result.getInsertedExternalIds());
+    }
+
+    @Test
+    void upsertByExternalId_ShouldSkipListingWithUnchangedContentHash() {
+        // Given
+        LocalDateTime lastModified = LocalDateTime.now().minusDays(3).withNano(0);
+        job1.setContentHash("hash-1");
+        job1.setLastModified(lastModified);
+        jobListingRepository.saveAndFlush(job1);
+        JobListing sameContent = incoming("ext-1", "Ny titel som inte ska sparas", null);
+        sameContent.setContentHash("hash-1");
+
+        // When
+        JobListingUpsertResult result = jobListingRepository.upsertByExternalId(
+                List.of(sameContent), UpsertPolicy.ALWAYS);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertEquals(List.of("ext-1"), result.getSkippedExternalIds());
+        assertEquals(0, result.getUpdatedCount());
+        JobListing stored = jobListingRepository.findByExternalId("ext-1").orElseThrow();
+        assertEquals("Java Developer", stored.getTitle());
+        assertEquals(lastModified, stored.getLastModified());
+    }
+
+    private JobListing incoming(String externalId, String title, LocalDateTime publishedAt) {
+        JobListing job = new JobListing();
+        job.setTitle(title);
+        job.setDescription("Annons från synkroniseringen");
+        job.setLocation("Stockholm");
+        job.setStatus(JobListing.Status.ACTIVE);
+        job.setExternalId(externalId);
+        job.setPublishedAt(publishedAt);
+        job.setCategory(category);
+        return job;
+    }
 }
@@ -0,0 +1,136 @@
+package se.stegroo.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import se.stegroo.backend.config.MetricsConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenValidatorTest {
+
+    private static final String SECRET = "test-secret-for-jwt-validator-tests-must-be-at-least-256-bits";
+    private static final String ISSUER = "https://stegroo.test";
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private JwtTokenValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = new JwtTokenValidator(SECRET, ISSUER, 2, metricsConfig, clock::get);
+    }
+
+    @Test
+    void validateToken_ShouldServeRepeatedTokenFromCache() {
+        // Given
+        String token = token("user-1", ISSUER, NOW + 60_000, List.of("admin"));
+
+        // When
+        Authentication first = validator.validateToken(token);
+        Authentication second = validator.validateToken(token);
+
+        // Then
+        assertEquals("user-1", first.getName());
+        assertEquals("user-1", second.getName());
+        assertNotSame(first, second);
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"),
+                second.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertTrue(second.isAuthenticated());
+        verify(metricsConfig).recordJwtCacheMiss();
+        verify(metricsConfig).recordJwtCacheHit();
+        assertEquals(1, validator.cacheSize());
+    }
+
+    @Test
+    void validateToken_ShouldRejectCachedTokenAfterExpiry() {
+        // Given
+        String token = token("user-1", ISSUER, NOW + 60_000, List.of());
+        assertNotNull(validator.validateToken(token));
+
+        // When
+        clock.set(NOW + 60_001);
+        Authentication expired = validator.validateToken(token);
+
+        // Then
+        assertNull(expired);
+        assertEquals(0, validator.cacheSize());
+        verify(metricsConfig, times(2)).recordJwtCacheMiss();
+        verify(metricsConfig, never()).recordJwtCacheHit();
+    }
+
+    @Test
+    void validateToken_ShouldEvictLeastRecentlyUsedWhenFull() {
+        // Given
+        String first = token("user-1", ISSUER, NOW + 60_000, List.of());
+        String second = token("user-2", ISSUER, NOW + 60_000, List.of());
+        String third = token("user-3", ISSUER, NOW + 60_000, List.of());
+        validator.validateToken(first);
+        validator.validateToken(second);
+        validator.validateToken(first);
+
+        // When
+        validator.validateToken(third);
+        validator.validateToken(first);
+
+        // Then: user-2 var minst nyligen använd och fick lämna plats
+        assertEquals(2, validator.cacheSize());
+        verify(metricsConfig).recordJwtCacheEviction();
+        verify(metricsConfig, times(2)).recordJwtCacheHit();
+    }
+
+    @Test
+    void validateToken_ShouldNotCacheInvalidTokens() {
+        // Given
+        String wrongIssuer = token("user-1", "https://other.test", NOW + 60_000, List.of());
+        String token = token("user-1", ISSUER, NOW + 60_000, List.of());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When / Then
+        assertNull(validator.validateToken(wrongIssuer));
+        assertNull(validator.validateToken(tampered));
+        assertNull(validator.validateToken("invalid-token"));
+        assertEquals(0, validator.cacheSize());
+    }
+
+    @Test
+    void validateToken_ShouldNotCacheTokensWithoutExpiry() {
+        // Given
+        String token = token("user-1", ISSUER, null, List.of());
+
+        // When
+        Authentication authentication = validator.validateToken(token);
+
+        // Then
+        assertEquals("user-1", authentication.getName());
+        assertEquals(0, validator.cacheSize());
+    }
+
+    private String token(String subject, String issuer, Long expiresAtMillis, List<String> roles) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuer(issuer)
+                .setIssuedAt(new Date(NOW))
+                .setExpiration(expiresAtMillis != null ? new Date(expiresAtMillis) : null)
+                .claim("app_metadata", Map.of("roles", roles))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,176 @@
+package se.stegroo.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+import se.stegroo.backend.model.JobListing;
+import se.stegroo.backend.repository.JobListingRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArbetsformedlingenServiceTest {
+
+    @Mock
+    private RestClient restClient;
+
+    @Mock
+    private JobCategoryCache jobCategoryCache;
+
+    @Mock
+    private JobListingRepository jobListingRepository;
+
+    @Mock
+    private JobExpirationService jobExpirationService;
+
+    private ArbetsformedlingenService arbetsformedlingenService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        arbetsformedlingenService = new ArbetsformedlingenService(
+                "http://localhost", "", restClient, jobCategoryCache, jobListingRepository, objectMapper, null,
+                jobExpirationService, null);
+        ReflectionTestUtils.setField(arbetsformedlingenService, "streamBatchSize", 2);
+    }
+
+    @Test
+    void readJobsStreaming_ShouldDeliverBoundedBatches() throws Exception {
+        // Given
+        InputStream json = jsonArray(5);
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> externalIds = new ArrayList<>();
+
+        // When
+        ArbetsformedlingenService.ChunkStreamResult result = arbetsformedlingenService.readJobsStreaming(
+                json, 3, (jobs, chunkIndex) -> {
+                    assertEquals(3, chunkIndex);
+                    batchSizes.add(jobs.size());
+                    jobs.stream().map(JobListing::getExternalId).forEach(externalIds::add);
+                    return jobs.size();
+                });
+
+        // Then
+        assertEquals(5, result.getAdsRead());
+        assertEquals(5, result.getProcessed());
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertEquals(List.of("af-0", "af-1", "af-2", "af-3", "af-4"), externalIds);
+    }
+
+    @Test
+    void readJobsStreaming_ShouldConvertAdFields() throws Exception {
+        // Given
+        String json = "[{\"id\":\"af-1\",\"headline\":\"Utvecklare\","
+                + "\"publication_date\":\"2024-01-15T08:00:00\","
+                + "\"employer\":{\"name\":\"Företag AB\"},"
+                + "\"workplace_address\":{\"municipality\":\"Stockholm\",\"region\":\"Stockholms län\"},"
+                + "\"employment_type\":{\"label\":\"Tillsvidare\"}}]";
+        List<JobListing> received = new ArrayList<>();
+
+        // When
+        arbetsformedlingenService.readJobsStreaming(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0, (jobs, chunkIndex) -> {
+                    received.addAll(jobs);
+                    return jobs.size();
+                });
+
+        // Then
+        assertEquals(1, received.size());
+        JobListing job = received.get(0);
+        assertEquals("af-1", job.getExternalId());
+        assertEquals("Utvecklare", job.getTitle());
+        assertEquals("Företag AB", job.getCompanyName());
+        assertEquals("Stockholm, Stockholms län", job.getLocation());
+        assertEquals("Tillsvidare", job.getEmploymentType());
+        assertEquals("arbetsformedlingen", job.getSource());
+        assertNotNull(job.getRaw());
+    }
+
+    @Test
+    void readJobsStreaming_ShouldHandleEmptyArray() throws Exception {
+        // When
+        ArbetsformedlingenService.ChunkStreamResult result = arbetsformedlingenService.readJobsStreaming(
+                new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)), 0, (jobs, chunkIndex) -> {
+                    fail("Processorn ska inte anropas för en tom chunk");
+                    return 0;
+                });
+
+        // Then
+        assertEquals(0, result.getAdsRead());
+        assertEquals(0, result.getProcessed());
+    }
+
+    @Test
+    void readJobsStreaming_ShouldComputeStableContentHash() throws Exception {
+        // Given - samma annons två gånger och en med ändrad rubrik
+        String json = "[{\"id\":\"af-1\",\"headline\":\"Utvecklare\"},"
+                + "{\"id\":\"af-1\",\"headline\":\"Utvecklare\"},"
+                + "{\"id\":\"af-1\",\"headline\":\"Senior utvecklare\"}]";
+        List<JobListing> received = new ArrayList<>();
+
+        // When
+        arbetsformedlingenService.readJobsStreaming(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0, (jobs, chunkIndex) -> {
+                    received.addAll(jobs);
+                    return jobs.size();
+                });
+
+        // Then
+        assertEquals(3, received.size());
+        assertEquals(64, received.get(0).getContentHash().length());
+        assertEquals(received.get(0).getContentHash(), received.get(1).getContentHash());
+        assertNotEquals(received.get(0).getContentHash(), received.get(2).getContentHash());
+    }
+
+    @Test
+    void readJobsStreaming_ShouldMarkRemovedAdsInsteadOfConverting() throws Exception {
+        // Given
+        String json = "[{\"id\":\"af-1\",\"headline\":\"Utvecklare\"},"
+                + "{\"id\":\"af-2\",\"removed\":true,\"removed_date\":\"2024-05-01T10:00:00\"},"
+                + "{\"id\":\"af-3\",\"removed\":true}]";
+        List<JobListing> received = new ArrayList<>();
+
+        // When
+        ArbetsformedlingenService.ChunkStreamResult result = arbetsformedlingenService.readJobsStreaming(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0, (jobs, chunkIndex) -> {
+                    received.addAll(jobs);
+                    return jobs.size();
+                });
+
+        // Then
+        assertEquals(3, result.getAdsRead());
+        assertEquals(List.of("af-1"), received.stream().map(JobListing::getExternalId).toList());
+        // En sats per strömbatch (streamBatchSize = 2); saknat removed_date skickas som null
+        verify(jobExpirationService).markRemoved(Map.of("af-2", LocalDateTime.of(2024, 5, 1, 10, 0)));
+        Map<String, LocalDateTime> withoutDate = new HashMap<>();
+        withoutDate.put("af-3", null);
+        verify(jobExpirationService).markRemoved(withoutDate);
+    }
+
+    private InputStream jsonArray(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"af-").append(i).append("\",\"headline\":\"Jobb ").append(i).append("\"}");
+        }
+        json.append(']');
+        return new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
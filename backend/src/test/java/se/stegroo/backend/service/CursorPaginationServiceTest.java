@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
 import se.stegroo.backend.model.SyncCheckpoint;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Base64;
 
@@ -445,4 +447,39 @@ class CursorPaginationServiceTest {
         // When & Then
         assertNotEquals("string", cursorInfo);
     }
+
+    @Test
+    void keysetCursor_ShouldRoundTripValueContainingSeparator() {
+        // When
+        String cursor = cursorPaginationService.createKeysetCursor("title", Sort.Direction.ASC, "Lager | Truck", 42L);
+        CursorPaginationService.KeysetCursor decoded = cursorPaginationService.decodeKeysetCursor(cursor);
+
+        // Then
+        assertFalse(cursor.contains("="));
+        assertEquals("title", decoded.getSortBy());
+        assertEquals(Sort.Direction.ASC, decoded.getDirection());
+        assertEquals("Lager | Truck", decoded.getValue());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void decodeKeysetCursor_ShouldRejectSyncCursor() {
+        // Given
+        String syncCursor = cursorPaginationService.createCursor(testExternalId, testDateTime, testSource);
+
+        // When & Then
+        assertNull(cursorPaginationService.decodeKeysetCursor(syncCursor));
+        assertNull(cursorPaginationService.decodeKeysetCursor("inte-en-cursor"));
+        assertNull(cursorPaginationService.decodeKeysetCursor(null));
+    }
+
+    @Test
+    void decodeKeysetCursor_ShouldRejectCursorWithInvalidDate() {
+        // Given - korrekt base64 men datumet är avklippt
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("KEYSET|createdAt|DESC|42|2024-05-01T1".getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertNull(cursorPaginationService.decodeKeysetCursor(cursor));
+    }
 }
@@ -0,0 +1,149 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import se.stegroo.backend.model.JobCategory;
+import se.stegroo.backend.repository.JobCategoryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobCategoryCacheTest {
+
+    @Mock
+    private JobCategoryRepository jobCategoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private JobCategoryCache jobCategoryCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        jobCategoryCache = new JobCategoryCache(jobCategoryRepository, transactionManager);
+    }
+
+    @Test
+    void getOrCreate_ShouldServeWarmedCategoriesWithoutQuerying() {
+        // Given
+        when(jobCategoryRepository.findAll()).thenReturn(List.of(category(1L, "Data/IT", JobCategory.TaxonomyType.OCCUPATION)));
+        jobCategoryCache.warmUp();
+
+        // When
+        JobCategory first = jobCategoryCache.getOrCreate("Data/IT", JobCategory.TaxonomyType.OCCUPATION);
+        JobCategory second = jobCategoryCache.getOrCreate("Data/IT", JobCategory.TaxonomyType.OCCUPATION);
+
+        // Then
+        assertEquals(1L, first.getId());
+        assertNotSame(first, second);
+        verify(jobCategoryRepository, never()).findByNameAndTaxonomyType(any(), any());
+        verify(jobCategoryRepository, never()).save(any());
+    }
+
+    @Test
+    void getOrCreate_ShouldCreateMissingCategoryOnceAcrossThreads() throws Exception {
+        // Given - repositoryt beter sig som unika indexet: bara det första skapandet lyckas
+        AtomicReference<JobCategory> stored = new AtomicReference<>();
+        when(jobCategoryRepository.findByNameAndTaxonomyType("Vård", JobCategory.TaxonomyType.OCCUPATION))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        when(jobCategoryRepository.save(any(JobCategory.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            JobCategory saved = invocation.getArgument(0);
+            saved.setId(7L);
+            if (!stored.compareAndSet(null, saved)) {
+                throw new DataIntegrityViolationException("uk_job_categories_name_taxonomy");
+            }
+            return saved;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JobCategory>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return jobCategoryCache.getOrCreate("Vård", JobCategory.TaxonomyType.OCCUPATION);
+                }));
+            }
+            start.countDown();
+
+            // Then
+            for (Future<JobCategory> result : results) {
+                assertEquals(7L, result.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, jobCategoryCache.size());
+        assertEquals(7L, jobCategoryCache.getOrCreate("Vård", JobCategory.TaxonomyType.OCCUPATION).getId());
+    }
+
+    @Test
+    void getOrCreate_ShouldReadWinnerWhenAnotherNodeCreatedCategory() {
+        // Given - första uppslagningen missar, insert krockar med unika indexet
+        when(jobCategoryRepository.findByNameAndTaxonomyType("Bygg", JobCategory.TaxonomyType.OCCUPATION))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(category(9L, "Bygg", JobCategory.TaxonomyType.OCCUPATION)));
+        when(jobCategoryRepository.save(any(JobCategory.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_job_categories_name_taxonomy"));
+
+        // When
+        JobCategory result = jobCategoryCache.getOrCreate("Bygg", JobCategory.TaxonomyType.OCCUPATION);
+
+        // Then
+        assertEquals(9L, result.getId());
+        assertEquals(1, jobCategoryCache.size());
+    }
+
+    @Test
+    void invalidate_ShouldForceLookupOnNextAccess() {
+        // Given
+        when(jobCategoryRepository.findAll()).thenReturn(List.of(category(1L, "Data/IT", JobCategory.TaxonomyType.OCCUPATION)));
+        jobCategoryCache.warmUp();
+        when(jobCategoryRepository.findByNameAndTaxonomyType("Data/IT", JobCategory.TaxonomyType.OCCUPATION))
+                .thenReturn(Optional.of(category(2L, "Data/IT", JobCategory.TaxonomyType.OCCUPATION)));
+
+        // When
+        jobCategoryCache.invalidate();
+        JobCategory result = jobCategoryCache.getOrCreate("Data/IT", JobCategory.TaxonomyType.OCCUPATION);
+
+        // Then
+        assertEquals(2L, result.getId());
+    }
+
+    @Test
+    void getOrCreate_ShouldReturnNullForBlankName() {
+        assertNull(jobCategoryCache.getOrCreate("  ", JobCategory.TaxonomyType.OCCUPATION));
+        verifyNoInteractions(jobCategoryRepository);
+    }
+
+    private JobCategory category(Long id, String name, JobCategory.TaxonomyType type) {
+        JobCategory category = new JobCategory();
+        category.setId(id);
+        category.setName(name);
+        category.setTaxonomyType(type);
+        return category;
+    }
+}
@@ -0,0 +1,108 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.repository.JobListingRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobExpirationServiceTest {
+
+    @Mock
+    private JobListingRepository jobListingRepository;
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    @Mock
+    private JobSearchResultCache jobSearchResultCache;
+
+    private JobExpirationService jobExpirationService;
+
+    @BeforeEach
+    void setUp() {
+        jobExpirationService = new JobExpirationService(jobListingRepository, metricsConfig, jobSearchResultCache, 2, 3);
+    }
+
+    @Test
+    void expireOverdueJobs_ShouldRunBatchesUntilOneIsPartial() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(jobListingRepository.expireActiveBefore(now, 2)).thenReturn(2, 1);
+
+        // When
+        int expired = jobExpirationService.expireOverdueJobs(now);
+
+        // Then
+        assertEquals(3, expired);
+        verify(jobListingRepository, times(2)).expireActiveBefore(now, 2);
+        verify(metricsConfig).recordJobsExpired(eq(3L), anyLong());
+        verify(jobSearchResultCache).invalidate();
+    }
+
+    @Test
+    void expireOverdueJobs_ShouldStopAtMaxBatchesPerRun() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(jobListingRepository.expireActiveBefore(now, 2)).thenReturn(2);
+
+        // When
+        int expired = jobExpirationService.expireOverdueJobs(now);
+
+        // Then
+        assertEquals(6, expired);
+        verify(jobListingRepository, times(3)).expireActiveBefore(now, 2);
+    }
+
+    @Test
+    void expireOverdueJobs_ShouldKeepCacheWhenNothingExpired() {
+        // Given
+        when(jobListingRepository.expireActiveBefore(any(), eq(2))).thenReturn(0);
+
+        // When
+        int expired = jobExpirationService.expireOverdueJobs(LocalDateTime.now());
+
+        // Then
+        assertEquals(0, expired);
+        verify(metricsConfig).recordJobsExpired(eq(0L), anyLong());
+        verifyNoInteractions(jobSearchResultCache);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markRemoved_ShouldUpdateInBoundedBatches() {
+        // Given
+        Map<String, LocalDateTime> removed = new LinkedHashMap<>();
+        removed.put("af-1", LocalDateTime.of(2024, 5, 1, 10, 0));
+        removed.put("af-2", null);
+        removed.put("af-3", LocalDateTime.of(2024, 5, 2, 10, 0));
+        when(jobListingRepository.markRemovedByExternalIds(any(), any())).thenReturn(2, 1);
+
+        // When
+        int marked = jobExpirationService.markRemoved(removed);
+
+        // Then
+        assertEquals(3, marked);
+        ArgumentCaptor<Map<String, LocalDateTime>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(jobListingRepository, times(2)).markRemovedByExternalIds(batches.capture(), any());
+        assertEquals(List.of("af-1", "af-2"), List.copyOf(batches.getAllValues().get(0).keySet()));
+        assertEquals(List.of("af-3"), List.copyOf(batches.getAllValues().get(1).keySet()));
+        verify(metricsConfig).recordJobsRemoved(3);
+        verify(jobSearchResultCache).invalidate();
+    }
+}
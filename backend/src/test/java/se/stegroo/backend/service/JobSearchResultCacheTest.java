@@ -0,0 +1,114 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.dto.JobSearchRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobSearchResultCacheTest {
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    private JobSearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JobSearchResultCache(metricsConfig, true, 2, 60);
+    }
+
+    @Test
+    void get_ShouldReturnStoredResultAndRecordHit() {
+        // Given
+        cache.put("a", cache.currentGeneration(), List.of(2L, 1L), 10);
+
+        // When
+        JobSearchResultCache.CachedResult result = cache.get("a");
+
+        // Then
+        assertEquals(List.of(2L, 1L), result.getIds());
+        assertEquals(10, result.getTotalElements());
+        verify(metricsConfig).recordSearchCacheHit();
+    }
+
+    @Test
+    void invalidate_ShouldDropEntriesAndRejectResultsFromOldGeneration() {
+        // Given - en sökning startar innan synken skriver
+        long started = cache.currentGeneration();
+        cache.put("a", started, List.of(1L), 1);
+
+        // When
+        cache.invalidate();
+        cache.put("b", started, List.of(2L), 1);
+
+        // Then
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+        verify(metricsConfig, times(2)).recordSearchCacheMiss();
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedEntry() {
+        // Given
+        long generation = cache.currentGeneration();
+        cache.put("a", generation, List.of(1L), 1);
+        cache.put("b", generation, List.of(2L), 1);
+        cache.get("a");
+
+        // When
+        cache.put("c", generation, List.of(3L), 1);
+
+        // Then
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void keyFor_ShouldNormalizeTextAndSkillOrder() {
+        JobSearchRequest first = new JobSearchRequest("Java ", "Stockholm", 1L);
+        first.setSkillIds(Set.of(3L, 1L, 2L));
+        JobSearchRequest second = new JobSearchRequest("java", " stockholm", 1L);
+        second.setSkillIds(Set.of(2L, 3L, 1L));
+        JobSearchRequest otherPage = new JobSearchRequest("java", "stockholm", 1L);
+        otherPage.setSkillIds(Set.of(1L, 2L, 3L));
+        otherPage.setPage(1);
+
+        assertEquals(JobSearchResultCache.keyFor(first), JobSearchResultCache.keyFor(second));
+        assertNotEquals(JobSearchResultCache.keyFor(first), JobSearchResultCache.keyFor(otherPage));
+    }
+
+    @Test
+    void keyFor_ShouldKeepExactMatchFiltersCaseSensitive() {
+        JobSearchRequest first = new JobSearchRequest("java", "stockholm", null);
+        first.setEmploymentType("Heltid");
+        JobSearchRequest second = new JobSearchRequest("java", "stockholm", null);
+        second.setEmploymentType("heltid");
+        JobSearchRequest third = new JobSearchRequest("java", "stockholm", null);
+        third.setWorkingHoursType("Deltid");
+        JobSearchRequest fourth = new JobSearchRequest("java", "stockholm", null);
+        fourth.setWorkingHoursType("deltid");
+
+        assertNotEquals(JobSearchResultCache.keyFor(first), JobSearchResultCache.keyFor(second));
+        assertNotEquals(JobSearchResultCache.keyFor(third), JobSearchResultCache.keyFor(fourth));
+    }
+
+    @Test
+    void keyFor_ShouldSkipKeysetRequests() {
+        JobSearchRequest request = new JobSearchRequest();
+        request.setCursor("abc");
+
+        assertNull(JobSearchResultCache.keyFor(request));
+    }
+}
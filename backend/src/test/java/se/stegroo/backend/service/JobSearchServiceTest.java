@@ -3,15 +3,20 @@ package se.stegroo.backend.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import se.stegroo.backend.dto.JobListingDTO;
+import se.stegroo.backend.dto.JobSearchFacets;
 import se.stegroo.backend.dto.JobSearchRequest;
 import se.stegroo.backend.dto.JobSearchResponse;
+import se.stegroo.backend.dto.KeysetPage;
 import se.stegroo.backend.model.JobCategory;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.Skill;
@@ -24,10 +29,12 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,7 +48,8 @@ class JobSearchServiceTest {
 
     @BeforeEach
     void setUp() {
-        jobSearchService = new JobSearchService(jobListingRepository, jobCategoryRepository, skillRepository);
+        jobSearchService = new JobSearchService(jobListingRepository, jobCategoryRepository, skillRepository,
+                new CursorPaginationService(), new JobSearchResultCache(null, true, 10, 60));
     }
 
     @Test
@@ -291,4 +299,208 @@ class JobSearchServiceTest {
 
         verify(jobListingRepository).findById(jobId);
     }
+
+    @Test
+    void searchJobs_ShouldLeaveSortToSpecificationWhenRankingByRelevance() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest("java utvecklare", null, null);
+        request.setSortBy(JobSearchService.SORT_RELEVANCE);
+
+        when(jobListingRepository.supportsFullTextSearch()).thenReturn(true);
+        when(jobListingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        // When
+        jobSearchService.searchJobs(request);
+
+        // Then
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(jobListingRepository).findAll(any(Specification.class), pageable.capture());
+        assertTrue(pageable.getValue().getSort().isUnsorted());
+    }
+
+    @Test
+    void searchJobs_ShouldFallBackToCreatedAtForRelevanceWithoutFullTextSearch() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest("java", null, null);
+        request.setSortBy(JobSearchService.SORT_RELEVANCE);
+
+        when(jobListingRepository.supportsFullTextSearch()).thenReturn(false);
+        when(jobListingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        // When
+        jobSearchService.searchJobs(request);
+
+        // Then
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(jobListingRepository).findAll(any(Specification.class), pageable.capture());
+        assertNotNull(pageable.getValue().getSort().getOrderFor("createdAt"));
+    }
+
+    @Test
+    void toPrefixTsQuery_ShouldBuildPrefixTermsAndDropOperators() {
+        assertEquals("java:* & utveckl:*", JobSearchService.toPrefixTsQuery("Java  utveckl"));
+        assertEquals("c:* & sjuksköterska:*", JobSearchService.toPrefixTsQuery("C++ & !Sjuksköterska'"));
+        assertEquals("java:*", JobSearchService.toPrefixTsQuery("java java"));
+        assertNull(JobSearchService.toPrefixTsQuery(" &|! "));
+    }
+
+    @Test
+    void searchJobsKeyset_ShouldReturnNextCursorFromLastRowWithoutCounting() {
+        // Given - en extra rad betyder att det finns fler sidor
+        JobSearchRequest request = new JobSearchRequest();
+        request.setSize(2);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<JobListing> rows = List.of(job(30L, now), job(20L, now.minusHours(1)), job(10L, now.minusHours(2)));
+        when(jobListingRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(rows);
+
+        // When
+        JobSearchResponse response = jobSearchService.searchJobsKeyset(request);
+
+        // Then
+        assertEquals(2, response.getJobs().size());
+        assertTrue(response.getHasNext());
+        assertNull(response.getTotalElements());
+        CursorPaginationService.KeysetCursor next = new CursorPaginationService().decodeKeysetCursor(response.getNextCursor());
+        assertEquals("createdAt", next.getSortBy());
+        assertEquals(20L, next.getId());
+        assertEquals(now.minusHours(1).toString(), next.getValue());
+        verify(jobListingRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void searchJobsKeyset_ShouldEndWithoutCursorOnLastPage() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest();
+        request.setSize(5);
+        request.setCursor(new CursorPaginationService().createKeysetCursor("id", Sort.Direction.DESC, 40L, 40L));
+        when(jobListingRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(List.of(job(30L, LocalDateTime.now())));
+
+        // When
+        JobSearchResponse response = jobSearchService.searchJobsKeyset(request);
+
+        // Then
+        assertFalse(response.getHasNext());
+        assertTrue(response.getHasPrevious());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void searchJobsKeyset_ShouldRejectCursorWithInvalidDate() {
+        // Given - cursorn är korrekt kodad men datumet går inte att tolka
+        JobSearchRequest request = new JobSearchRequest();
+        request.setCursor(new CursorPaginationService().createKeysetCursor("createdAt", Sort.Direction.DESC, "2024-13-45", 40L));
+
+        // When & Then
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> jobSearchService.searchJobsKeyset(request));
+        assertEquals("Ogiltig cursor", e.getMessage());
+        verify(jobListingRepository, never()).findBy(any(Specification.class), any(Function.class));
+    }
+
+    @Test
+    void searchJobListingsKeyset_ShouldReadProjectionWithoutLoadingEntities() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest();
+        request.setSize(2);
+        request.setSortBy("updatedAt");
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<JobListingDTO> rows = List.of(
+                JobListingDTO.builder().id(30L).updatedAt(now).build(),
+                JobListingDTO.builder().id(20L).updatedAt(now.minusHours(1)).build(),
+                JobListingDTO.builder().id(10L).updatedAt(now.minusHours(2)).build());
+        when(jobListingRepository.findListingDTOs(any(Specification.class), any(Sort.class), eq(3))).thenReturn(rows);
+
+        // When
+        KeysetPage<JobListingDTO> page = jobSearchService.searchJobListingsKeyset(request);
+
+        // Then
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.getHasNext());
+        CursorPaginationService.KeysetCursor next = new CursorPaginationService().decodeKeysetCursor(page.getNextCursor());
+        assertEquals("updatedAt", next.getSortBy());
+        assertEquals(20L, next.getId());
+        assertEquals(now.minusHours(1).toString(), next.getValue());
+        verify(jobListingRepository, never()).findBy(any(Specification.class), any(Function.class));
+    }
+
+    @Test
+    void searchJobsKeyset_ShouldRejectInvalidCursor() {
+        JobSearchRequest request = new JobSearchRequest();
+        request.setCursor("trasig");
+
+        assertThrows(IllegalArgumentException.class, () -> jobSearchService.searchJobsKeyset(request));
+    }
+
+    @Test
+    void searchJobs_ShouldServeRepeatedSearchFromCacheInCachedOrder() {
+        // Given
+        JobSearchRequest request = new JobSearchRequest("Java", "Stockholm", null);
+        List<JobListing> rows = List.of(job(3L, LocalDateTime.now()), job(1L, LocalDateTime.now()));
+        when(jobListingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(rows, PageRequest.of(0, 20), 42));
+        when(jobListingRepository.findAllById(List.of(3L, 1L))).thenReturn(List.of(rows.get(1), rows.get(0)));
+
+        // When - samma sökning med annan skiftläge/blanksteg ska dela cachepost
+        jobSearchService.searchJobs(request);
+        JobSearchResponse cached = jobSearchService.searchJobs(new JobSearchRequest(" java", "STOCKHOLM", null));
+
+        // Then
+        verify(jobListingRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(List.of(3L, 1L), cached.getJobs().stream().map(JobListing::getId).toList());
+        assertEquals(42L, cached.getTotalElements());
+        assertTrue(cached.getHasNext());
+    }
+
+    @Test
+    void getFacets_ShouldRollUpCombinationsPerDimension() {
+        // Given - [categoryId, categoryName, employmentType, workingHoursType, location, antal]
+        List<Object[]> combinations = List.of(
+                new Object[]{1L, "Data/IT", "Tillsvidare", "Heltid", "Stockholm", 5L},
+                new Object[]{1L, "Data/IT", "Visstid", "Heltid", "Göteborg", 2L},
+                new Object[]{2L, "Vård", "Tillsvidare", "Deltid", "Stockholm", 3L},
+                new Object[]{null, null, null, null, null, 1L});
+        when(jobListingRepository.countFacetCombinations(any(Specification.class))).thenReturn(combinations);
+        when(jobListingRepository.countSkillFacets(any(Specification.class), eq(1)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, "Java", 4L}));
+
+        // When
+        JobSearchFacets facets = jobSearchService.getFacets(new JobSearchRequest(), 1);
+
+        // Then
+        assertEquals(11, facets.getTotalCount());
+        assertEquals(List.of(
+                new JobSearchFacets.FacetValue("1", "Data/IT", 7),
+                new JobSearchFacets.FacetValue("2", "Vård", 3)), facets.getCategories());
+        assertEquals(List.of(
+                new JobSearchFacets.FacetValue("Tillsvidare", "Tillsvidare", 8),
+                new JobSearchFacets.FacetValue("Visstid", "Visstid", 2)), facets.getEmploymentTypes());
+        assertEquals(2, facets.getWorkingHoursTypes().size());
+        assertEquals(List.of(new JobSearchFacets.FacetValue("Stockholm", "Stockholm", 8)), facets.getLocations());
+        assertEquals(List.of(new JobSearchFacets.FacetValue("7", "Java", 4)), facets.getSkills());
+    }
+
+    @Test
+    void getFacets_ShouldSkipSkillQueryWhenNothingMatches() {
+        // Given
+        when(jobListingRepository.countFacetCombinations(any(Specification.class))).thenReturn(List.of());
+
+        // When
+        JobSearchFacets facets = jobSearchService.getFacets(new JobSearchRequest(), 0);
+
+        // Then
+        assertEquals(0, facets.getTotalCount());
+        assertTrue(facets.getSkills().isEmpty());
+        verify(jobListingRepository, never()).countSkillFacets(any(Specification.class), anyInt());
+    }
+
+    private JobListing job(Long id, LocalDateTime createdAt) {
+        JobListing job = new JobListing();
+        job.setId(id);
+        job.setTitle("Jobb " + id);
+        job.setCreatedAt(createdAt);
+        return job;
+    }
 }
@@ -26,6 +26,9 @@ class JobSyncServiceSimpleTest {
     @Mock
     private ArbetsformedlingenService arbetsformedlingenService;
 
+    @Mock
+    private JobSearchResultCache jobSearchResultCache;
+
     private JobSyncService jobSyncService;
 
     @BeforeEach
@@ -37,7 +40,7 @@ class JobSyncServiceSimpleTest {
         // Mock ArbetsformedlingenService
         when(arbetsformedlingenService.fetchAllJobs()).thenReturn(createTestJobs());
 
-        jobSyncService = new JobSyncService(arbetsformedlingenService, jobListingRepository);
+        jobSyncService = new JobSyncService(arbetsformedlingenService, jobListingRepository, jobSearchResultCache);
     }
 
     @Test
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobListingUpsertResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -23,6 +24,7 @@ class JobSyncServiceTest {
 
     private ArbetsformedlingenService arbetsformedlingenService;
     private JobListingRepository jobListingRepository;
+    private JobSearchResultCache jobSearchResultCache;
 
     private JobSyncService jobSyncService;
 
@@ -32,7 +34,8 @@ class JobSyncServiceTest {
         MockitoAnnotations.openMocks(this);
         arbetsformedlingenService = mock(ArbetsformedlingenService.class);
         jobListingRepository = mock(JobListingRepository.class);
-        jobSyncService = new JobSyncService(arbetsformedlingenService, jobListingRepository);
+        jobSearchResultCache = mock(JobSearchResultCache.class);
+        jobSyncService = new JobSyncService(arbetsformedlingenService, jobListingRepository, jobSearchResultCache);
     }
 
     @Test
@@ -139,7 +142,7 @@ class JobSyncServiceTest {
         getLastSyncMethod.setAccessible(true);
         
         // Skapa en subklass som överskrider den privata metoden
-        JobSyncService testService = new JobSyncService(arbetsformedlingenService, jobListingRepository) {
+        JobSyncService testService = new JobSyncService(arbetsformedlingenService, jobListingRepository, jobSearchResultCache) {
             @Override
             protected LocalDateTime getLastSyncTime() {
                 return lastSync;
@@ -151,9 +154,12 @@ class JobSyncServiceTest {
             }
         };
 
+        JobListingUpsertResult upsertResult = new JobListingUpsertResult();
+        upsertResult.addInserted("ext1");
+
         when(arbetsformedlingenService.fetchJobsBatch(anyInt())).thenReturn(jobs);
-        when(jobListingRepository.findByExternalId("ext1")).thenReturn(Optional.empty());
-        when(jobListingRepository.save(any(JobListing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobListingRepository.upsertByExternalId(jobs, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER))
+                .thenReturn(upsertResult);
 
         // When
         testService.syncJobsDaily();
@@ -161,7 +167,65 @@ class JobSyncServiceTest {
         // Then
         verify(arbetsformedlingenService).fetchJobsBatch(anyInt());
         verify(arbetsformedlingenService, never()).fetchAllJobs();
-        verify(jobListingRepository).save(any(JobListing.class));
+        verify(jobListingRepository).upsertByExternalId(jobs, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER);
+        verify(jobListingRepository, never()).save(any(JobListing.class));
+        verify(jobSearchResultCache).invalidate();
+    }
+
+    @Test
+    void syncJobsManually_ShouldCountInsertedAndUpdatedFromBulkUpsert() {
+        // Given
+        JobListing job1 = new JobListing();
+        job1.setTitle("Test Job 1");
+        job1.setExternalId("ext1");
+
+        JobListing job2 = new JobListing();
+        job2.setTitle("Test Job 2");
+        job2.setExternalId("ext2");
+
+        JobListing job3 = new JobListing();
+        job3.setTitle("Test Job 3");
+        job3.setExternalId("ext3");
+
+        List<JobListing> jobs = Arrays.asList(job1, job2, job3);
+
+        JobListingUpsertResult upsertResult = new JobListingUpsertResult();
+        upsertResult.addInserted("ext1");
+        upsertResult.addUpdated("ext2");
+        upsertResult.addFailure(job3, new RuntimeException("constraint violation"));
+
+        when(arbetsformedlingenService.fetchJobsBatch(anyInt())).thenReturn(jobs);
+        when(jobListingRepository.upsertByExternalId(jobs, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER))
+                .thenReturn(upsertResult);
+
+        // When
+        JobSyncService.JobSyncResult result = jobSyncService.syncJobsManually();
+
+        // Then
+        assertEquals(1, result.getNewJobsCount());
+        assertEquals(1, result.getUpdatedJobsCount());
+        verify(jobListingRepository, never()).findByExternalId(any());
+        verify(jobSearchResultCache).invalidate();
+    }
+
+    @Test
+    void syncJobsManually_ShouldInvalidateSearchCacheWhenUpsertFails() {
+        // Given
+        JobListing job = new JobListing();
+        job.setTitle("Test Job");
+        job.setExternalId("ext1");
+        List<JobListing> jobs = List.of(job);
+
+        when(arbetsformedlingenService.fetchJobsBatch(anyInt())).thenReturn(jobs);
+        when(jobListingRepository.upsertByExternalId(jobs, JobListingRepository.UpsertPolicy.ONLY_IF_NEWER))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        // When
+        JobSyncService.JobSyncResult result = jobSyncService.syncJobsManually();
+
+        // Then - delar av sidan kan redan vara skrivna
+        assertTrue(result.getMessage().startsWith("Fel vid synkronisering"));
+        verify(jobSearchResultCache).invalidate();
     }
 
     @Test
@@ -175,7 +239,7 @@ class JobSyncServiceTest {
         List<JobListing> jobs = Arrays.asList(job);
 
         // Skapa en subklass som överskrider den privata metoden
-        JobSyncService testService = new JobSyncService(arbetsformedlingenService, jobListingRepository) {
+        JobSyncService testService = new JobSyncService(arbetsformedlingenService, jobListingRepository, jobSearchResultCache) {
             @Override
             protected LocalDateTime getLastSyncTime() {
                 return null; // Returnera null för att simulera ingen tidigare synkronisering
@@ -0,0 +1,81 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.stegroo.backend.config.MetricsConfig;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsSnapshotServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    private MetricsSnapshotService metricsSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        metricsSnapshotService = new MetricsSnapshotService(jdbcTemplate, metricsConfig, 1000);
+    }
+
+    @Test
+    void refresh_ShouldUseEstimateForLargeTablesOnPostgres() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("job_listings"))).thenReturn(250_000L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("job_categories"))).thenReturn(-1L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("skills"))).thenReturn(40L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM job_categories", Long.class)).thenReturn(12L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM skills", Long.class)).thenReturn(42L);
+
+        // When
+        metricsSnapshotService.refresh();
+
+        // Then
+        verify(metricsConfig).updateTableCounts(250_000L, 12L, 42L);
+        verify(jdbcTemplate, never()).queryForObject("SELECT count(*) FROM job_listings", Long.class);
+    }
+
+    @Test
+    void refresh_ShouldCountExactlyOnOtherDatabases() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM job_listings", Long.class)).thenReturn(5L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM job_categories", Long.class)).thenReturn(2L);
+        when(jdbcTemplate.queryForObject("SELECT count(*) FROM skills", Long.class)).thenReturn(3L);
+
+        // When
+        metricsSnapshotService.refresh();
+
+        // Then
+        verify(metricsConfig).updateTableCounts(5L, 2L, 3L);
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), anyString());
+    }
+
+    @Test
+    void refresh_ShouldKeepPreviousValuesWhenQueryFails() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When
+        metricsSnapshotService.refresh();
+
+        // Then
+        verifyNoInteractions(metricsConfig);
+    }
+}
@@ -0,0 +1,162 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobSkillSet;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SkillRecommendationIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private JobListingRepository jobListingRepository;
+
+    private SkillRecommendationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SkillRecommendationIndex(jobListingRepository, 60);
+    }
+
+    @Test
+    void recommend_ShouldRankByOverlapAndBreakTiesOnNewestJob() {
+        // Given
+        load(active(1, T0, 10, 20, 30),
+                active(2, T0, 10, 20),
+                active(3, T0, 10, 40),
+                active(4, T0, 50));
+
+        // When
+        List<SkillRecommendationIndex.Recommendation> result =
+                index.recommend(List.of(10L, 20L, 30L), 3, SkillRecommendationIndex.Scoring.OVERLAP);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), jobIds(result));
+        assertEquals(3.0, result.get(0).getScore());
+        assertEquals(3, result.get(0).getMatchedSkills());
+        assertEquals(1.0, result.get(2).getScore());
+    }
+
+    @Test
+    void recommend_ShouldRankByJaccard() {
+        // Given: jobb 1 matchar två av många kompetenser, jobb 2 matchar exakt
+        load(active(1, T0, 10, 20, 30, 40, 50, 60),
+                active(2, T0, 10, 20),
+                active(3, T0, 10));
+
+        // When
+        List<SkillRecommendationIndex.Recommendation> result =
+                index.recommend(List.of(10L, 20L), 10, SkillRecommendationIndex.Scoring.JACCARD);
+
+        // Then
+        assertEquals(List.of(2L, 3L, 1L), jobIds(result));
+        assertEquals(1.0, result.get(0).getScore());
+        assertEquals(0.5, result.get(1).getScore());
+        assertEquals(2.0 / 6, result.get(2).getScore(), 1e-9);
+    }
+
+    @Test
+    void recommend_ShouldIgnoreUnknownSkillsAndDuplicates() {
+        // Given
+        load(active(1, T0, 10, 10, 20));
+
+        // When
+        List<SkillRecommendationIndex.Recommendation> result =
+                index.recommend(List.of(10L, 999L), 10, SkillRecommendationIndex.Scoring.OVERLAP);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getMatchedSkills());
+        assertTrue(index.recommend(List.of(999L), 10, SkillRecommendationIndex.Scoring.OVERLAP).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refresh_ShouldApplyChangesSinceWatermarkMinusOverlap() {
+        // Given: första uppdateringen läser alla aktiva jobb
+        doAnswer(invocation -> {
+            Consumer<JobSkillSet> consumer = invocation.getArgument(1);
+            consumer.accept(active(1, T0, 10));
+            consumer.accept(active(2, T0.plusMinutes(5), 10, 20));
+            return null;
+        }).when(jobListingRepository).scanSkillSets(isNull(), any());
+        index.refresh();
+        assertEquals(2, index.size());
+
+        // When: jobb 1 har gått ut, jobb 2 har fått nya kompetenser och jobb 3 har tillkommit
+        doAnswer(invocation -> {
+            Consumer<JobSkillSet> consumer = invocation.getArgument(1);
+            consumer.accept(new JobSkillSet(1, false, T0.plusMinutes(10), new long[]{10}));
+            consumer.accept(active(2, T0.plusMinutes(10), 30));
+            consumer.accept(active(3, T0.plusMinutes(10), 10));
+            return null;
+        }).when(jobListingRepository).scanSkillSets(eq(T0.plusMinutes(4)), any());
+        index.refresh();
+
+        // Then
+        assertEquals(2, index.size());
+        assertEquals(List.of(3L), jobIds(index.recommend(List.of(10L), 10, SkillRecommendationIndex.Scoring.OVERLAP)));
+        assertEquals(List.of(2L), jobIds(index.recommend(List.of(30L), 10, SkillRecommendationIndex.Scoring.OVERLAP)));
+        verify(jobListingRepository).scanSkillSets(eq(T0.plusMinutes(4)), any());
+    }
+
+    @Test
+    void refresh_ShouldStartFromScanTimeWhenFullScanFindsNothing() {
+        // Given: inga jobb har kompetenser
+        LocalDateTime before = LocalDateTime.now();
+        index.refresh();
+
+        // When
+        index.refresh();
+
+        // Then: andra uppdateringen är inkrementell från första läsningens starttid
+        verify(jobListingRepository).scanSkillSets(isNull(), any());
+        verify(jobListingRepository).scanSkillSets(argThat(changedAfter ->
+                changedAfter != null && !changedAfter.isBefore(before.minusSeconds(60))), any());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void refresh_ShouldKeepSnapshotWhenScanFails() {
+        // Given
+        load(active(1, T0, 10));
+        doThrow(new RuntimeException("Databasen svarar inte")).when(jobListingRepository).scanSkillSets(any(), any());
+
+        // When
+        index.refresh();
+
+        // Then
+        assertEquals(List.of(1L), jobIds(index.recommend(List.of(10L), 10, SkillRecommendationIndex.Scoring.OVERLAP)));
+    }
+
+    private void load(JobSkillSet... jobs) {
+        for (JobSkillSet job : jobs) {
+            index.apply(job);
+        }
+        index.publishSnapshot();
+    }
+
+    private static JobSkillSet active(long jobId, LocalDateTime updatedAt, long... skillIds) {
+        return new JobSkillSet(jobId, true, updatedAt, skillIds);
+    }
+
+    private static List<Long> jobIds(List<SkillRecommendationIndex.Recommendation> recommendations) {
+        return recommendations.stream().map(SkillRecommendationIndex.Recommendation::getJobId).toList();
+    }
+}
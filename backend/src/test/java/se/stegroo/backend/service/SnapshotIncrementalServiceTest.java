@@ -5,11 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.exception.AfApiException;
 import se.stegroo.backend.model.DeadLetterQueue;
 import se.stegroo.backend.model.JobListing;
 import se.stegroo.backend.model.SyncCheckpoint;
 import se.stegroo.backend.repository.JobListingRepository;
+import se.stegroo.backend.repository.JobListingUpsertResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -43,6 +49,18 @@ class SnapshotIncrementalServiceTest {
     @Mock
     private RetryService retryService;
 
+    @Mock
+    private JobSearchResultCache jobSearchResultCache;
+
+    @Mock
+    private MetricsConfig metricsConfig;
+
+    @Mock
+    private SkillRecommendationIndex skillRecommendationIndex;
+
+    @Spy
+    private SyncTaskExecutor taskExecutor = new SyncTaskExecutor();
+
     @InjectMocks
     private SnapshotIncrementalService snapshotIncrementalService;
 
@@ -428,4 +446,165 @@ class SnapshotIncrementalServiceTest {
         verify(jobListingRepository, times(2)).save(any(JobListing.class));
         verify(cursorPaginationService, times(2)).hasMorePages(anyString(), anyInt(), anyInt());
     }
+
+    @Test
+    void performSnapshotSync_ShouldResumeFromCommittedOffsetAfterFailure() throws Exception {
+        // Given - föregående körning misslyckades efter två chunkar
+        SyncCheckpoint previous = new SyncCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT);
+        previous.setStatus(SyncCheckpoint.Status.FAILED);
+        previous.setLastCursor(SnapshotIncrementalService.snapshotOffsetCursor(20000));
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.of(previous));
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        List<String> savedCursors = new java.util.ArrayList<>();
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> {
+            SyncCheckpoint saved = invocation.getArgument(0);
+            savedCursors.add(saved.getLastCursor());
+            return saved;
+        });
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(20000L), any(), any())).thenAnswer(invocation -> {
+            java.util.function.LongConsumer committed = invocation.getArgument(2);
+            committed.accept(30000L);
+            return new SnapshotSyncPipeline.PipelineResult(10000, 0, 1, 0, true);
+        });
+
+        // When
+        SnapshotIncrementalService.SnapshotResult result = snapshotIncrementalService.performSnapshotSync();
+
+        // Then
+        assertTrue(result.isSuccess());
+        assertEquals(Arrays.asList("snapshot-offset:20000", "snapshot-offset:30000", null), savedCursors);
+        verify(syncCheckpointService).markCheckpointAsCompleted(SyncCheckpoint.SyncType.SNAPSHOT);
+        verify(metricsConfig).recordJobSyncSuccess(anyLong());
+        verify(skillRecommendationIndex).refresh();
+    }
+
+    @Test
+    void performSnapshotSync_ShouldKeepOffsetWhenChunkFails() throws Exception {
+        // Given - explicit offset från admin, en chunk misslyckas
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.empty());
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(5000L), any(), any())).thenAnswer(invocation -> {
+            java.util.function.LongConsumer committed = invocation.getArgument(2);
+            committed.accept(15000L);
+            return new SnapshotSyncPipeline.PipelineResult(15000, 0, 1, 1, true);
+        });
+
+        // When
+        SnapshotIncrementalService.SnapshotResult result = snapshotIncrementalService.performSnapshotSync(5000L);
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals("snapshot-offset:15000", testCheckpoint.getLastCursor());
+        verify(syncCheckpointService).markCheckpointAsFailed(eq(SyncCheckpoint.SyncType.SNAPSHOT), anyString());
+        verify(syncCheckpointService, never()).markCheckpointAsCompleted(any());
+        verify(metricsConfig).recordJobSyncFailure();
+    }
+
+    @Test
+    void performSnapshotSync_ShouldKeepOffsetWhenAfReturnsErrorAfterFirstChunk() throws Exception {
+        // Given - chunk 0 lyckas, hämtningen av chunk 1 får HTTP 500
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.empty());
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(0L), any(), any())).thenAnswer(invocation -> {
+            ArbetsformedlingenService.ChunkProcessor processor = invocation.getArgument(1);
+            java.util.function.LongConsumer committed = invocation.getArgument(2);
+            SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                    (chunkIndex, sink) -> {
+                        if (chunkIndex == 1) {
+                            throw new AfApiException("Snapshot API returnerade felstatus: 500 INTERNAL_SERVER_ERROR");
+                        }
+                        sink.accept(List.of(new AfJobStreamJob()));
+                        return 1;
+                    },
+                    ad -> Optional.empty(),
+                    new TokenBucketRateLimiter(1000, 10),
+                    1, 2, 100);
+            return pipeline.run(processor, (chunkIndex, adsRead) -> committed.accept((chunkIndex + 1) * 10000L));
+        });
+
+        // When
+        SnapshotIncrementalService.SnapshotResult result = snapshotIncrementalService.performSnapshotSync();
+
+        // Then - offseten för chunk 1 behålls och checkpointen markeras som misslyckad
+        assertFalse(result.isSuccess());
+        assertEquals("snapshot-offset:10000", testCheckpoint.getLastCursor());
+        verify(syncCheckpointService).markCheckpointAsFailed(eq(SyncCheckpoint.SyncType.SNAPSHOT), anyString());
+        verify(syncCheckpointService, never()).markCheckpointAsCompleted(any());
+    }
+
+    @Test
+    void performSnapshotSync_ShouldNotCompleteWhenSnapshotEndWasNotReached() throws Exception {
+        // Given - inga misslyckade chunkar men ingen tom slutchunk heller
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.empty());
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(0L), any(), any())).thenAnswer(invocation -> {
+            java.util.function.LongConsumer committed = invocation.getArgument(2);
+            committed.accept(10000L);
+            return new SnapshotSyncPipeline.PipelineResult(10000, 0, 1, 0, false);
+        });
+
+        // When
+        SnapshotIncrementalService.SnapshotResult result = snapshotIncrementalService.performSnapshotSync();
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals("snapshot-offset:10000", testCheckpoint.getLastCursor());
+        verify(syncCheckpointService, never()).markCheckpointAsCompleted(any());
+    }
+
+    @Test
+    void performSnapshotSync_ShouldUseBulkLoaderForBulkImport() throws Exception {
+        // Given
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.empty());
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        JobListingUpsertResult upsertResult = new JobListingUpsertResult();
+        upsertResult.addInserted("ext-1");
+        upsertResult.addInserted("ext-2");
+        when(jobListingRepository.bulkLoadByExternalId(anyList(), eq(JobListingRepository.UpsertPolicy.ONLY_IF_NEWER)))
+                .thenReturn(upsertResult);
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(0L), any(), any())).thenAnswer(invocation -> {
+            ArbetsformedlingenService.ChunkProcessor processor = invocation.getArgument(1);
+            int processed = processor.processChunk(Arrays.asList(testJob1, testJob2), 0);
+            return new SnapshotSyncPipeline.PipelineResult(2, processed, 1, 0, true);
+        });
+
+        // When
+        SnapshotIncrementalService.SnapshotResult result = snapshotIncrementalService.performSnapshotSync(null, true);
+
+        // Then
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getTotalSuccessful());
+        verify(jobListingRepository, never()).upsertByExternalId(anyList(), any());
+    }
+
+    @Test
+    void startSnapshotSync_ShouldRunOnTaskExecutor() throws Exception {
+        // Given
+        when(syncCheckpointService.getCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(Optional.empty());
+        when(syncCheckpointService.createOrUpdateCheckpoint(SyncCheckpoint.SyncType.SNAPSHOT)).thenReturn(testCheckpoint);
+        when(syncCheckpointService.saveCheckpoint(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(arbetsformedlingenService.syncSnapshotFromOffset(eq(0L), any(), any()))
+                .thenReturn(new SnapshotSyncPipeline.PipelineResult(0, 0, 0, 0, true));
+
+        // When
+        boolean started = snapshotIncrementalService.startSnapshotSync(null);
+
+        // Then
+        assertTrue(started);
+        verify(taskExecutor).execute(any(Runnable.class));
+        verify(syncCheckpointService).markCheckpointAsCompleted(SyncCheckpoint.SyncType.SNAPSHOT);
+        assertFalse(snapshotIncrementalService.isSnapshotRunning());
+    }
+
+    @Test
+    void parseSnapshotOffset_ShouldIgnoreUnknownCursors() {
+        assertEquals(0L, SnapshotIncrementalService.parseSnapshotOffset(null));
+        assertEquals(0L, SnapshotIncrementalService.parseSnapshotOffset("eyJleHRlcm5hbElkIjoiMSJ9"));
+        assertEquals(0L, SnapshotIncrementalService.parseSnapshotOffset("snapshot-offset:abc"));
+        assertEquals(42L, SnapshotIncrementalService.parseSnapshotOffset("snapshot-offset:42"));
+    }
 }
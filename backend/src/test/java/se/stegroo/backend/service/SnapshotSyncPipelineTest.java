@@ -0,0 +1,401 @@
+package se.stegroo.backend.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import se.stegroo.backend.config.MetricsConfig;
+import se.stegroo.backend.dto.af.AfJobStreamJob;
+import se.stegroo.backend.model.JobListing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SnapshotSyncPipelineTest {
+
+    private static final int ADS_PER_CHUNK = 5;
+
+    @Test
+    void run_ShouldDeliverBatchesInChunkOrderAndStopAtEmptyChunk() throws Exception {
+        // Given - chunk 0 är långsammast så senare chunkar hinner hämtas först
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> {
+                    if (chunkIndex == 0) {
+                        Thread.sleep(100);
+                    }
+                    return chunkIndex < 3 ? emit(chunkIndex, sink) : 0;
+                },
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                3, 2, 100);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> {
+            jobs.forEach(job -> received.add(job.getExternalId()));
+            return jobs.size();
+        });
+
+        // Then
+        assertEquals(15, result.getAdsRead());
+        assertEquals(15, result.getTotalProcessed());
+        assertEquals(3, result.getSuccessfulChunks());
+        assertEquals(0, result.getFailedChunks());
+        assertEquals(15, received.size());
+        assertEquals("0-0", received.get(0));
+        assertEquals("2-4", received.get(14));
+    }
+
+    @Test
+    void run_ShouldCountChunkAsFailedWhenProcessorThrows() throws Exception {
+        // Given
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 2 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                2, 2, 100);
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> {
+            if (chunkIndex == 1) {
+                throw new IllegalStateException("databasfel");
+            }
+            return jobs.size();
+        });
+
+        // Then
+        assertEquals(1, result.getSuccessfulChunks());
+        assertEquals(1, result.getFailedChunks());
+        assertEquals(ADS_PER_CHUNK, result.getTotalProcessed());
+    }
+
+    @Test
+    void run_ShouldKeepDeliveredAdsWhenFetchFailsMidChunk() throws Exception {
+        // Given - chunk 1 avbryts efter första batchen
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> {
+                    if (chunkIndex == 1) {
+                        sink.accept(List.of(ad(1, 0)));
+                        throw new IllegalStateException("anslutningen stängdes");
+                    }
+                    return chunkIndex < 3 ? emit(chunkIndex, sink) : 0;
+                },
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                1, 2, 100);
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> jobs.size());
+
+        // Then
+        assertEquals(2 * ADS_PER_CHUNK + 1, result.getTotalProcessed());
+        assertEquals(2, result.getSuccessfulChunks());
+        assertEquals(1, result.getFailedChunks());
+    }
+
+    @Test
+    void run_ShouldCountChunkAsFailedWhenFetchFailsBeforeAnyAd() throws Exception {
+        // Given - chunk 1 får t.ex. HTTP 500 innan någon annons har levererats
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> {
+                    if (chunkIndex == 1) {
+                        throw new IllegalStateException("HTTP 500");
+                    }
+                    return chunkIndex < 3 ? emit(chunkIndex, sink) : 0;
+                },
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                1, 2, 100);
+        List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> jobs.size(),
+                (chunkIndex, adsRead) -> committed.add(chunkIndex));
+
+        // Then - felet avslutar inte snapshoten och chunk 1 räknas som misslyckad
+        assertEquals(2, result.getSuccessfulChunks());
+        assertEquals(1, result.getFailedChunks());
+        assertEquals(2 * ADS_PER_CHUNK, result.getTotalProcessed());
+        assertEquals(List.of(0), committed);
+    }
+
+    @Test
+    void run_ShouldStopCommittingAfterFirstFailedChunk() throws Exception {
+        // Given - chunk 1 misslyckas, chunk 2 lyckas men får inte flytta fram checkpointen
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 3 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                2, 2, 100);
+        List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> {
+            if (chunkIndex == 1) {
+                throw new IllegalStateException("databasfel");
+            }
+            return jobs.size();
+        }, (chunkIndex, adsRead) -> committed.add(chunkIndex));
+
+        // Then
+        assertEquals(2, result.getSuccessfulChunks());
+        assertEquals(1, result.getFailedChunks());
+        assertEquals(List.of(0), committed);
+    }
+
+    @Test
+    void run_ShouldCommitEachChunkWithItsCheckpointInOwnTransaction() throws Exception {
+        // Given
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        TransactionStatus chunk0 = mock(TransactionStatus.class);
+        TransactionStatus chunk1 = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(chunk0, chunk1);
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 2 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                2, 2, 100)
+                .withChunkTransactions(transactionManager, entityManager);
+        List<Integer> committed = new ArrayList<>();
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> jobs.size(),
+                (chunkIndex, adsRead) -> committed.add(chunkIndex));
+
+        // Then
+        assertEquals(2, result.getSuccessfulChunks());
+        assertEquals(List.of(0, 1), committed);
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertTrue(definitions.getAllValues().stream()
+                .allMatch(d -> d.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        InOrder inOrder = inOrder(transactionManager);
+        inOrder.verify(transactionManager).commit(chunk0);
+        inOrder.verify(transactionManager).commit(chunk1);
+        verify(transactionManager, never()).rollback(any());
+        // Tre batchar per chunk plus checkpointen
+        verify(entityManager, times(8)).flush();
+        verify(entityManager, times(8)).clear();
+    }
+
+    @Test
+    void run_ShouldRollBackChunkWhenBatchFails() throws Exception {
+        // Given - andra batchen i chunk 1 misslyckas
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus status = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 2 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                1, 2, 100)
+                .withChunkTransactions(transactionManager, mock(EntityManager.class));
+        List<Integer> committed = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> {
+            if ("1-2".equals(jobs.get(0).getExternalId())) {
+                throw new IllegalStateException("databasfel");
+            }
+            written.add(jobs.get(0).getExternalId());
+            return jobs.size();
+        }, (chunkIndex, adsRead) -> committed.add(chunkIndex));
+
+        // Then - chunkens första batch rullas tillbaka och den sista skrivs aldrig
+        assertEquals(1, result.getSuccessfulChunks());
+        assertEquals(1, result.getFailedChunks());
+        assertEquals(ADS_PER_CHUNK, result.getTotalProcessed());
+        assertEquals(List.of(0), committed);
+        assertEquals(List.of("0-0", "0-2", "0-4", "1-0"), written);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager).rollback(status);
+        verify(transactionManager).commit(status);
+    }
+
+    @Test
+    void run_ShouldRollBackChunkWhenFetchFailsMidChunk() throws Exception {
+        // Given - chunk 1 avbryts efter första batchen
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus chunk0 = mock(TransactionStatus.class);
+        TransactionStatus chunk1 = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(chunk0, chunk1);
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> {
+                    if (chunkIndex == 1) {
+                        sink.accept(List.of(ad(1, 0)));
+                        throw new IllegalStateException("anslutningen stängdes");
+                    }
+                    return chunkIndex < 1 ? emit(chunkIndex, sink) : 0;
+                },
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                1, 2, 100)
+                .withChunkTransactions(transactionManager, mock(EntityManager.class));
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> jobs.size());
+
+        // Then - det som hann skrivas i chunk 1 committas inte
+        assertEquals(1, result.getFailedChunks());
+        assertEquals(ADS_PER_CHUNK, result.getTotalProcessed());
+        verify(transactionManager).commit(chunk0);
+        verify(transactionManager).rollback(chunk1);
+        verify(transactionManager, never()).commit(chunk1);
+    }
+
+    @Test
+    void run_ShouldPersistChunksInParallelAndReportContiguousWatermark() throws Exception {
+        // Given - chunk 0 är långsammast att spara så senare chunkar blir klara först
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 4 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                4, 2, 100)
+                .withPersistenceWorkers(3);
+        Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+        AtomicBoolean chunk0Done = new AtomicBoolean(false);
+        List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> {
+            workerThreads.add(Thread.currentThread().getName());
+            if (chunkIndex == 0) {
+                sleep(150);
+                chunk0Done.set(true);
+            }
+            return jobs.size();
+        }, (chunkIndex, adsRead) -> {
+            assertTrue(chunk0Done.get());
+            committed.add(chunkIndex);
+        });
+
+        // Then
+        assertEquals(4 * ADS_PER_CHUNK, result.getTotalProcessed());
+        assertEquals(4, result.getSuccessfulChunks());
+        assertTrue(workerThreads.size() > 1);
+        assertEquals(3, committed.get(committed.size() - 1));
+        for (int i = 1; i < committed.size(); i++) {
+            assertTrue(committed.get(i) > committed.get(i - 1));
+        }
+    }
+
+    @Test
+    void chunkWatermark_ShouldWaitForLowerChunks() {
+        // Given
+        SnapshotSyncPipeline.ChunkWatermark watermark = new SnapshotSyncPipeline.ChunkWatermark();
+
+        // When - chunk 1 och 2 committas före chunk 0
+        assertNull(watermark.advanceWith(1, 10));
+        watermark.markCommitted(1, 10);
+        watermark.markCommitted(2, 7);
+        SnapshotSyncPipeline.ChunkWatermark.Position position = watermark.advanceWith(0, 10);
+
+        // Then
+        assertEquals(2, position.chunkIndex);
+        assertEquals(7, position.adsRead);
+        watermark.markCommitted(0, 10);
+        assertEquals(3, watermark.advanceWith(3, 4).chunkIndex);
+    }
+
+    @Test
+    void run_ShouldRespectMaxChunks() throws Exception {
+        // Given
+        AtomicInteger fetches = new AtomicInteger(0);
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> {
+                    fetches.incrementAndGet();
+                    return emit(chunkIndex, sink);
+                },
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                2, 2, 3);
+
+        // When
+        SnapshotSyncPipeline.PipelineResult result = pipeline.run((jobs, chunkIndex) -> jobs.size());
+
+        // Then
+        assertEquals(3, result.getSuccessfulChunks());
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    void run_ShouldPublishStageHistograms() throws Exception {
+        // Given
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        SnapshotSyncPipeline pipeline = new SnapshotSyncPipeline(
+                (chunkIndex, sink) -> chunkIndex < 2 ? emit(chunkIndex, sink) : 0,
+                this::convert,
+                new TokenBucketRateLimiter(1000, 10),
+                2, 2, 100)
+                .withMetrics(new MetricsConfig(registry));
+
+        // When
+        pipeline.run((jobs, chunkIndex) -> jobs.size());
+
+        // Then
+        for (String stage : List.of("rate-limit", "fetch", "convert", "write", "commit")) {
+            Timer timer = registry.get("stegroo.sync.stage.duration").tags("sync", "snapshot", "stage", stage).timer();
+            assertTrue(timer.count() > 0, stage);
+            assertTrue(registry.scrape().contains("stegroo_sync_stage_duration_seconds_bucket{stage=\"" + stage + "\",sync=\"snapshot\""), stage);
+        }
+        assertEquals(2 * ADS_PER_CHUNK, registry.get("stegroo.sync.rows").tags("sync", "snapshot").counter().count());
+        assertEquals(2, registry.get("stegroo.sync.chunk.throughput").summary().count());
+        assertEquals(2, registry.get("stegroo.sync.queue.wait").tags("side", "consumer").timer().count());
+        assertTrue(registry.get("stegroo.sync.queue.depth").summary().count() > 0);
+    }
+
+    private int emit(int chunkIndex, java.util.function.Consumer<List<AfJobStreamJob>> sink) {
+        List<AfJobStreamJob> batch = new ArrayList<>();
+        for (int i = 0; i < ADS_PER_CHUNK; i++) {
+            batch.add(ad(chunkIndex, i));
+            if (batch.size() == 2) {
+                sink.accept(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+        return ADS_PER_CHUNK;
+    }
+
+    private AfJobStreamJob ad(int chunkIndex, int position) {
+        AfJobStreamJob ad = new AfJobStreamJob();
+        ad.setId(chunkIndex + "-" + position);
+        ad.setHeadline("Jobb " + chunkIndex + "-" + position);
+        return ad;
+    }
+
+    private Optional<JobListing> convert(AfJobStreamJob ad) {
+        JobListing job = new JobListing();
+        job.setExternalId(ad.getId());
+        job.setTitle(ad.getHeadline());
+        return Optional.of(job);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
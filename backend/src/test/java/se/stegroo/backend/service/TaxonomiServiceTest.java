@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestClient;
 import se.stegroo.backend.dto.af.AfJobStreamResponse;
@@ -36,6 +38,12 @@ class TaxonomiServiceTest {
     @Mock
     private SkillRepository skillRepository;
 
+    @Mock
+    private JobCategoryCache jobCategoryCache;
+
+    @Spy
+    private SyncTaskExecutor taskExecutor = new SyncTaskExecutor();
+
     @InjectMocks
     private TaxonomiService taxonomiService;
 
@@ -0,0 +1,65 @@
+package se.stegroo.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenRejectUntilRefilled() {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2.0, 3, clock::get);
+
+        // When / Then
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_ShouldNotAccumulateMoreThanBurst() {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1.0, 2, clock::get);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+
+        // When
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        // Then
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void acquire_ShouldWaitForNextToken() throws InterruptedException {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(20.0, 1);
+        limiter.acquire();
+
+        // When
+        long start = System.nanoTime();
+        limiter.acquire();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMillis >= 30, "Andra anropet ska vänta på påfyllning, väntade " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void constructor_ShouldRejectNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1));
+    }
+}